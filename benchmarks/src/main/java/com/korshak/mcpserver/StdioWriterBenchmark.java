@@ -0,0 +1,83 @@
+package com.korshak.mcpserver;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing stdin-transport response frames to a file with
+ * {@code StdioResponseWriter} against the previous {@code println} + {@code flush}
+ * on a shared PrintStream, from one producer and from four. In this package
+ * because the writer is package-private.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StdioWriterBenchmark {
+
+    private static final String FRAME =
+        "{\"jsonrpc\":\"2.0\",\"id\":42,\"result\":{\"content\":[{\"type\":\"text\",\"text\":\"" +
+        "x".repeat(200) + "\"}]}}";
+
+    @State(Scope.Benchmark)
+    public static class Sinks {
+        Path target;
+        FileOutputStream writerOut;
+        StdioResponseWriter writer;
+        PrintStream printStream;
+
+        @Setup
+        public void setUp() throws IOException {
+            target = Files.createTempFile("stdio-writer", ".jsonl");
+            writerOut = new FileOutputStream(target.toFile());
+            writer = StdioResponseWriter.forStream(writerOut);
+            printStream = new PrintStream(new FileOutputStream(target.toFile()));
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            writer.close();
+            writerOut.close();
+            printStream.close();
+            Files.deleteIfExists(target);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void responseWriter(Sinks sinks) {
+        sinks.writer.write(FRAME);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void responseWriterFourProducers(Sinks sinks) {
+        sinks.writer.write(FRAME);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void printStream(Sinks sinks) {
+        printLine(sinks.printStream);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void printStreamFourProducers(Sinks sinks) {
+        printLine(sinks.printStream);
+    }
+
+    private static void printLine(PrintStream printStream) {
+        synchronized (printStream) {
+            printStream.println(FRAME);
+            printStream.flush();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.korshak.mcpserver.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Content analysis: full-store search, definition extraction and the strategy
+ * description heuristics. The last two run on text read once at setup, so they
+ * measure the analysis alone and not the extraction.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnalysisBenchmark {
+
+    private Method extractDefinitionsFromText;
+    private Method extractStrategyDescription;
+    private String markdownText;
+    private String plainText;
+
+    @Setup(Level.Trial)
+    public void prepare(BenchmarkStore store) throws Exception {
+        extractDefinitionsFromText = store.privateMethod("extractDefinitionsFromText", String.class, String.class);
+        extractStrategyDescription = store.privateMethod("extractStrategyDescription", String.class);
+        markdownText = store.knowledgeStoreService.readFile("notes-01.md");
+        plainText = store.knowledgeStoreService.readFile("journal-01.txt");
+    }
+
+    // Reads every file in the store, PDFs and RTFs included
+    @Benchmark
+    public String searchFiles(BenchmarkStore store) {
+        return store.knowledgeStoreService.searchFiles("stop loss");
+    }
+
+    @Benchmark
+    public Object extractDefinitionsMarkdown(BenchmarkStore store) throws Exception {
+        return extractDefinitionsFromText.invoke(store.knowledgeStoreService, markdownText, "notes-01.md");
+    }
+
+    @Benchmark
+    public Object extractDefinitionsText(BenchmarkStore store) throws Exception {
+        return extractDefinitionsFromText.invoke(store.knowledgeStoreService, plainText, "journal-01.txt");
+    }
+
+    @Benchmark
+    public Object extractStrategyDescription(BenchmarkStore store) throws Exception {
+        return extractStrategyDescription.invoke(store.knowledgeStoreService, plainText);
+    }
+}
@@ -0,0 +1,64 @@
+package com.korshak.mcpserver.benchmarks;
+
+import com.korshak.mcpserver.McpStdinServerApplication;
+import com.korshak.mcpserver.handler.McpProtocolHandler;
+import com.korshak.mcpserver.service.KnowledgeStoreService;
+import com.korshak.mcpserver.service.MetadataService;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A generated corpus and the stdin server's Spring context on top of it, shared
+ * by every benchmark in a trial. Private analysis methods are reached through
+ * reflection so the server does not widen its API for the benchmarks.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkStore {
+
+    @Param({"2"})
+    public int filesPerFormat;
+
+    @Param({"200"})
+    public int paragraphs;
+
+    public Path storePath;
+    public McpProtocolHandler protocolHandler;
+    public KnowledgeStoreService knowledgeStoreService;
+    public MetadataService metadataService;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        storePath = Files.createTempDirectory("mcp-bench-store");
+        new CorpusGenerator(CorpusGenerator.DEFAULT_SEED, paragraphs).generate(storePath, filesPerFormat);
+
+        context = new SpringApplicationBuilder(McpStdinServerApplication.class)
+            .web(WebApplicationType.NONE)
+            .profiles("stdin")
+            .run("--knowledge.store.path=" + storePath);
+        protocolHandler = context.getBean(McpProtocolHandler.class);
+        knowledgeStoreService = context.getBean(KnowledgeStoreService.class);
+        metadataService = context.getBean(MetadataService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        context.close();
+        FileUtils.deleteDirectory(storePath.toFile());
+    }
+
+    public Method privateMethod(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+        Method method = KnowledgeStoreService.class.getDeclaredMethod(name, parameterTypes);
+        method.setAccessible(true);
+        return method;
+    }
+}
@@ -0,0 +1,214 @@
+package com.korshak.mcpserver.benchmarks;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Writes a synthetic knowledge store: markdown, plain text, PDF and RTF files
+ * of trading-book-like prose with definitions, a glossary and strategy rules.
+ * Output depends only on the seed and sizes, so benchmark numbers from
+ * different machines are measured on the same text.
+ *
+ * <pre>java ... CorpusGenerator &lt;dir&gt; [filesPerFormat] [paragraphs] [seed]</pre>
+ */
+public final class CorpusGenerator {
+
+    public static final long DEFAULT_SEED = 20250101L;
+
+    private static final String[] WORDS = {
+        "market", "price", "trend", "volume", "trader", "position", "risk", "signal", "chart", "level",
+        "support", "resistance", "breakout", "pullback", "momentum", "session", "order", "spread", "liquidity",
+        "volatility", "candle", "range", "target", "account", "capital", "portfolio", "exposure", "hedge",
+        "futures", "shares", "index", "gap", "close", "open", "high", "low", "daily", "weekly", "the", "a",
+        "of", "and", "to", "in", "on", "with", "when", "after", "before", "is", "are", "can", "should"
+    };
+
+    private static final String[] RUSSIAN_WORDS = {
+        "рынок", "цена", "тренд", "объем", "трейдер", "позиция", "риск", "сигнал", "график", "уровень",
+        "поддержка", "сопротивление", "пробой", "откат", "импульс", "сессия", "заявка", "спред", "ликвидность",
+        "волатильность", "свеча", "диапазон", "цель", "счет", "капитал", "и", "в", "на", "при", "после"
+    };
+
+    private static final String[] TERMS = {
+        "Breakout", "Drawdown", "Leverage", "Margin call", "Moving average", "Oscillator", "Pullback",
+        "Relative strength", "Slippage", "Stop order", "Swing high", "Take profit", "Trailing stop", "Volatility"
+    };
+
+    private static final String[] STRATEGY_SENTENCES = {
+        "Enter long when RSI(14) is below 30 and the price is above the 50-day moving average.",
+        "Exit when RSI rises above 70 or the price closes below the 20-day SMA.",
+        "Place a stop loss at 2% below the entry price and take profit at 6%.",
+        "Trade only when volume is above its 20-day average.",
+        "A bearish EMA crossover with rising volume is a signal to reduce the position.",
+        "Стоп-лосс ставится на 3% ниже точки входа, объем должен расти."
+    };
+
+    private static final int PDF_LINES_PER_PAGE = 50;
+    private static final int LINE_WIDTH = 90;
+
+    private final long seed;
+    private final int paragraphs;
+
+    public CorpusGenerator(long seed, int paragraphs) {
+        this.seed = seed;
+        this.paragraphs = paragraphs;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: CorpusGenerator <dir> [filesPerFormat] [paragraphs] [seed]");
+            System.exit(1);
+        }
+        int filesPerFormat = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int paragraphs = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_SEED;
+
+        List<Path> files = new CorpusGenerator(seed, paragraphs).generate(Paths.get(args[0]), filesPerFormat);
+        System.out.println("Wrote " + files.size() + " files to " + args[0]);
+    }
+
+    /**
+     * Write {@code filesPerFormat} files of each format into {@code dir}.
+     */
+    public List<Path> generate(Path dir, int filesPerFormat) throws IOException {
+        Files.createDirectories(dir);
+        List<Path> files = new ArrayList<>();
+        for (int i = 1; i <= filesPerFormat; i++) {
+            String suffix = String.format("%02d", i);
+            files.add(writeMarkdown(dir.resolve("notes-" + suffix + ".md"), new Random(seed + i)));
+            files.add(writeText(dir.resolve("journal-" + suffix + ".txt"), new Random(seed + 1000 + i)));
+            files.add(writePdf(dir.resolve("report-" + suffix + ".pdf"), new Random(seed + 2000 + i)));
+            files.add(writeRtf(dir.resolve("memo-" + suffix + ".rtf"), new Random(seed + 3000 + i)));
+        }
+        return files;
+    }
+
+    /**
+     * Document text as lines: prose with strategy rules, inline definitions and a
+     * glossary. Russian prose is mixed in only where the format can carry it.
+     */
+    public List<String> documentLines(Random random, String title, boolean cyrillic, boolean markdown) {
+        List<String> lines = new ArrayList<>();
+        lines.add(markdown ? "# " + title : title);
+        lines.add("");
+        for (int p = 0; p < paragraphs; p++) {
+            if (p == paragraphs / 2) {
+                lines.add(markdown ? "## Glossary" : "Glossary");
+                for (String term : TERMS) {
+                    lines.add(term + " - " + sentence(random, WORDS, 8));
+                }
+                lines.add(markdown ? "## Chapter 2" : "Chapter 2");
+                lines.add("");
+            }
+            if (p % 15 == 7) {
+                String term = TERMS[random.nextInt(TERMS.length)];
+                if (markdown) {
+                    lines.add("**" + term + "**");
+                    lines.add(sentence(random, WORDS, 12));
+                } else {
+                    lines.add(term + ": " + sentence(random, WORDS, 12));
+                }
+                lines.add("");
+            }
+            StringBuilder paragraph = new StringBuilder();
+            int sentences = 3 + random.nextInt(4);
+            for (int s = 0; s < sentences; s++) {
+                if (random.nextInt(6) == 0) {
+                    String rule = STRATEGY_SENTENCES[random.nextInt(STRATEGY_SENTENCES.length)];
+                    paragraph.append(cyrillic || rule.chars().allMatch(c -> c < 0x80) ? rule : STRATEGY_SENTENCES[0]);
+                } else {
+                    paragraph.append(sentence(random, cyrillic && random.nextInt(3) == 0 ? RUSSIAN_WORDS : WORDS, 14));
+                }
+                paragraph.append(' ');
+            }
+            lines.addAll(wrap(paragraph.toString().trim()));
+            lines.add("");
+        }
+        return lines;
+    }
+
+    private Path writeMarkdown(Path file, Random random) throws IOException {
+        return Files.writeString(file, String.join("\n", documentLines(random, title(file), true, true)));
+    }
+
+    private Path writeText(Path file, Random random) throws IOException {
+        return Files.writeString(file, String.join("\n", documentLines(random, title(file), true, false)));
+    }
+
+    // The standard PDF fonts only cover Latin text
+    private Path writePdf(Path file, Random random) throws IOException {
+        List<String> lines = documentLines(random, title(file), false, false);
+        try (PDDocument document = new PDDocument()) {
+            for (int start = 0; start < lines.size(); start += PDF_LINES_PER_PAGE) {
+                PDPage page = new PDPage(PDRectangle.A4);
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 9);
+                    content.setLeading(14);
+                    content.newLineAtOffset(40, 800);
+                    for (String line : lines.subList(start, Math.min(lines.size(), start + PDF_LINES_PER_PAGE))) {
+                        content.showText(line);
+                        content.newLine();
+                    }
+                    content.endText();
+                }
+            }
+            document.save(file.toFile());
+        }
+        return file;
+    }
+
+    private Path writeRtf(Path file, Random random) throws IOException {
+        StringBuilder rtf = new StringBuilder("{\\rtf1\\ansi\\deff0{\\fonttbl{\\f0 Helvetica;}}\\f0\\fs20\n");
+        for (String line : documentLines(random, title(file), false, false)) {
+            rtf.append(line.replace("\\", "\\\\").replace("{", "\\{").replace("}", "\\}")).append("\\par\n");
+        }
+        rtf.append('}');
+        return Files.writeString(file, rtf);
+    }
+
+    private static String title(Path file) {
+        return "Trading notes " + file.getFileName();
+    }
+
+    private static String sentence(Random random, String[] words, int maxWords) {
+        int count = 4 + random.nextInt(Math.max(1, maxWords - 3));
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            String word = words[random.nextInt(words.length)];
+            if (i == 0) {
+                word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+            }
+            sentence.append(i == 0 ? "" : " ").append(word);
+        }
+        return sentence.append('.').toString();
+    }
+
+    private static List<String> wrap(String text) {
+        List<String> lines = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+        for (String word : text.split(" ")) {
+            if (line.length() > 0 && line.length() + word.length() + 1 > LINE_WIDTH) {
+                lines.add(line.toString());
+                line.setLength(0);
+            }
+            line.append(line.length() > 0 ? " " : "").append(word);
+        }
+        if (line.length() > 0) {
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,54 @@
+package com.korshak.mcpserver.benchmarks;
+
+import com.korshak.mcpserver.model.FileMetadata;
+import com.korshak.mcpserver.service.MetadataService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persisting and reloading {@code file-metadata.json} with a given number of
+ * entries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetadataBenchmark {
+
+    @Param({"100", "1000"})
+    public int entries;
+
+    @Setup(Level.Trial)
+    public void populate(BenchmarkStore store) {
+        LocalDateTime timestamp = LocalDateTime.of(2025, 1, 1, 12, 0);
+        try (MetadataService.Batch batch = store.metadataService.beginBatch();
+             MetadataService.Scope scope = batch.enter()) {
+            for (int i = 0; i < entries; i++) {
+                String filename = String.format("archive/document-%05d.pdf", i);
+                FileMetadata metadata = new FileMetadata(filename);
+                metadata.setDescription("Synthetic entry " + i + " for the metadata benchmarks");
+                metadata.setTags(List.of("synthetic", "benchmark", i % 2 == 0 ? "even" : "odd"));
+                metadata.setCategory("document");
+                metadata.setSize(100_000L + i);
+                metadata.setLastModified(timestamp);
+                metadata.setLastAccessed(timestamp);
+                store.metadataService.updateMetadata(filename, metadata);
+            }
+        }
+    }
+
+    @Benchmark
+    public void saveMetadata(BenchmarkStore store) {
+        store.metadataService.saveMetadata();
+    }
+
+    @Benchmark
+    public void loadMetadata(BenchmarkStore store) {
+        store.metadataService.loadMetadata();
+    }
+}
@@ -0,0 +1,57 @@
+package com.korshak.mcpserver.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON-RPC parsing, dispatch and response serialization in
+ * {@code McpProtocolHandler.handleMessage}, for requests whose work is small
+ * enough that the protocol layer dominates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProtocolBenchmark {
+
+    private static final String INITIALIZE =
+        "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{\"protocolVersion\":\"2024-11-05\"}}";
+    private static final String TOOLS_LIST =
+        "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/list\",\"params\":{}}";
+    private static final String GET_FILE_INFO =
+        "{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"tools/call\",\"params\":{\"name\":\"get_file_info\"," +
+        "\"arguments\":{\"filename\":\"notes-01.md\"}}}";
+    private static final String READ_FILE =
+        "{\"jsonrpc\":\"2.0\",\"id\":\"4\",\"method\":\"tools/call\",\"params\":{\"name\":\"read_file\"," +
+        "\"arguments\":{\"filename\":\"notes-01.md\"}}}";
+    private static final String UNKNOWN_METHOD =
+        "{\"jsonrpc\":\"2.0\",\"id\":5,\"method\":\"no/such/method\",\"params\":{}}";
+
+    @Benchmark
+    public String initialize(BenchmarkStore store) {
+        return store.protocolHandler.handleMessage(INITIALIZE);
+    }
+
+    @Benchmark
+    public String toolsList(BenchmarkStore store) {
+        return store.protocolHandler.handleMessage(TOOLS_LIST);
+    }
+
+    @Benchmark
+    public String getFileInfo(BenchmarkStore store) {
+        return store.protocolHandler.handleMessage(GET_FILE_INFO);
+    }
+
+    // Dominated by escaping the file's text into the JSON response
+    @Benchmark
+    public String readMarkdownFile(BenchmarkStore store) {
+        return store.protocolHandler.handleMessage(READ_FILE);
+    }
+
+    @Benchmark
+    public String errorResponse(BenchmarkStore store) {
+        return store.protocolHandler.handleMessage(UNKNOWN_METHOD);
+    }
+}
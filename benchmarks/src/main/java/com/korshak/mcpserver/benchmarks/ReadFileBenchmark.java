@@ -0,0 +1,30 @@
+package com.korshak.mcpserver.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code KnowledgeStoreService.readFile} for each extractor: plain text,
+ * PDFBox and Tika.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadFileBenchmark {
+
+    private static final Map<String, String> SAMPLE_FILES = Map.of(
+        "md", "notes-01.md", "txt", "journal-01.txt", "pdf", "report-01.pdf", "rtf", "memo-01.rtf");
+
+    @Param({"md", "txt", "pdf", "rtf"})
+    public String format;
+
+    @Benchmark
+    public String readFile(BenchmarkStore store) {
+        return store.knowledgeStoreService.readFile(SAMPLE_FILES.get(format));
+    }
+}
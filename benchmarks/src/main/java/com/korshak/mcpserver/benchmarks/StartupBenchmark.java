@@ -0,0 +1,96 @@
+package com.korshak.mcpserver.benchmarks;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from launching the packaged stdin server to its answer to
+ * {@code initialize}, which is what a desktop client waits for when it spawns a
+ * session. {@code fast} uses the stdin profile as shipped; {@code eager} turns
+ * lazy bean initialization back off for comparison; {@code cds} starts the
+ * plain jar with the class-data-sharing archive from {@code mvn package -Pcds}
+ * (select it with {@code -p mode=fast,cds}). Needs the stdin jar
+ * ({@code mvn package} at the root); override the locations with
+ * {@code -Dmcp.stdin.jar=...} and {@code -Dmcp.cds.dir=...}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    private static final String INITIALIZE =
+        "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{\"protocolVersion\":\"2024-11-05\"}}";
+
+    @Param({"fast", "eager"})
+    public String mode;
+
+    private Path jar;
+    private Path cdsDir;
+    private Path storePath;
+    private Process process;
+
+    @Setup(Level.Trial)
+    public void createStore() throws IOException {
+        jar = Paths.get(System.getProperty("mcp.stdin.jar", "../target/mcp-knowledge-server-1.0.0-stdin.jar"));
+        cdsDir = Paths.get(System.getProperty("mcp.cds.dir", "../target/stdin-cds"));
+        if ("cds".equals(mode)) {
+            jar = cdsDir.resolve("mcp-knowledge-server-1.0.0-stdin-cds.jar");
+        }
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException("Stdin server jar not found: " + jar.toAbsolutePath());
+        }
+        storePath = Files.createTempDirectory("mcp-bench-startup");
+        new CorpusGenerator(CorpusGenerator.DEFAULT_SEED, 50).generate(storePath, 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteStore() throws IOException {
+        FileUtils.deleteDirectory(storePath.toFile());
+    }
+
+    @Benchmark
+    public String timeToInitialize() throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if ("cds".equals(mode)) {
+            command.add("-XX:SharedArchiveFile=" + cdsDir.resolve("mcp-knowledge-server-stdin.jsa"));
+        }
+        command.addAll(List.of("-jar", jar.toString(), "--spring.profiles.active=stdin",
+            "--knowledge.store.path=" + storePath));
+        if ("eager".equals(mode)) {
+            command.add("--spring.main.lazy-initialization=false");
+        }
+        process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+
+        Writer writer = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+        writer.write(INITIALIZE + "\n");
+        writer.flush();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String response = reader.readLine();
+        if (response == null || !response.contains("\"result\"")) {
+            throw new IllegalStateException("No initialize response: " + response);
+        }
+        return response;
+    }
+
+    // Shutting the server down is not part of the measured time
+    @TearDown(Level.Invocation)
+    public void stopServer() throws Exception {
+        process.getOutputStream().close();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+}
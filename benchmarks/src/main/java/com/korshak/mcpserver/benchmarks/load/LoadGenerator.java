@@ -0,0 +1,314 @@
+package com.korshak.mcpserver.benchmarks.load;
+
+import com.korshak.mcpserver.benchmarks.CorpusGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+import org.apache.commons.io.FileUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a running server build with a mix of MCP requests at a target rate
+ * and reports throughput and latency percentiles per tool.
+ *
+ * <pre>
+ * LoadGenerator (--stdin &lt;stdin jar&gt; [--store &lt;dir&gt; | --corpus] | --ws &lt;ws://host:port/mcp&gt;)
+ *               [--mix &lt;file.jsonl&gt;] [--rate &lt;requests/s&gt;] [--concurrency &lt;n&gt;]
+ *               [--warmup &lt;s&gt;] [--duration &lt;s&gt;] [--seed &lt;n&gt;] [--out &lt;report.json&gt;]
+ * </pre>
+ *
+ * Requests are scheduled open-loop: latency is measured from the time a
+ * request was due, not from when it could be sent, so a server that falls
+ * behind shows its queueing in the percentiles instead of silently lowering
+ * the offered rate. With {@code --rate 0} requests are sent as fast as the
+ * concurrency limit allows.
+ */
+public final class LoadGenerator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final long STARTUP_TIMEOUT_SECONDS = 180;
+    private static final long DRAIN_TIMEOUT_SECONDS = 120;
+    // Latencies are recorded in microseconds, up to an hour
+    private static final long MAX_LATENCY_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final Map<String, ToolStats> stats = new ConcurrentSkipListMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private Semaphore inFlight;
+    private McpClient client;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        if (!options.containsKey("stdin") && !options.containsKey("ws")) {
+            System.err.println("Usage: LoadGenerator (--stdin <jar> [--store <dir> | --corpus] | --ws <uri>) "
+                + "[--mix <file>] [--rate <n/s>] [--concurrency <n>] [--warmup <s>] [--duration <s>] "
+                + "[--seed <n>] [--out <file>]");
+            System.exit(1);
+        }
+        new LoadGenerator().run(options);
+    }
+
+    private void run(Map<String, String> options) throws Exception {
+        double rate = Double.parseDouble(options.getOrDefault("rate", "20"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "8"));
+        long warmupSeconds = Long.parseLong(options.getOrDefault("warmup", "10"));
+        long durationSeconds = Long.parseLong(options.getOrDefault("duration", "60"));
+        Random random = new Random(Long.parseLong(options.getOrDefault("seed", String.valueOf(CorpusGenerator.DEFAULT_SEED))));
+        inFlight = new Semaphore(concurrency);
+
+        Path generatedStore = null;
+        if (options.containsKey("ws")) {
+            client = new McpClient.Ws(URI.create(options.get("ws")), this::onMessage);
+        } else {
+            Path store = options.containsKey("store") ? Paths.get(options.get("store")) : null;
+            if (options.containsKey("corpus")) {
+                generatedStore = Files.createTempDirectory("mcp-load-store");
+                new CorpusGenerator(CorpusGenerator.DEFAULT_SEED, 200).generate(generatedStore, 3);
+                store = generatedStore;
+            }
+            client = new McpClient.Stdin(Paths.get(options.get("stdin")), store, this::onMessage);
+        }
+
+        try {
+            ObjectNode initParams = MAPPER.createObjectNode().put("protocolVersion", "2024-11-05");
+            initParams.putObject("clientInfo").put("name", "mcp-load-generator").put("version", "1.0.0");
+            call("initialize", initParams);
+
+            RequestMix mix = options.containsKey("mix") ? RequestMix.load(Paths.get(options.get("mix"))) : discoverMix();
+            System.out.printf("Target: %s%nMix: %d request kinds%s, rate %s, concurrency %d, warmup %d s, duration %d s%n",
+                client.describe(), mix.size(), mix.isReplayInOrder() ? " replayed in order" : " drawn by weight",
+                rate > 0 ? rate + "/s" : "unlimited", concurrency, warmupSeconds, durationSeconds);
+
+            if (warmupSeconds > 0) {
+                drive(mix, random, rate, warmupSeconds, false);
+            }
+            long started = System.nanoTime();
+            drive(mix, random, rate, durationSeconds, true);
+            double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+            printReport(elapsedSeconds);
+            if (options.containsKey("out")) {
+                writeReport(Paths.get(options.get("out")), options, elapsedSeconds);
+            }
+        } finally {
+            client.close();
+            if (generatedStore != null) {
+                FileUtils.deleteDirectory(generatedStore.toFile());
+            }
+        }
+    }
+
+    /**
+     * Send requests for {@code seconds}, then wait for the stragglers.
+     */
+    private void drive(RequestMix mix, Random random, double rate, long seconds, boolean measured) throws Exception {
+        long intervalNanos = rate > 0 ? (long) (1e9 / rate) : 0;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        long due = start;
+
+        while (due < end && System.nanoTime() < end) {
+            if (intervalNanos > 0) {
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            } else {
+                due = System.nanoTime();
+            }
+            inFlight.acquire();
+            RequestMix.Entry entry = mix.next(random);
+            long id = ids.incrementAndGet();
+            pending.put(id, new Pending(entry.label(), due, measured, null));
+            client.send(entry.toRequest(id));
+            due += intervalNanos;
+        }
+
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_TIMEOUT_SECONDS);
+        while (pending.values().stream().anyMatch(request -> request.reply == null)
+                && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        pending.entrySet().removeIf(request -> {
+            if (request.getValue().reply != null) {
+                return false;
+            }
+            if (request.getValue().measured) {
+                stats(request.getValue().label).lost++;
+            }
+            inFlight.release();
+            return true;
+        });
+    }
+
+    private JsonNode call(String method, ObjectNode params) throws Exception {
+        long id = ids.incrementAndGet();
+        CompletableFuture<JsonNode> reply = new CompletableFuture<>();
+        pending.put(id, new Pending(method, System.nanoTime(), false, reply));
+        ObjectNode request = MAPPER.createObjectNode().put("jsonrpc", "2.0").put("id", id).put("method", method);
+        request.set("params", params);
+        client.send(request.toString());
+        JsonNode response = reply.get(STARTUP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        if (response.has("error")) {
+            throw new IllegalStateException(method + " failed: " + response.get("error"));
+        }
+        return response.path("result");
+    }
+
+    /**
+     * The default mix over whatever the store holds, found with list_files.
+     */
+    private RequestMix discoverMix() throws Exception {
+        ObjectNode params = MAPPER.createObjectNode().put("name", "list_files");
+        params.putObject("arguments");
+        String listing = call("tools/call", params).path("content").path(0).path("text").asText();
+
+        List<String> textFiles = new ArrayList<>();
+        List<String> pdfFiles = new ArrayList<>();
+        for (String line : listing.split("\n")) {
+            String name = line.trim();
+            if (name.endsWith(".md") || name.endsWith(".txt")) {
+                textFiles.add(name);
+            } else if (name.endsWith(".pdf")) {
+                pdfFiles.add(name);
+            }
+        }
+        Collections.sort(textFiles);
+        Collections.sort(pdfFiles);
+        return RequestMix.synthetic(textFiles.subList(0, Math.min(5, textFiles.size())),
+            pdfFiles.subList(0, Math.min(2, pdfFiles.size())));
+    }
+
+    private void onMessage(String message) {
+        long received = System.nanoTime();
+        JsonNode response;
+        try {
+            response = MAPPER.readTree(message);
+        } catch (IOException e) {
+            return;
+        }
+        // Notifications (progress, streamed chunks) carry no id
+        if (!response.has("id") || response.has("method")) {
+            return;
+        }
+        Pending request = pending.get(response.get("id").asLong());
+        if (request == null) {
+            return;
+        }
+        if (request.reply != null) {
+            pending.remove(response.get("id").asLong());
+            request.reply.complete(response);
+            return;
+        }
+        pending.remove(response.get("id").asLong());
+        inFlight.release();
+        if (request.measured) {
+            stats(request.label).record(received - request.dueNanos, response.has("error"));
+        }
+    }
+
+    private ToolStats stats(String label) {
+        return stats.computeIfAbsent(label, key -> new ToolStats());
+    }
+
+    private void printReport(double elapsedSeconds) {
+        System.out.printf("%n%-32s %8s %7s %6s %9s %9s %9s %9s %9s%n",
+            "request", "count", "errors", "lost", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        ToolStats total = new ToolStats();
+        stats.forEach((label, tool) -> {
+            printRow(label, tool, elapsedSeconds);
+            total.add(tool);
+        });
+        printRow("TOTAL", total, elapsedSeconds);
+    }
+
+    private static void printRow(String label, ToolStats tool, double elapsedSeconds) {
+        Histogram histogram = tool.histogram;
+        System.out.printf("%-32s %8d %7d %6d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+            label, histogram.getTotalCount(), tool.errors, tool.lost, histogram.getTotalCount() / elapsedSeconds,
+            millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+            millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()));
+    }
+
+    private void writeReport(Path file, Map<String, String> options, double elapsedSeconds) throws IOException {
+        ObjectNode report = MAPPER.createObjectNode();
+        report.put("target", client.describe());
+        report.set("options", MAPPER.valueToTree(options));
+        report.put("elapsedSeconds", elapsedSeconds);
+        ObjectNode requests = report.putObject("requests");
+        stats.forEach((label, tool) -> {
+            Histogram histogram = tool.histogram;
+            requests.putObject(label)
+                .put("count", histogram.getTotalCount())
+                .put("errors", tool.errors)
+                .put("lost", tool.lost)
+                .put("throughput", histogram.getTotalCount() / elapsedSeconds)
+                .put("p50Ms", millis(histogram.getValueAtPercentile(50)))
+                .put("p99Ms", millis(histogram.getValueAtPercentile(99)))
+                .put("p999Ms", millis(histogram.getValueAtPercentile(99.9)))
+                .put("maxMs", millis(histogram.getMaxValue()));
+        });
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+        System.out.println("Report written to " + file);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String name = args[i].substring(2);
+            boolean flag = i + 1 >= args.length || args[i + 1].startsWith("--");
+            options.put(name, flag ? "true" : args[++i]);
+        }
+        return options;
+    }
+
+    private static final class Pending {
+        private final String label;
+        private final long dueNanos;
+        private final boolean measured;
+        private final CompletableFuture<JsonNode> reply;
+
+        Pending(String label, long dueNanos, boolean measured, CompletableFuture<JsonNode> reply) {
+            this.label = label;
+            this.dueNanos = dueNanos;
+            this.measured = measured;
+            this.reply = reply;
+        }
+    }
+
+    private static final class ToolStats {
+        private final Histogram histogram = new Histogram(MAX_LATENCY_MICROS, 3);
+        private long errors;
+        private long lost;
+
+        synchronized void record(long nanos, boolean error) {
+            histogram.recordValue(Math.min(MAX_LATENCY_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos))));
+            if (error) {
+                errors++;
+            }
+        }
+
+        synchronized void add(ToolStats other) {
+            histogram.add(other.histogram);
+            errors += other.errors;
+            lost += other.lost;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.korshak.mcpserver.benchmarks.load;
+
+import java.io.*;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A raw MCP connection: JSON-RPC messages go out through {@link #send} and
+ * every message the server sends back is handed to the consumer given at
+ * construction, on the client's reader thread.
+ */
+public interface McpClient extends AutoCloseable {
+
+    void send(String message) throws IOException;
+
+    String describe();
+
+    @Override
+    void close();
+
+    /**
+     * Runs the stdin server jar as a child process and talks to it over its
+     * stdin and stdout.
+     */
+    final class Stdin implements McpClient {
+        private final Process process;
+        private final Writer writer;
+        private final String description;
+
+        public Stdin(Path jar, Path store, Consumer<String> onMessage) throws IOException {
+            String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            List<String> command = store != null
+                ? List.of(java, "-jar", jar.toString(), "--spring.profiles.active=stdin", "--knowledge.store.path=" + store)
+                : List.of(java, "-jar", jar.toString(), "--spring.profiles.active=stdin");
+            process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            description = "stdin " + jar.getFileName() + (store != null ? " (store " + store + ")" : "");
+
+            Thread reader = new Thread(() -> {
+                try (BufferedReader lines = new BufferedReader(
+                        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = lines.readLine()) != null) {
+                        if (!line.isBlank()) {
+                            onMessage.accept(line);
+                        }
+                    }
+                } catch (IOException e) {
+                    // Process went away; pending requests are reported as lost
+                }
+            }, "mcp-load-stdin-reader");
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        @Override
+        public synchronized void send(String message) throws IOException {
+            writer.write(message);
+            writer.write('\n');
+            writer.flush();
+        }
+
+        @Override
+        public String describe() {
+            return description;
+        }
+
+        // Closing stdin lets the server finish in-flight requests and exit on its own
+        @Override
+        public void close() {
+            try {
+                writer.close();
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroy();
+                }
+            } catch (IOException e) {
+                process.destroy();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroy();
+            }
+        }
+    }
+
+    /**
+     * Connects to the web server's {@code /mcp} WebSocket endpoint.
+     */
+    final class Ws implements McpClient {
+        private final WebSocket webSocket;
+        private final URI uri;
+
+        public Ws(URI uri, Consumer<String> onMessage) {
+            this.uri = uri;
+            this.webSocket = HttpClient.newHttpClient().newWebSocketBuilder()
+                .buildAsync(uri, new WebSocket.Listener() {
+                    private final StringBuilder partial = new StringBuilder();
+
+                    @Override
+                    public CompletionStage<?> onText(WebSocket socket, CharSequence data, boolean last) {
+                        partial.append(data);
+                        if (last) {
+                            String message = partial.toString();
+                            partial.setLength(0);
+                            onMessage.accept(message);
+                        }
+                        socket.request(1);
+                        return null;
+                    }
+                })
+                .join();
+        }
+
+        // The JDK client allows one outstanding send at a time
+        @Override
+        public synchronized void send(String message) {
+            webSocket.sendText(message, true).join();
+        }
+
+        @Override
+        public String describe() {
+            return "websocket " + uri;
+        }
+
+        @Override
+        public void close() {
+            webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "done").join();
+        }
+    }
+}
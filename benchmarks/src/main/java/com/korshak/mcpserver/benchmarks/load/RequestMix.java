@@ -0,0 +1,139 @@
+package com.korshak.mcpserver.benchmarks.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The requests a load run sends. A mix file holds one JSON object per line
+ * ({@code #} lines are comments), either a recorded JSON-RPC request such as
+ * <pre>{"jsonrpc":"2.0","id":7,"method":"tools/call","params":{"name":"read_file","arguments":{"filename":"a.md"}}}</pre>
+ * or a weighted tool call such as
+ * <pre>{"tool":"read_file","arguments":{"filename":"a.md"},"weight":5}</pre>
+ * A file of recorded requests only is replayed in order, round and round;
+ * otherwise requests are drawn at random in proportion to their weights.
+ */
+public final class RequestMix {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final List<Entry> entries;
+    private final boolean replayInOrder;
+    private final double totalWeight;
+    private int position;
+
+    private RequestMix(List<Entry> entries, boolean replayInOrder) {
+        if (entries.isEmpty()) {
+            throw new IllegalArgumentException("Request mix is empty");
+        }
+        this.entries = entries;
+        this.replayInOrder = replayInOrder;
+        this.totalWeight = entries.stream().mapToDouble(entry -> entry.weight).sum();
+    }
+
+    public static RequestMix load(Path file) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        boolean recordedOnly = true;
+        for (String line : Files.readAllLines(file)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            JsonNode node = MAPPER.readTree(line);
+            if (node.has("method")) {
+                ObjectNode params = node.path("params").isObject()
+                    ? (ObjectNode) node.get("params") : MAPPER.createObjectNode();
+                entries.add(new Entry(node.get("method").asText(), params, 1));
+            } else if (node.has("tool")) {
+                recordedOnly = false;
+                entries.add(toolCall(node.get("tool").asText(), node.path("arguments"), node.path("weight").asDouble(1)));
+            } else {
+                throw new IllegalArgumentException("Neither a request nor a tool call: " + line);
+            }
+        }
+        return new RequestMix(entries, recordedOnly);
+    }
+
+    /**
+     * A read-heavy mix resembling an assistant browsing a store: listings and
+     * metadata lookups, reads of the given files, and an occasional full-text search.
+     */
+    public static RequestMix synthetic(List<String> textFiles, List<String> pdfFiles) {
+        List<Entry> entries = new ArrayList<>();
+        entries.add(toolCall("list_files", null, 10));
+        entries.add(toolCall("get_knowledge_store_overview", null, 5));
+        entries.add(toolCall("search_files_by_metadata", MAPPER.createObjectNode().put("query", "trading"), 10));
+        entries.add(toolCall("get_trading_strategies_stats", null, 5));
+        for (String file : textFiles) {
+            entries.add(toolCall("get_file_info", MAPPER.createObjectNode().put("filename", file), 10.0 / textFiles.size()));
+            entries.add(toolCall("read_file", MAPPER.createObjectNode().put("filename", file), 20.0 / textFiles.size()));
+        }
+        for (String file : pdfFiles) {
+            entries.add(toolCall("read_file", MAPPER.createObjectNode().put("filename", file), 3.0 / pdfFiles.size()));
+        }
+        entries.add(toolCall("search_files", MAPPER.createObjectNode().put("query", "stop loss"), 1));
+        return new RequestMix(entries, false);
+    }
+
+    public synchronized Entry next(Random random) {
+        if (replayInOrder) {
+            Entry entry = entries.get(position);
+            position = (position + 1) % entries.size();
+            return entry;
+        }
+        double pick = random.nextDouble() * totalWeight;
+        for (Entry entry : entries) {
+            pick -= entry.weight;
+            if (pick < 0) {
+                return entry;
+            }
+        }
+        return entries.get(entries.size() - 1);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean isReplayInOrder() {
+        return replayInOrder;
+    }
+
+    private static Entry toolCall(String tool, JsonNode arguments, double weight) {
+        ObjectNode params = MAPPER.createObjectNode().put("name", tool);
+        params.set("arguments", arguments != null && arguments.isObject() ? arguments : MAPPER.createObjectNode());
+        return new Entry("tools/call", params, weight);
+    }
+
+    /**
+     * One kind of request; results are reported per {@link #label()}.
+     */
+    public static final class Entry {
+        private final String method;
+        private final ObjectNode params;
+        private final double weight;
+
+        Entry(String method, ObjectNode params, double weight) {
+            this.method = method;
+            this.params = params;
+            this.weight = weight;
+        }
+
+        public String label() {
+            return "tools/call".equals(method) ? params.path("name").asText() : method;
+        }
+
+        public String toRequest(long id) {
+            ObjectNode request = MAPPER.createObjectNode().put("jsonrpc", "2.0").put("id", id).put("method", method);
+            request.set("params", params);
+            return request.toString();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.korshak.mcpserver;
+
+import com.korshak.mcpserver.service.MetricsService;
+import jakarta.servlet.ServletException;
+import org.apache.catalina.AccessLog;
+import org.apache.catalina.connector.Request;
+import org.apache.catalina.connector.Response;
+import org.apache.catalina.valves.ValveBase;
+
+import java.io.IOException;
+
+/**
+ * Counts what gzip saves on HTTP responses. Tomcat compresses in the connector,
+ * after the application has written the body, so the sizes are taken when the
+ * response is complete, the way access logs are written: the bytes the
+ * application wrote against the bytes that went out.
+ */
+class CompressionMetricsValve extends ValveBase implements AccessLog {
+
+    private final MetricsService metricsService;
+
+    CompressionMetricsValve(MetricsService metricsService) {
+        super(true);
+        this.metricsService = metricsService;
+    }
+
+    @Override
+    public void invoke(Request request, Response response) throws IOException, ServletException {
+        getNext().invoke(request, response);
+    }
+
+    @Override
+    public void log(Request request, Response response, long time) {
+        String encoding = response.getHeader("Content-Encoding");
+        if (encoding == null) {
+            return;
+        }
+        String transport = request.getRequestURI().startsWith("/api/") ? "rest" : "http";
+        metricsService.recordCompression(transport, encoding,
+            response.getCoyoteResponse().getContentWritten(), response.getBytesWritten(false));
+    }
+
+    @Override
+    public void setRequestAttributesEnabled(boolean requestAttributesEnabled) {
+    }
+
+    @Override
+    public boolean getRequestAttributesEnabled() {
+        return false;
+    }
+}
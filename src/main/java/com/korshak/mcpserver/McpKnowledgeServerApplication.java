@@ -1,8 +1,11 @@
 package com.korshak.mcpserver;
 
-import com.korshak.mcpserver.service.KnowledgeStoreService;
+import com.korshak.mcpserver.service.MetricsService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
@@ -12,17 +15,23 @@ import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry
 @EnableWebSocket
 public class McpKnowledgeServerApplication implements WebSocketConfigurer {
 
+    @Autowired
+    private McpWebSocketHandler mcpWebSocketHandler;
+
     public static void main(String[] args) {
         SpringApplication.run(McpKnowledgeServerApplication.class, args);
     }
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(new McpWebSocketHandler(), "/mcp").setAllowedOrigins("*");
+        registry.addHandler(mcpWebSocketHandler, "/mcp").setAllowedOrigins("*");
     }
 
+    /**
+     * Compression metrics for the responses Tomcat gzips ({@code server.compression.*}).
+     */
     @Bean
-    public KnowledgeStoreService knowledgeStoreService() {
-        return new KnowledgeStoreService();
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> compressionMetrics(MetricsService metricsService) {
+        return factory -> factory.addContextValves(new CompressionMetricsValve(metricsService));
     }
 }
@@ -1,9 +1,9 @@
 package com.korshak.mcpserver;
 
 import com.korshak.mcpserver.handler.McpProtocolHandler;
-import com.korshak.mcpserver.service.KnowledgeStoreService;
-import com.korshak.mcpserver.service.MetadataService;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.korshak.mcpserver.handler.RequestTrace;
+import com.korshak.mcpserver.handler.SlowRequestLog;
+import com.korshak.mcpserver.service.MetricsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
@@ -13,8 +13,11 @@ import org.springframework.context.ConfigurableApplicationContext;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @SpringBootApplication
 public class McpStdinServerApplication {
@@ -32,16 +35,15 @@ public class McpStdinServerApplication {
         try {
             // Get beans from Spring context
             McpProtocolHandler protocolHandler = context.getBean(McpProtocolHandler.class);
-            KnowledgeStoreService knowledgeStoreService = context.getBean(KnowledgeStoreService.class);
-            MetadataService metadataService = context.getBean(MetadataService.class);
+            MetricsService metricsService = context.getBean(MetricsService.class);
+            SlowRequestLog slowRequestLog = context.getBean(SlowRequestLog.class);
             
-            // Initialize services
-            metadataService.loadMetadata();
+            // Metadata is loaded once, by KnowledgeStoreService when the tools are registered
             
             logger.info("MCP Knowledge Server (stdin) started successfully");
             
             // Start stdin/stdout communication
-            StdinHandler stdinHandler = new StdinHandler(protocolHandler);
+            StdinHandler stdinHandler = new StdinHandler(protocolHandler, metricsService, slowRequestLog);
             stdinHandler.start();
             
         } catch (Exception e) {
@@ -53,15 +55,34 @@ public class McpStdinServerApplication {
     }
     
     private static class StdinHandler {
+        // How long in-flight requests may keep running once stdin is closed
+        private static final long SHUTDOWN_GRACE_SECONDS = 60;
+        private static final String TRANSPORT = "stdin";
+        
         private final McpProtocolHandler protocolHandler;
+        private final MetricsService metricsService;
+        private final SlowRequestLog slowRequestLog;
         private final BufferedReader reader;
-        private final ObjectMapper objectMapper;
+        private final ExecutorService executor;
+        private final StdioResponseWriter responseWriter;
         private final Logger logger = LoggerFactory.getLogger(StdinHandler.class);
         
-        public StdinHandler(McpProtocolHandler protocolHandler) {
+        public StdinHandler(McpProtocolHandler protocolHandler, MetricsService metricsService,
+                            SlowRequestLog slowRequestLog) {
             this.protocolHandler = protocolHandler;
-            this.reader = new BufferedReader(new InputStreamReader(System.in));
-            this.objectMapper = new ObjectMapper();
+            this.metricsService = metricsService;
+            this.slowRequestLog = slowRequestLog;
+            this.reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            this.responseWriter = StdioResponseWriter.forStdout();
+            
+            // Requests run off the reader thread so a notifications/cancelled can
+            // still be read while the request it targets is busy
+            AtomicInteger threadCount = new AtomicInteger();
+            this.executor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "mcp-stdin-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
         }
         
         public void start() {
@@ -74,48 +95,60 @@ public class McpStdinServerApplication {
                         continue;
                     }
                     
-                    try {
-                        // Process the MCP message
-                        String response = protocolHandler.handleMessage(line);
-                        
-                        // Only write response to stdout if there is one
-                        // (notifications don't require responses)
-                        if (response != null) {
-                            System.out.println(response);
-                            System.out.flush();
-                        }
-                        
-                    } catch (Exception e) {
-                        logger.error("Error processing message: " + line, e);
-                        
-                        // Send error response
-                        String errorResponse = createErrorResponse(e.getMessage());
-                        System.out.println(errorResponse);
-                        System.out.flush();
+                    if (protocolHandler.isCancellationNotification(line)) {
+                        long start = System.nanoTime();
+                        protocolHandler.handleMessage(line);
+                        metricsService.recordTransportRequest(TRANSPORT, line, null, System.nanoTime() - start);
+                        continue;
                     }
+                    
+                    String message = line;
+                    executor.execute(() -> process(message));
                 }
             } catch (IOException e) {
                 logger.error("Error reading from stdin", e);
             }
             
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(SHUTDOWN_GRACE_SECONDS, TimeUnit.SECONDS)) {
+                    logger.warn("In-flight requests did not finish after stdin closed");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            responseWriter.close();
+            
             logger.info("MCP Server stdin handler stopped");
         }
         
-        private String createErrorResponse(String message) {
+        private void process(String message) {
             try {
-                Map<String, Object> error = new HashMap<>();
-                error.put("code", -32603);
-                error.put("message", "Internal error: " + message);
+                // Process the MCP message
+                long start = System.nanoTime();
+                RequestTrace trace = slowRequestLog.start(TRANSPORT, message);
+                String response = protocolHandler.handleMessage(message,
+                    metricsService.countingSink(TRANSPORT, this::writeLine), trace);
+                metricsService.recordTransportRequest(TRANSPORT, message, response, System.nanoTime() - start);
                 
-                Map<String, Object> response = new HashMap<>();
-                response.put("jsonrpc", "2.0");
-                response.put("id", "0"); // Use default ID for error responses
-                response.put("error", error);
+                // Only write response to stdout if there is one
+                // (notifications don't require responses)
+                if (response != null) {
+                    writeLine(response);
+                }
+                trace.endPhase(RequestTrace.WRITE);
+                slowRequestLog.finish(trace, response);
                 
-                return objectMapper.writeValueAsString(response);
             } catch (Exception e) {
-                return "{\"jsonrpc\":\"2.0\",\"id\":\"0\",\"error\":{\"code\":-32603,\"message\":\"Internal error\"}}";
+                logger.error("Error processing message ({} chars)", message.length(), e);
+                
+                // Send error response
+                writeLine(protocolHandler.errorResponseFor(message, -32603, "Internal error: " + e.getMessage()));
             }
         }
+        
+        private void writeLine(String line) {
+            responseWriter.write(line);
+        }
     }
 }
@@ -0,0 +1,25 @@
+package com.korshak.mcpserver;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Runs the stdin server over a file of recorded requests instead of a client,
+ * for the class-data-sharing training run of the {@code cds} build profile.
+ * The server exits once the file is consumed, as it does when a client closes
+ * stdin, and the JVM then writes the archive.
+ */
+public class McpStdinTrainingRun {
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: McpStdinTrainingRun <requests.jsonl> [server arguments]");
+            System.exit(1);
+        }
+        System.setIn(new BufferedInputStream(Files.newInputStream(Paths.get(args[0]))));
+        McpStdinServerApplication.main(Arrays.copyOfRange(args, 1, args.length));
+    }
+}
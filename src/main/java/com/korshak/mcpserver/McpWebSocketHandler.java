@@ -1,50 +1,267 @@
 package com.korshak.mcpserver;
 
+import com.korshak.mcpserver.handler.McpException;
 import com.korshak.mcpserver.handler.McpProtocolHandler;
+import com.korshak.mcpserver.handler.RequestTrace;
+import com.korshak.mcpserver.handler.SlowRequestLog;
+import com.korshak.mcpserver.service.MetricsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Component
 public class McpWebSocketHandler extends TextWebSocketHandler {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(McpWebSocketHandler.class);
-    
+
+    private static final String TRANSPORT = "websocket";
+    // Messages can be megabytes (write_file content, read_file results); only their start is traced
+    private static final int MAX_TRACED_CHARS = 200;
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
     @Autowired
     private McpProtocolHandler protocolHandler;
-    
+
+    @Autowired
+    private MetricsService metricsService;
+
+    @Autowired
+    private SlowRequestLog slowRequestLog;
+
+    @Value("${mcp.websocket.async.enabled:true}")
+    private boolean asyncEnabled;
+
+    @Value("${mcp.websocket.async.threads:8}")
+    private int asyncThreads;
+
+    // 1 keeps responses in request order; higher values let a session's responses arrive out of order
+    @Value("${mcp.websocket.async.max-concurrency-per-session:1}")
+    private int maxConcurrencyPerSession;
+
+    @Value("${mcp.websocket.async.max-queued-per-session:100}")
+    private int maxQueuedPerSession;
+
+    @Value("${mcp.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${mcp.websocket.send-buffer-size-limit:1048576}")
+    private int sendBufferSizeLimit;
+
+    private final Map<String, SessionDispatcher> sessions = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        if (asyncEnabled) {
+            AtomicInteger threadCount = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(Math.max(1, asyncThreads), runnable -> {
+                Thread thread = new Thread(runnable, "mcp-ws-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
-        logger.info("WebSocket connection established: {}", session.getId());
+        // Tomcat negotiates permessage-deflate itself when the client offers it
+        String compression = session.getExtensions().stream()
+            .map(WebSocketExtension::getName)
+            .filter(PERMESSAGE_DEFLATE::equals)
+            .findFirst().orElse("none");
+        metricsService.recordWebSocketSession(compression);
+        logger.info("WebSocket connection established: {} (compression: {})", session.getId(), compression);
+        WebSocketSession concurrentSession = new ConcurrentWebSocketSessionDecorator(
+            session, sendTimeLimitMs, sendBufferSizeLimit);
+        sessions.put(session.getId(), new SessionDispatcher(concurrentSession));
     }
-    
+
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-        logger.debug("Received message: {}", message.getPayload());
-        
-        try {
-            String response = protocolHandler.handleMessage(message.getPayload());
-            session.sendMessage(new TextMessage(response));
-            logger.debug("Sent response: {}", response);
-        } catch (Exception e) {
-            logger.error("Error handling message", e);
-            String errorResponse = "{\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32603,\"message\":\"Internal error\"}}";
-            session.sendMessage(new TextMessage(errorResponse));
+        if (logger.isTraceEnabled()) {
+            logger.trace("Received message: {}", abbreviate(message.getPayload()));
+        }
+
+        SessionDispatcher dispatcher = sessions.get(session.getId());
+        if (dispatcher == null) {
+            // Connection is closing; nothing left to answer to
+            return;
+        }
+
+        // Cancellations must not wait behind the request they are meant to stop
+        if (executor == null || protocolHandler.isCancellationNotification(message.getPayload())) {
+            process(dispatcher.session, message.getPayload());
+        } else {
+            dispatcher.submit(message.getPayload());
         }
     }
-    
+
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        SessionDispatcher dispatcher = sessions.remove(session.getId());
+        if (dispatcher != null) {
+            dispatcher.close();
+        }
+        protocolHandler.sessionClosed(session.getId());
         logger.info("WebSocket connection closed: {} with status: {}", session.getId(), status);
     }
-    
+
     @Override
     public void handleTransportError(WebSocketSession session, Throwable exception) {
         logger.error("WebSocket transport error for session: {}", session.getId(), exception);
     }
+
+    private void process(WebSocketSession session, String payload) {
+        long start = System.nanoTime();
+        RequestTrace trace = slowRequestLog.start(TRANSPORT, payload);
+        String response;
+        try {
+            response = protocolHandler.handleMessage(payload, session.getId(),
+                metricsService.countingSink(TRANSPORT, notification -> send(session, notification)), trace);
+        } catch (Exception e) {
+            logger.error("Error handling message", e);
+            response = internalError(payload);
+        }
+        metricsService.recordTransportRequest(TRANSPORT, payload, response, System.nanoTime() - start);
+
+        // Notifications don't require responses
+        if (response != null) {
+            send(session, response);
+            if (logger.isTraceEnabled()) {
+                logger.trace("Sent response: {}", abbreviate(response));
+            }
+        }
+        trace.endPhase(RequestTrace.WRITE);
+        slowRequestLog.finish(trace, response);
+    }
+
+    private String internalError(String payload) {
+        return protocolHandler.errorResponseFor(payload, -32603, "Internal error");
+    }
+
+    private static String abbreviate(String payload) {
+        return payload.length() <= MAX_TRACED_CHARS ? payload
+            : payload.substring(0, MAX_TRACED_CHARS) + "... (" + payload.length() + " chars)";
+    }
+
+    private void send(WebSocketSession session, String payload) {
+        if (!session.isOpen()) {
+            return;
+        }
+        try {
+            session.sendMessage(new TextMessage(payload));
+        } catch (IOException | RuntimeException e) {
+            // The decorator closes sessions that exceed the send time or buffer limits
+            logger.warn("Failed to send message to session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Feeds one session's messages to the shared executor, never running more than
+     * {@code maxConcurrencyPerSession} of them at once so a single busy client
+     * cannot occupy the whole pool. Queued messages are resubmitted one at a time,
+     * which puts them behind work from other sessions that is already waiting.
+     */
+    private final class SessionDispatcher {
+        private final WebSocketSession session;
+        private final Queue<String> pending = new ArrayDeque<>();
+        private int running;
+        private boolean closed;
+
+        SessionDispatcher(WebSocketSession session) {
+            this.session = session;
+        }
+
+        void submit(String payload) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                // Registered before it can run; either way it can be cancelled before it starts
+                if (running >= Math.max(1, maxConcurrencyPerSession)) {
+                    if (pending.size() >= maxQueuedPerSession) {
+                        send(session, protocolHandler.errorResponseFor(payload, McpException.SERVER_BUSY,
+                            "Server busy: too many queued requests for this session"));
+                    } else {
+                        protocolHandler.requestQueued(session.getId(), payload);
+                        pending.add(payload);
+                    }
+                    return;
+                }
+                running++;
+            }
+            protocolHandler.requestQueued(session.getId(), payload);
+            dispatch(payload);
+        }
+
+        /**
+         * Drops the messages still waiting; the client that sent them is gone.
+         */
+        synchronized void close() {
+            closed = true;
+            pending.clear();
+        }
+
+        private void dispatch(String payload) {
+            // A loop rather than recursion: a shut-down executor rejects every queued message
+            for (String next = payload; next != null; next = next()) {
+                String current = next;
+                try {
+                    executor.execute(() -> run(current));
+                    return;
+                } catch (RejectedExecutionException e) {
+                    logger.warn("Executor rejected message for session {}", session.getId());
+                    protocolHandler.requestRejected(session.getId(), current);
+                    send(session, internalError(current));
+                }
+            }
+        }
+
+        private void run(String payload) {
+            try {
+                process(session, payload);
+            } finally {
+                String next = next();
+                if (next != null) {
+                    dispatch(next);
+                }
+            }
+        }
+
+        // The next queued message, or null after giving up this message's slot
+        private synchronized String next() {
+            String next = closed ? null : pending.poll();
+            if (next == null) {
+                running--;
+            }
+            return next;
+        }
+    }
 }
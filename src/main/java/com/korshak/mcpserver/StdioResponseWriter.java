@@ -0,0 +1,170 @@
+package com.korshak.mcpserver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes newline-delimited JSON-RPC frames for the stdin transport.
+ *
+ * <p>Each frame is encoded under a lock straight into one reusable UTF-8 buffer,
+ * so the bytes of two frames can never interleave even when a large frame needs
+ * several channel writes. Flushes are combined: a writer that sees other frames
+ * waiting for the lock leaves the buffer for them, and only the last one flushes,
+ * so a burst of responses and notifications goes out in as few system calls as
+ * possible while a lone response is still written immediately.
+ *
+ * <p>Frames are written by whichever request thread holds the lock, and those
+ * threads are interrupted when a request is cancelled or times out, so stdout
+ * must be written through a channel that ignores interrupts (see {@link #forStream}).
+ */
+class StdioResponseWriter implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(StdioResponseWriter.class);
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private char[] chars = new char[8 * 1024];
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicInteger waitingFrames = new AtomicInteger();
+    private volatile boolean failed;
+
+    StdioResponseWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    StdioResponseWriter(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    static StdioResponseWriter forStdout() {
+        return forStream(new FileOutputStream(FileDescriptor.out));
+    }
+
+    /**
+     * A writer to {@code out}. Not through {@code Channels.newChannel}: for a
+     * FileOutputStream that is the stream's FileChannel, which an interrupt of
+     * the writing thread closes for good.
+     */
+    static StdioResponseWriter forStream(OutputStream out) {
+        return new StdioResponseWriter(new StreamChannel(out));
+    }
+
+    /**
+     * Write one frame followed by a newline. Returns once the frame has been
+     * handed to the channel or to a writer that will flush it.
+     */
+    void write(String frame) {
+        if (failed) {
+            return;
+        }
+        waitingFrames.incrementAndGet();
+        lock.lock();
+        try {
+            if (!failed) {
+                encodeFrame(frame);
+            }
+            if (waitingFrames.decrementAndGet() == 0 && !failed) {
+                flush();
+            }
+        } catch (IOException e) {
+            // The client went away; drop further output instead of failing every request
+            failed = true;
+            logger.error("Error writing to stdout", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (!failed) {
+                flush();
+            }
+        } catch (IOException e) {
+            logger.error("Error flushing stdout", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void encodeFrame(String frame) throws IOException {
+        // Copy into reusable array so the encoder can take its array-to-array fast path
+        int length = frame.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        frame.getChars(0, length, chars, 0);
+        CharBuffer source = CharBuffer.wrap(chars, 0, length);
+
+        encoder.reset();
+        while (encoder.encode(source, buffer, true).isOverflow()) {
+            flush();
+        }
+        while (encoder.flush(buffer).isOverflow()) {
+            flush();
+        }
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put((byte) '\n');
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Writes the heap buffer's array straight to the stream; blocking stream writes ignore interrupts
+    private static final class StreamChannel implements WritableByteChannel {
+        private final OutputStream out;
+        private boolean open = true;
+
+        StreamChannel(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            int length = source.remaining();
+            out.write(source.array(), source.arrayOffset() + source.position(), length);
+            source.position(source.limit());
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() throws IOException {
+            open = false;
+            out.close();
+        }
+    }
+}
@@ -1,18 +1,37 @@
 package com.korshak.mcpserver.controller;
 
 import com.korshak.mcpserver.model.FileMetadata;
+import com.korshak.mcpserver.model.IngestionJob;
+import com.korshak.mcpserver.service.ArchiveImportService;
+import com.korshak.mcpserver.service.IngestionService;
 import com.korshak.mcpserver.service.KnowledgeStoreService;
+import com.korshak.mcpserver.service.ProgressListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 
@@ -22,9 +41,21 @@ public class KnowledgeStoreController {
     
     private static final Logger logger = LoggerFactory.getLogger(KnowledgeStoreController.class);
     
+    // Request attributes through which Tomcat sends a file region with sendfile(2)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    
     @Autowired
     private KnowledgeStoreService knowledgeStoreService;
     
+    @Autowired
+    private IngestionService ingestionService;
+    
+    @Autowired
+    private ArchiveImportService archiveImportService;
+    
     @GetMapping("/files")
     public ResponseEntity<List<String>> listFiles() {
         List<String> files = knowledgeStoreService.listFiles();
@@ -37,6 +68,67 @@ public class KnowledgeStoreController {
         return ResponseEntity.ok(content);
     }
     
+    /**
+     * The file's bytes as stored, with a strong ETag from its content hash,
+     * {@code If-None-Match} answered with 304 and single byte ranges with 206.
+     * The name may span several segments, such as files imported from an archive.
+     */
+    @GetMapping("/raw/{*path}")
+    public void readRawFile(@PathVariable String path, HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        String filename = storeName(path);
+        Path file;
+        try {
+            file = knowledgeStoreService.storedFile(filename);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+            return;
+        }
+        if (file == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), "File not found: " + filename);
+            return;
+        }
+        MediaType type = MediaTypeFactory.getMediaType(filename).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        serveFile(file, "\"" + knowledgeStoreService.contentHash(file) + "\"", type, request, response);
+    }
+    
+    /**
+     * The file's extracted text as UTF-8, served like {@link #readRawFile}; ranges
+     * are byte ranges of the UTF-8 text. Extraction happens on the first request.
+     */
+    @GetMapping("/text/{*path}")
+    public void readExtractedText(@PathVariable String path, HttpServletRequest request,
+                                  HttpServletResponse response) throws IOException {
+        String filename = storeName(path);
+        String etag;
+        Path text;
+        try {
+            Path source = knowledgeStoreService.storedFile(filename);
+            if (source == null) {
+                response.sendError(HttpStatus.NOT_FOUND.value(), "File not found: " + filename);
+                return;
+            }
+            etag = "\"" + knowledgeStoreService.contentHash(source) + "-text\"";
+            text = knowledgeStoreService.extractedTextFile(filename, ProgressListener.NONE);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+            return;
+        } catch (NoSuchFileException e) {
+            // Deleted while we were reading it
+            response.sendError(HttpStatus.NOT_FOUND.value(), "File not found: " + filename);
+            return;
+        } catch (IOException e) {
+            logger.error("Error extracting text of " + filename, e);
+            response.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Error reading file: " + e.getMessage());
+            return;
+        }
+        if (text == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), "File not found: " + filename);
+            return;
+        }
+        serveFile(text, etag, new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8), request, response);
+    }
+    
     @GetMapping("/files/{filename}/info")
     public ResponseEntity<Map<String, Object>> getFileInfo(@PathVariable String filename) {
         Map<String, Object> info = knowledgeStoreService.getFileInfo(filename);
@@ -57,32 +149,77 @@ public class KnowledgeStoreController {
     
     @PostMapping("/upload")
     public ResponseEntity<String> uploadFile(@RequestParam("file") MultipartFile file) {
-        try {
-            if (file.isEmpty()) {
-                return ResponseEntity.badRequest().body("File is empty");
-            }
-            
-            String filename = file.getOriginalFilename();
-            Path filePath = Paths.get("./knowledgeStore", filename);
-            
-            // Create directories if they don't exist
-            Path parentDir = filePath.getParent();
-            if (parentDir != null && !Files.exists(parentDir)) {
-                Files.createDirectories(parentDir);
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("File is empty");
+        }
+        
+        try (InputStream content = file.getInputStream()) {
+            String result = knowledgeStoreService.storeUpload(file.getOriginalFilename(), content);
+            if (result.startsWith("Error")) {
+                return ResponseEntity.internalServerError().body(result);
             }
-            
-            // Save the file
-            file.transferTo(filePath.toFile());
-            
-            logger.info("File uploaded successfully: {}", filename);
-            return ResponseEntity.ok("File uploaded successfully: " + filename);
-            
+            return ResponseEntity.ok(result);
         } catch (IOException e) {
             logger.error("Error uploading file", e);
             return ResponseEntity.internalServerError().body("Error uploading file: " + e.getMessage());
         }
     }
     
+    /**
+     * Streaming upload: the request body is copied to the store as it arrives,
+     * without multipart buffering, and extraction and indexing are queued.
+     * Answers 202 with the stored file's size, hash and MIME type and the id of
+     * the ingestion job. The name may span several segments, like {@link #readRawFile}.
+     */
+    @PutMapping("/raw/{*path}")
+    public ResponseEntity<Map<String, Object>> putFile(@PathVariable String path, HttpServletRequest request) {
+        String filename = storeName(path);
+        try (ReadableByteChannel content = Channels.newChannel(request.getInputStream())) {
+            Map<String, Object> stored = knowledgeStoreService.storeStream(filename, content);
+            logger.info("File stored: {} ({} bytes), ingestion job {}", filename, stored.get("size"), stored.get("jobId"));
+            return ResponseEntity.accepted()
+                .location(URI.create("/api/knowledge/ingestion/" + stored.get("jobId")))
+                .body(stored);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            logger.error("Error storing file " + filename, e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "Error storing file: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Bulk import: the request body is a zip, tar or tar.gz archive, named by
+     * {@code archive}, whose files are stored under {@code targetDir} as the
+     * body is read. Answers 202 once they are stored; their ingestion is queued.
+     */
+    @PostMapping("/archives")
+    public ResponseEntity<Object> importArchive(@RequestParam String archive,
+                                                @RequestParam(required = false) String targetDir,
+                                                HttpServletRequest request) {
+        try (InputStream content = request.getInputStream()) {
+            ArchiveImportService.Result result =
+                archiveImportService.importStream(archive, content, targetDir, ProgressListener.NONE);
+            return ResponseEntity.accepted().body(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            logger.error("Error importing archive " + archive, e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "Error importing archive: " + e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/ingestion")
+    public ResponseEntity<List<IngestionJob>> getIngestionJobs() {
+        return ResponseEntity.ok(ingestionService.getJobs());
+    }
+    
+    @GetMapping("/ingestion/{jobId}")
+    public ResponseEntity<IngestionJob> getIngestionJob(@PathVariable String jobId) {
+        IngestionJob job = ingestionService.getJob(jobId);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+    
     @GetMapping("/health")
     public ResponseEntity<Map<String, String>> health() {
         return ResponseEntity.ok(Map.of(
@@ -144,6 +281,76 @@ public class KnowledgeStoreController {
         return ResponseEntity.ok(result);
     }
     
+    // A {*path} capture starts with the separator
+    private static String storeName(String path) {
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+    
+    // Conditional and range handling shared by the raw and text endpoints. Only a single
+    // range is honoured; a request for several gets the whole file, as RFC 9110 allows.
+    private void serveFile(Path file, String etag, MediaType type, HttpServletRequest request,
+                           HttpServletResponse response) throws IOException {
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return;
+        }
+        long length = Files.size(file);
+        long start = 0;
+        long end = length - 1;
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(type.toString());
+        
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(range);
+            } catch (IllegalArgumentException e) {
+                // A malformed Range header is ignored
+                ranges = List.of();
+            }
+            if (ranges.size() == 1) {
+                try {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                } catch (IllegalArgumentException e) {
+                    start = length;
+                }
+                if (start >= length) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+        
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // Tomcat copies the region from the page cache to the socket once the handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long sent = 0;
+            while (sent < count) {
+                long transferred = channel.transferTo(start + sent, count - sent, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                sent += transferred;
+            }
+        }
+    }
+    
     // Request DTO for metadata updates
     public static class UpdateMetadataRequest {
         private String description;
@@ -0,0 +1,347 @@
+package com.korshak.mcpserver.controller;
+
+import com.korshak.mcpserver.handler.McpProtocolHandler;
+import com.korshak.mcpserver.handler.RequestTrace;
+import com.korshak.mcpserver.handler.SlowRequestLog;
+import com.korshak.mcpserver.service.MetricsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Streamable HTTP transport for MCP. Clients POST JSON-RPC messages to
+ * {@code /mcp/stream}; a client that accepts {@code text/event-stream} gets the
+ * response (preceded by any notifications, such as streamed result chunks) as an
+ * SSE stream, otherwise a plain JSON body. A session id is issued on
+ * {@code initialize} and a GET on the same path opens a standalone SSE stream
+ * for notifications raised by plain JSON requests of that session. Notifications
+ * sent by the client are answered at once with 202. Sessions idle for longer
+ * than {@code mcp.http.session-idle-timeout-ms} are closed as by a DELETE.
+ */
+@RestController
+@RequestMapping("/mcp/stream")
+public class McpStreamableHttpController {
+
+    private static final Logger logger = LoggerFactory.getLogger(McpStreamableHttpController.class);
+
+    public static final String SESSION_HEADER = "Mcp-Session-Id";
+
+    private static final String TRANSPORT = "http";
+
+    private static final long MAX_SWEEP_INTERVAL_MS = 60_000;
+
+    @Autowired
+    private McpProtocolHandler protocolHandler;
+
+    @Autowired
+    private MetricsService metricsService;
+
+    @Autowired
+    private SlowRequestLog slowRequestLog;
+
+    @Value("${mcp.http.threads:8}")
+    private int threads;
+
+    @Value("${mcp.http.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs;
+
+    @Value("${mcp.http.session-idle-timeout-ms:3600000}")
+    private long sessionIdleTimeoutMs;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, StreamSession> sessions = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "mcp-http-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mcp-http-session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, Math.min(sessionIdleTimeoutMs, MAX_SWEEP_INTERVAL_MS));
+        sweeper.scheduleWithFixedDelay(this::closeIdleSessions, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> handleMessage(
+            @RequestHeader(value = SESSION_HEADER, required = false) String sessionId,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestBody String message) {
+
+        StreamSession session;
+        if (sessionId != null) {
+            session = sessions.get(sessionId);
+            if (session == null) {
+                return ResponseEntity.notFound().build();
+            }
+            session.touch();
+        } else if (isInitialize(message)) {
+            session = createSession();
+        } else {
+            session = null;
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        if (session != null) {
+            headers.set(SESSION_HEADER, session.id);
+        }
+
+        // Notifications, cancellations above all, are handled at once below rather than queued behind tool calls
+        if (accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE)
+                && protocolHandler.hasRequestId(message)) {
+            SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+            // Sessionless requests get a scope of their own so a disconnect cancels only them; the
+            // flip side is that a notifications/cancelled POST cannot reach them, only a disconnect can
+            String scope = session != null ? session.id : UUID.randomUUID().toString();
+            AtomicBoolean answered = new AtomicBoolean();
+            // A send to a disconnected client fails inside the tool's notifications without stopping it
+            Runnable abandon = () -> {
+                if (!answered.get()) {
+                    protocolHandler.requestAbandoned(scope, message);
+                }
+            };
+            emitter.onCompletion(abandon);
+            emitter.onTimeout(abandon);
+            emitter.onError(error -> abandon.run());
+            protocolHandler.requestQueued(scope, message);
+            if (session != null) {
+                session.requestStarted();
+            }
+            executor.execute(() -> {
+                try {
+                    respondWithEvents(emitter, scope, message, answered);
+                } finally {
+                    if (session != null) {
+                        session.requestFinished();
+                    }
+                }
+            });
+            return ResponseEntity.ok().headers(headers).body(emitter);
+        }
+
+        Consumer<String> notificationSink = session != null && session.stream != null ? session::push : null;
+        long start = System.nanoTime();
+        RequestTrace trace = slowRequestLog.start(TRANSPORT, message);
+        String response;
+        if (session != null) {
+            session.requestStarted();
+        }
+        try {
+            response = protocolHandler.handleMessage(message, session != null ? session.id : null,
+                metricsService.countingSink(TRANSPORT, notificationSink), trace);
+        } finally {
+            if (session != null) {
+                session.requestFinished();
+            }
+        }
+        metricsService.recordTransportRequest(TRANSPORT, message, response, System.nanoTime() - start);
+        if (response == null) {
+            slowRequestLog.finish(trace, null);
+            // Notifications and client responses are acknowledged without a body
+            return ResponseEntity.accepted().headers(headers).build();
+        }
+        // Sent through an emitter so both answer styles share one declared return type
+        ResponseBodyEmitter body = new ResponseBodyEmitter();
+        try {
+            body.send(response, MediaType.APPLICATION_JSON);
+            body.complete();
+        } catch (IOException e) {
+            body.completeWithError(e);
+        }
+        trace.endPhase(RequestTrace.WRITE);
+        slowRequestLog.finish(trace, response);
+        return ResponseEntity.ok().headers(headers).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> openStream(
+            @RequestHeader(value = SESSION_HEADER, required = false) String sessionId) {
+        if (sessionId == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamSession session = sessions.get(sessionId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        emitter.onCompletion(() -> session.detach(emitter));
+        emitter.onTimeout(() -> session.detach(emitter));
+        emitter.onError(error -> session.detach(emitter));
+        session.attach(emitter);
+        session.touch();
+
+        return ResponseEntity.ok().header(SESSION_HEADER, session.id).body(emitter);
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> closeSession(
+            @RequestHeader(value = SESSION_HEADER, required = false) String sessionId) {
+        StreamSession session = sessionId != null ? sessions.get(sessionId) : null;
+        if (session == null || !close(session)) {
+            return ResponseEntity.notFound().build();
+        }
+        logger.info("MCP HTTP session closed: {}", sessionId);
+        return ResponseEntity.noContent().build();
+    }
+
+    void closeIdleSessions() {
+        long now = System.currentTimeMillis();
+        for (StreamSession session : sessions.values()) {
+            if (session.isIdle(now, sessionIdleTimeoutMs) && close(session)) {
+                logger.info("MCP HTTP session expired: {}", session.id);
+            }
+        }
+    }
+
+    // Ends the notification stream and the session's requests; false if already closed
+    private boolean close(StreamSession session) {
+        if (!sessions.remove(session.id, session)) {
+            return false;
+        }
+        session.attach(null);
+        protocolHandler.sessionClosed(session.id);
+        return true;
+    }
+
+    private void respondWithEvents(SseEmitter emitter, String sessionId, String message, AtomicBoolean answered) {
+        try {
+            long start = System.nanoTime();
+            RequestTrace trace = slowRequestLog.start(TRANSPORT, message);
+            String response;
+            try {
+                response = protocolHandler.handleMessage(message, sessionId,
+                    metricsService.countingSink(TRANSPORT, payload -> sendEvent(emitter, payload)), trace);
+            } finally {
+                // Completing the emitter below must not cancel a later request reusing the id
+                answered.set(true);
+            }
+            metricsService.recordTransportRequest(TRANSPORT, message, response, System.nanoTime() - start);
+            if (response != null) {
+                sendEvent(emitter, response);
+            }
+            emitter.complete();
+            trace.endPhase(RequestTrace.WRITE);
+            slowRequestLog.finish(trace, response);
+        } catch (Exception e) {
+            logger.error("Error streaming MCP response", e);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static void sendEvent(SseEmitter emitter, String payload) {
+        try {
+            emitter.send(SseEmitter.event().name("message").data(payload));
+        } catch (IOException e) {
+            throw new IllegalStateException("Client disconnected", e);
+        }
+    }
+
+    private boolean isInitialize(String message) {
+        try {
+            return "initialize".equals(objectMapper.readTree(message).path("method").asText());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private StreamSession createSession() {
+        StreamSession session = new StreamSession(UUID.randomUUID().toString());
+        sessions.put(session.id, session);
+        logger.info("MCP HTTP session created: {}", session.id);
+        return session;
+    }
+
+    private static class StreamSession {
+        private final String id;
+        private volatile SseEmitter stream;
+        private volatile long lastSeen = System.currentTimeMillis();
+        private final AtomicInteger activeRequests = new AtomicInteger();
+
+        StreamSession(String id) {
+            this.id = id;
+        }
+
+        void touch() {
+            lastSeen = System.currentTimeMillis();
+        }
+
+        void requestStarted() {
+            activeRequests.incrementAndGet();
+        }
+
+        void requestFinished() {
+            touch();
+            activeRequests.decrementAndGet();
+        }
+
+        // A session running a long tool call is not idle, however long ago the call arrived
+        boolean isIdle(long now, long idleTimeoutMs) {
+            return activeRequests.get() == 0 && now - lastSeen > idleTimeoutMs;
+        }
+
+        synchronized void attach(SseEmitter emitter) {
+            SseEmitter previous = stream;
+            stream = emitter;
+            if (previous != null) {
+                previous.complete();
+            }
+        }
+
+        synchronized void detach(SseEmitter emitter) {
+            if (stream == emitter) {
+                stream = null;
+            }
+        }
+
+        void push(String payload) {
+            SseEmitter current = stream;
+            if (current == null) {
+                return;
+            }
+            try {
+                synchronized (current) {
+                    current.send(SseEmitter.event().name("message").data(payload));
+                }
+            } catch (IOException e) {
+                detach(current);
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.korshak.mcpserver.handler;
+
+/**
+ * Request failure that maps to a specific JSON-RPC error code instead of the
+ * generic internal error.
+ */
+public class McpException extends RuntimeException {
+
+    public static final int INVALID_PARAMS = -32602;
+    public static final int METHOD_NOT_FOUND = -32601;
+    public static final int SERVER_BUSY = -32000;
+
+    private final int code;
+
+    public McpException(int code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+}
@@ -1,8 +1,9 @@
 package com.korshak.mcpserver.handler;
 
-import com.korshak.mcpserver.model.FileMetadata;
-import com.korshak.mcpserver.service.KnowledgeStoreService;
+import com.korshak.mcpserver.service.WarmupService;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
@@ -10,7 +11,13 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 @Component
 public class McpProtocolHandler {
@@ -18,33 +25,84 @@ public class McpProtocolHandler {
     private static final Logger logger = LoggerFactory.getLogger(McpProtocolHandler.class);
     
     @Autowired
-    private KnowledgeStoreService knowledgeStoreService;
+    private ToolRegistry toolRegistry;
+    
+    @Autowired
+    private ToolExecutor toolExecutor;
+    
+    @Autowired
+    private WarmupService warmupService;
 
+    private static final String CANCELLED_NOTIFICATION = "notifications/cancelled";
+    
     private final ObjectMapper objectMapper = new ObjectMapper();
     
+    // Request ids are only unique within a session, so both maps are keyed by session and id
+    private final Map<RequestKey, McpRequestContext> inFlightRequests = new ConcurrentHashMap<>();
+    
+    // Requests a transport has queued but not started; true once a cancellation for them arrives
+    private final Map<RequestKey, Boolean> queuedRequests = new ConcurrentHashMap<>();
+    
+    // Static results are serialized once; only the request id is spliced in per response
+    private RawJson initializeResult;
+    private RawJson promptsListResult;
+    private RawJson resourcesListResult;
+    
+    @PostConstruct
+    public void init() throws JsonProcessingException {
+        initializeResult = new RawJson(objectMapper.writeValueAsString(handleInitialize()));
+        promptsListResult = new RawJson(objectMapper.writeValueAsString(handlePromptsList()));
+        resourcesListResult = new RawJson(objectMapper.writeValueAsString(handleResourcesList()));
+    }
+    
     public String handleMessage(String message) {
+        return handleMessage(message, null);
+    }
+    
+    /**
+     * Process a JSON-RPC message, delivering any notifications produced while the
+     * request runs (such as streamed result chunks) to {@code notificationSink}.
+     * Transports that cannot push messages ahead of the response pass {@code null}.
+     */
+    public String handleMessage(String message, Consumer<String> notificationSink) {
+        return handleMessage(message, notificationSink, null);
+    }
+    
+    /**
+     * As {@link #handleMessage(String, Consumer)}, recording the parse, dispatch,
+     * execute and serialize phases in {@code trace}. The transport closes the
+     * write phase and hands the trace to {@link SlowRequestLog}.
+     */
+    public String handleMessage(String message, Consumer<String> notificationSink, RequestTrace trace) {
+        return handleMessage(message, null, notificationSink, trace);
+    }
+    
+    /**
+     * As {@link #handleMessage(String, Consumer, RequestTrace)} for a message from
+     * session {@code sessionId}; a cancellation only reaches requests of the session
+     * it came from. Single-client transports pass {@code null}.
+     */
+    public String handleMessage(String message, String sessionId, Consumer<String> notificationSink,
+                                RequestTrace trace) {
         Object requestId = "1"; // Default fallback ID
+        RequestKey key = null;
+        boolean hasId = false;
+        String method = null;
+        McpRequestContext context = null;
         
         try {
             JsonNode requestNode = objectMapper.readTree(message);
             
             // Extract ID - it can be string, number, but NEVER null for responses
-            if (requestNode.has("id") && !requestNode.get("id").isNull()) {
-                JsonNode idNode = requestNode.get("id");
-                if (idNode.isTextual()) {
-                    requestId = idNode.asText();
-                } else if (idNode.isNumber()) {
-                    requestId = idNode.asLong();
-                } else {
-                    requestId = "1"; // Fallback to string
-                }
-            } else {
-                // If no ID provided, use a default string ID
-                requestId = "1";
-            }
+            requestId = toRequestId(requestNode.get("id"));
+            key = new RequestKey(sessionId, requestId);
+            hasId = requestNode.hasNonNull("id");
             
             // Extract method
-            String method = requestNode.has("method") ? requestNode.get("method").asText() : null;
+            method = requestNode.has("method") ? requestNode.get("method").asText() : null;
+            if (trace != null) {
+                trace.setRequest(requestId, method);
+            }
             if (method == null) {
                 return createErrorResponse(requestId, -32600, "Invalid Request: missing method");
             }
@@ -55,6 +113,11 @@ public class McpProtocolHandler {
                 return null; // No response for notifications
             }
             
+            if (method.equals(CANCELLED_NOTIFICATION)) {
+                handleCancelled(sessionId, requestNode.get("params"));
+                return null;
+            }
+            
             // Extract params
             JsonNode paramsNode = requestNode.get("params");
             Map<String, Object> params = new HashMap<>();
@@ -62,36 +125,245 @@ public class McpProtocolHandler {
                 params = objectMapper.convertValue(paramsNode, Map.class);
             }
             
+            context = new McpRequestContext(requestId, notificationSink,
+                isChunkStreamingRequested(paramsNode), getProgressToken(paramsNode), objectMapper, trace);
+            context.endPhase(RequestTrace.PARSE);
+            // Registered before leaving the queue so a concurrent cancellation finds it in one of the two
+            inFlightRequests.put(key, context);
+            if (Boolean.TRUE.equals(queuedRequests.remove(key))) {
+                logger.info("Skipping request {} cancelled before it started", requestId);
+                return null;
+            }
+            
             // Process request
-            Object result = processRequest(method, params);
+            Object result = processRequest(method, params, context);
+            
+            // Cancelled requests get no response
+            if (context.isCancelled()) {
+                return null;
+            }
             
             // Create success response - NEVER with null ID
-            return createSuccessResponse(requestId, result);
+            context.endPhase(RequestTrace.EXECUTE);
+            String response = createSuccessResponse(requestId, result);
+            context.endPhase(RequestTrace.SERIALIZE);
+            return response;
             
+        } catch (CancellationException e) {
+            logger.info("Request {} cancelled", requestId);
+            return null;
+        } catch (McpException e) {
+            if (trace != null) {
+                trace.setErrorCode(e.getCode());
+            }
+            return createErrorResponse(requestId, e.getCode(), e.getMessage());
         } catch (Exception e) {
-            logger.error("Error processing MCP message: " + message, e);
+            if (context != null && context.isCancelled()) {
+                return null;
+            }
+            // The raw message can be megabytes (write_file content); log its size only
+            logger.error("Error processing MCP request {} ({}, {} chars)", requestId, method, message.length(), e);
+            if (trace != null) {
+                trace.setErrorCode(-32603);
+            }
             return createErrorResponse(requestId, -32603, "Internal error: " + e.getMessage());
+        } finally {
+            if (hasId) {
+                queuedRequests.remove(key);
+            }
+            if (context != null) {
+                inFlightRequests.remove(key, context);
+                context.finish();
+            }
+        }
+    }
+    
+    /**
+     * Records that a transport has accepted {@code message} from {@code sessionId}
+     * but queued it, so a cancellation arriving before it starts still stops it.
+     * Transports that run every message immediately need not call this.
+     */
+    public void requestQueued(String sessionId, String message) {
+        Object requestId = peekRequestId(message);
+        if (requestId != null) {
+            queuedRequests.putIfAbsent(new RequestKey(sessionId, requestId), Boolean.FALSE);
+        }
+    }
+    
+    /**
+     * An error response to {@code message} for a transport that could not hand it
+     * to {@link #handleMessage}, e.g. because the session is busy. It carries the
+     * message's id, or a null id when that cannot be read.
+     */
+    public String errorResponseFor(String message, int code, String error) {
+        try {
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("jsonrpc", "2.0");
+            response.put("id", peekRequestId(message));
+            response.put("error", Map.of("code", code, "message", error));
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            logger.error("Error creating error response", e);
+            return "{\"jsonrpc\":\"2.0\",\"id\":null,\"error\":{\"code\":-32603,\"message\":\"Internal error\"}}";
+        }
+    }
+    
+    /**
+     * Withdraws a {@link #requestQueued} registration for a message the transport
+     * turned away after all, so a later cancellation cannot swallow a request
+     * reusing its id.
+     */
+    public void requestRejected(String sessionId, String message) {
+        Object requestId = peekRequestId(message);
+        if (requestId != null) {
+            queuedRequests.remove(new RequestKey(sessionId, requestId));
+        }
+    }
+    
+    /**
+     * Cancels {@code message} from {@code sessionId}, queued or running, because
+     * the transport can no longer deliver its response (the client went away).
+     */
+    public void requestAbandoned(String sessionId, String message) {
+        Object requestId = peekRequestId(message);
+        if (requestId != null) {
+            cancel(new RequestKey(sessionId, requestId), "client disconnected");
+        }
+    }
+    
+    /**
+     * Forgets the queued requests of a closed session, which will never be run,
+     * and cancels its running ones; no response can reach the client any more.
+     */
+    public void sessionClosed(String sessionId) {
+        queuedRequests.keySet().removeIf(key -> Objects.equals(key.sessionId, sessionId));
+        inFlightRequests.forEach((key, context) -> {
+            if (Objects.equals(key.sessionId, sessionId)) {
+                context.cancel();
+            }
+        });
+    }
+    
+    // Reads the top-level id without building a tree; the params (write_file content) are skipped
+    private Object peekRequestId(String message) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(message)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("id".equals(field)) {
+                    if (value == JsonToken.VALUE_STRING) {
+                        return parser.getText();
+                    }
+                    return value.isNumeric() ? (Object) parser.getLongValue() : null;
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            // Unparseable messages are answered with an error when they run
+        }
+        return null;
+    }
+    
+    /**
+     * Whether {@code message} carries an id and so expects a response; notifications
+     * do not. Unparseable messages count as notifications here.
+     */
+    public boolean hasRequestId(String message) {
+        return peekRequestId(message) != null;
+    }
+    
+    /**
+     * Cheap check transports use to run cancellations right away instead of
+     * queueing them behind the requests they are meant to stop.
+     */
+    public boolean isCancellationNotification(String message) {
+        if (!message.contains(CANCELLED_NOTIFICATION)) {
+            return false;
+        }
+        try {
+            return CANCELLED_NOTIFICATION.equals(objectMapper.readTree(message).path("method").asText());
+        } catch (JsonProcessingException e) {
+            return false;
+        }
+    }
+    
+    private void handleCancelled(String sessionId, JsonNode paramsNode) {
+        if (paramsNode == null || !paramsNode.has("requestId")) {
+            return;
+        }
+        cancel(new RequestKey(sessionId, toRequestId(paramsNode.get("requestId"))),
+            paramsNode.path("reason").asText(""));
+    }
+    
+    private void cancel(RequestKey key, String reason) {
+        Object requestId = key.requestId;
+        boolean queued = queuedRequests.replace(key, Boolean.FALSE, Boolean.TRUE);
+        // Checked after the queue: a request leaving it is already in flight
+        McpRequestContext context = inFlightRequests.get(key);
+        if (context != null) {
+            logger.info("Cancelling request {}: {}", requestId, reason);
+            context.cancel();
+        } else if (queued) {
+            logger.info("Cancelling queued request {}: {}", requestId, reason);
+        } else {
+            // Already finished, or never seen; remembering it would swallow a later request reusing the id
+            logger.debug("Ignoring cancellation for unknown request {}", requestId);
+        }
+    }
+    
+    private Object toRequestId(JsonNode idNode) {
+        if (idNode == null || idNode.isNull()) {
+            // If no ID provided, use a default string ID
+            return "1";
         }
+        if (idNode.isTextual()) {
+            return idNode.asText();
+        }
+        if (idNode.isNumber()) {
+            return idNode.asLong();
+        }
+        return "1"; // Fallback to string
+    }
+    
+    private Object getProgressToken(JsonNode paramsNode) {
+        if (paramsNode == null) {
+            return null;
+        }
+        JsonNode tokenNode = paramsNode.path("_meta").get("progressToken");
+        if (tokenNode == null || tokenNode.isNull()) {
+            return null;
+        }
+        return tokenNode.isNumber() ? (Object) tokenNode.asLong() : tokenNode.asText();
+    }
+    
+    private boolean isChunkStreamingRequested(JsonNode paramsNode) {
+        return paramsNode != null && paramsNode.path("_meta").path("streamChunks").asBoolean(false);
     }
     
-    private Object processRequest(String method, Map<String, Object> params) throws Exception {
+    private Object processRequest(String method, Map<String, Object> params,
+                                  McpRequestContext context) throws Exception {
         switch (method) {
             case "initialize":
-                return handleInitialize(params);
+                // Warm-up waits for in-flight requests, starting with this one
+                warmupService.start(() -> !inFlightRequests.isEmpty());
+                return initializeResult;
             case "tools/list":
-                return handleToolsList();
+                return new RawJson(toolRegistry.renderPage(Objects.toString(params.get("cursor"), null)));
             case "tools/call":
-                return handleToolsCall(params);
+                return handleToolsCall(params, context);
             case "prompts/list":
-                return handlePromptsList();
+                return promptsListResult;
             case "resources/list":
-                return handleResourcesList();
+                return resourcesListResult;
             default:
-                throw new RuntimeException("Method not found: " + method);
+                throw new McpException(McpException.METHOD_NOT_FOUND, "Method not found: " + method);
         }
     }
     
-    private Map<String, Object> handleInitialize(Map<String, Object> params) {
+    private Map<String, Object> handleInitialize() {
         Map<String, Object> result = new HashMap<>();
         result.put("protocolVersion", "2024-11-05");
         
@@ -130,135 +402,8 @@ public class McpProtocolHandler {
         return Map.of("resources", resources);
     }
     
-    private Map<String, Object> handleToolsList() {
-        List<Map<String, Object>> tools = new ArrayList<>();
-        
-        // Add all tool definitions with proper schema
-        tools.add(createTool("list_files", 
-            "List all files in the knowledge store with basic info", 
-            Map.of("type", "object", "properties", Map.of(), "required", List.of())));
-        
-        tools.add(createTool("list_files_with_metadata", 
-            "List all files with rich metadata including descriptions, tags, categories, and size warnings", 
-            Map.of("type", "object", "properties", Map.of(), "required", List.of())));
-        
-        tools.add(createTool("read_file", 
-            "Read the content of a specific file", 
-            Map.of("type", "object", 
-                "properties", Map.of("filename", Map.of("type", "string", "description", "Name of the file to read")),
-                "required", List.of("filename"))));
-        
-        tools.add(createTool("search_files", 
-            "Search for files containing specific text in content", 
-            Map.of("type", "object", 
-                "properties", Map.of("query", Map.of("type", "string", "description", "Search query")),
-                "required", List.of("query"))));
-        
-        tools.add(createTool("search_files_by_metadata", 
-            "Search files by metadata (description, tags, category, summary) - smarter than content search", 
-            Map.of("type", "object", 
-                "properties", Map.of("query", Map.of("type", "string", "description", "Metadata search query")),
-                "required", List.of("query"))));
-        
-        tools.add(createTool("get_files_by_category", 
-            "Get all files in a specific category (document, text, image, etc.)", 
-            Map.of("type", "object", 
-                "properties", Map.of("category", Map.of("type", "string", "description", "Category name")),
-                "required", List.of("category"))));
-        
-        tools.add(createTool("get_knowledge_store_overview", 
-            "Get overview of the knowledge store with statistics and categories", 
-            Map.of("type", "object", "properties", Map.of(), "required", List.of())));
-        
-        tools.add(createTool("get_file_info", 
-            "Get detailed metadata information about a file", 
-            Map.of("type", "object", 
-                "properties", Map.of("filename", Map.of("type", "string", "description", "Name of the file")),
-                "required", List.of("filename"))));
-        
-        tools.add(createTool("update_file_metadata", 
-            "Update metadata for a file (description, tags, category, summary)", 
-            Map.of("type", "object", 
-                "properties", Map.of(
-                    "filename", Map.of("type", "string", "description", "Name of the file"),
-                    "description", Map.of("type", "string", "description", "File description"),
-                    "tags", Map.of("type", "array", "items", Map.of("type", "string"), "description", "Tags for the file"),
-                    "category", Map.of("type", "string", "description", "File category"),
-                    "summary", Map.of("type", "string", "description", "File summary")
-                ),
-                "required", List.of("filename"))));
-        
-        tools.add(createTool("write_file", 
-            "Write content to a file", 
-            Map.of("type", "object", 
-                "properties", Map.of(
-                    "filename", Map.of("type", "string", "description", "Name of the file to write"),
-                    "content", Map.of("type", "string", "description", "Content to write to the file")
-                ),
-                "required", List.of("filename", "content"))));
-        
-        tools.add(createTool("get_all_definitions", 
-            "Extract all definitions from all files in the knowledge store and return them as a structured map", 
-            Map.of("type", "object", "properties", Map.of(), "required", List.of())));
-        
-        // Trading Strategy Tools
-        tools.add(createTool("get_trading_strategies", 
-            "Get all trading strategies from MongoDB database", 
-            Map.of("type", "object", "properties", Map.of(), "required", List.of())));
-        
-        tools.add(createTool("get_trading_strategy", 
-            "Get a specific trading strategy by name or ID", 
-            Map.of("type", "object", 
-                "properties", Map.of("strategy_name", Map.of("type", "string", "description", "Name or ID of the strategy")),
-                "required", List.of("strategy_name"))));
-        
-        tools.add(createTool("search_trading_strategies", 
-            "Search trading strategies by text query", 
-            Map.of("type", "object", 
-                "properties", Map.of("query", Map.of("type", "string", "description", "Search query")),
-                "required", List.of("query"))));
-        
-        tools.add(createTool("get_strategies_by_category", 
-            "Get trading strategies by category (scalping, swing, position, risk_management, technical, fundamental)", 
-            Map.of("type", "object", 
-                "properties", Map.of("category", Map.of("type", "string", "description", "Strategy category")),
-                "required", List.of("category"))));
-        
-        tools.add(createTool("get_strategies_by_risk", 
-            "Get trading strategies by risk level (low, medium, high)", 
-            Map.of("type", "object", 
-                "properties", Map.of("risk_level", Map.of("type", "string", "description", "Risk level")),
-                "required", List.of("risk_level"))));
-        
-        tools.add(createTool("get_strategies_by_indicator", 
-            "Get trading strategies that use a specific indicator", 
-            Map.of("type", "object", 
-                "properties", Map.of("indicator", Map.of("type", "string", "description", "Technical indicator name")),
-                "required", List.of("indicator"))));
-        
-        tools.add(createTool("get_trading_strategies_stats", 
-            "Get statistics about trading strategies in the database", 
-            Map.of("type", "object", "properties", Map.of(), "required", List.of())));
-        
-        // Add Strategy Extraction Tool
-        tools.add(createTool("extract_strategy", 
-            "Extract a trading strategy by scanning a file and generating a JSON strategy based on the schema", 
-            Map.of("type", "object", 
-                "properties", Map.of("fileName", Map.of("type", "string", "description", "Name of the file to scan for strategy information")),
-                "required", List.of("fileName"))));
-        
-        return Map.of("tools", tools);
-    }
-    
-    private Map<String, Object> createTool(String name, String description, Object inputSchema) {
-        Map<String, Object> tool = new HashMap<>();
-        tool.put("name", name);
-        tool.put("description", description);
-        tool.put("inputSchema", inputSchema);
-        return tool;
-    }
-    
-    private Map<String, Object> handleToolsCall(Map<String, Object> params) throws Exception {
+    private Map<String, Object> handleToolsCall(Map<String, Object> params,
+                                                McpRequestContext context) throws Exception {
         if (params == null) {
             throw new IllegalArgumentException("Missing params for tools/call");
         }
@@ -273,8 +418,28 @@ public class McpProtocolHandler {
         if (arguments == null) {
             arguments = new HashMap<>();
         }
+        context.setTool(toolName, arguments);
+        
+        RegisteredTool tool = toolRegistry.getTool(toolName);
+        if (tool == null) {
+            throw new McpException(McpException.INVALID_PARAMS, "Unknown tool: " + toolName);
+        }
         
-        String resultText = executeToolCall(toolName, arguments);
+        String resultText;
+        boolean isError = false;
+        try {
+            resultText = toolExecutor.execute(tool, arguments, context);
+        } catch (CancellationException | McpException e) {
+            throw e;
+        } catch (TimeoutException e) {
+            // Already logged by the executor; reported as a failed call, like any tool error
+            resultText = "Error: " + e.getMessage();
+            isError = true;
+        } catch (Exception e) {
+            logger.error("Error executing tool call: " + toolName, e);
+            resultText = "Error: " + e.getMessage();
+            isError = true;
+        }
         
         // Create proper content structure
         List<Map<String, Object>> content = new ArrayList<>();
@@ -283,158 +448,16 @@ public class McpProtocolHandler {
         textContent.put("text", resultText);
         content.add(textContent);
         
-        return Map.of("content", content);
-    }
-    
-    private String executeToolCall(String toolName, Map<String, Object> arguments) {
-        try {
-            switch (toolName) {
-                case "list_files":
-                    List<String> files = knowledgeStoreService.listFiles();
-                    return files.isEmpty() ? "No files found in knowledge store" : 
-                           "Files in knowledge store:\n" + String.join("\n", files);
-                    
-                case "list_files_with_metadata":
-                    List<FileMetadata> filesWithMetadata = knowledgeStoreService.listFilesWithMetadata();
-                    if (filesWithMetadata.isEmpty()) {
-                        return "No files found in knowledge store";
-                    } else {
-                        StringBuilder sb = new StringBuilder();
-                        sb.append("📚 Files in Knowledge Store with Metadata:\n");
-                        sb.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
-                        
-                        for (FileMetadata metadata : filesWithMetadata) {
-                            sb.append("\n📄 ").append(metadata.getFilename());
-                            
-                            if (metadata.getDescription() != null) {
-                                sb.append("\n   📝 Description: ").append(metadata.getDescription());
-                            }
-                            
-                            if (metadata.getSummary() != null) {
-                                sb.append("\n   📋 Summary: ").append(metadata.getSummary());
-                            }
-                            
-                            sb.append("\n   📂 Category: ").append(metadata.getCategory());
-                            
-                            if (metadata.getTags() != null && !metadata.getTags().isEmpty()) {
-                                sb.append("\n   🏷️  Tags: ").append(String.join(", ", metadata.getTags()));
-                            }
-                            
-                            sb.append("\n   💾 Size: ").append(formatFileSize(metadata.getSize()));
-                            
-                            if (metadata.isLargeFile()) {
-                                sb.append(" ⚠️ Large file - consider reading summary first");
-                            }
-                            
-                            sb.append("\n");
-                        }
-                        return sb.toString();
-                    }
-                    
-                case "read_file":
-                    String filename = (String) arguments.get("filename");
-                    if (filename == null) {
-                        return "Error: filename parameter is required";
-                    }
-                    return knowledgeStoreService.readFile(filename);
-                    
-                case "search_files":
-                    String query = (String) arguments.get("query");
-                    if (query == null) {
-                        return "Error: query parameter is required";
-                    }
-                    return knowledgeStoreService.searchFiles(query);
-                    
-                case "search_files_by_metadata":
-                    String metadataQuery = (String) arguments.get("query");
-                    if (metadataQuery == null) {
-                        return "Error: query parameter is required";
-                    }
-                    return knowledgeStoreService.searchFilesByMetadata(metadataQuery);
-                    
-                case "get_files_by_category":
-                    String category = (String) arguments.get("category");
-                    if (category == null) {
-                        return "Error: category parameter is required";
-                    }
-                    return knowledgeStoreService.getFilesByCategory(category);
-                    
-                case "get_knowledge_store_overview":
-                    return knowledgeStoreService.getKnowledgeStoreOverview();
-                    
-                case "get_file_info":
-                    String infoFilename = (String) arguments.get("filename");
-                    if (infoFilename == null) {
-                        return "Error: filename parameter is required";
-                    }
-                    Map<String, Object> fileInfo = knowledgeStoreService.getFileInfo(infoFilename);
-                    return objectMapper.writeValueAsString(fileInfo);
-                    
-                case "update_file_metadata":
-                    String metaFilename = (String) arguments.get("filename");
-                    if (metaFilename == null) {
-                        return "Error: filename parameter is required";
-                    }
-                    String description = (String) arguments.get("description");
-                    @SuppressWarnings("unchecked")
-                    List<String> tags = (List<String>) arguments.get("tags");
-                    String metaCategory = (String) arguments.get("category");
-                    String summary = (String) arguments.get("summary");
-                    
-                    return knowledgeStoreService.updateFileMetadata(
-                        metaFilename, description, tags, metaCategory, summary);
-                    
-                case "write_file":
-                    String writeFilename = (String) arguments.get("filename");
-                    String content = (String) arguments.get("content");
-                    if (writeFilename == null || content == null) {
-                        return "Error: filename and content parameters are required";
-                    }
-                    return knowledgeStoreService.writeFile(writeFilename, content);
-                    
-                case "get_all_definitions":
-                    Map<String, String> definitions = knowledgeStoreService.getAllDefinitions();
-                    if (definitions.isEmpty()) {
-                        return "No definitions found in the knowledge store.";
-                    } else {
-                        StringBuilder sb = new StringBuilder();
-                        sb.append("📚 All Definitions Found in Knowledge Store\n");
-                        sb.append("═══════════════════════════════════════════\n\n");
-                        
-                        // Sort definitions alphabetically
-                        definitions.entrySet().stream()
-                            .sorted(Map.Entry.comparingByKey())
-                            .forEach(entry -> {
-                                sb.append("📖 **").append(entry.getKey()).append("**\n");
-                                sb.append("   ").append(entry.getValue()).append("\n\n");
-                            });
-                        
-                        sb.append("\n📊 Total definitions found: ").append(definitions.size());
-                        return sb.toString();
-                    }
-                    
-                case "extract_strategy":
-                    String strategyFileName = (String) arguments.get("fileName");
-                    if (strategyFileName == null) {
-                        return "Error: fileName parameter is required";
-                    }
-                    return knowledgeStoreService.extractStrategy(strategyFileName);
-                    
-                default:
-                    return "Unknown tool: " + toolName;
-            }
-            
-        } catch (Exception e) {
-            logger.error("Error executing tool call: " + toolName, e);
-            return "Error: " + e.getMessage();
+        if (isError) {
+            return Map.of("content", content, "isError", true);
         }
-    }
-    
-    private String formatFileSize(long bytes) {
-        if (bytes < 1024) return bytes + " B";
-        if (bytes < 1024 * 1024) return String.format("%.1f KB", bytes / 1024.0);
-        if (bytes < 1024 * 1024 * 1024) return String.format("%.1f MB", bytes / (1024.0 * 1024));
-        return String.format("%.1f GB", bytes / (1024.0 * 1024 * 1024));
+        if (context.getChunksSent() > 0) {
+            // The text itself already went out as chunk notifications
+            return Map.of("content", content,
+                "_meta", Map.of("streamed", true, "chunks", context.getChunksSent()));
+        }
+        
+        return Map.of("content", content);
     }
     
     private String createSuccessResponse(Object id, Object result) {
@@ -449,6 +472,12 @@ public class McpProtocolHandler {
                 response.put("id", id);
             }
             
+            if (result instanceof RawJson) {
+                // Pre-rendered result: only the id needs serializing
+                return "{\"jsonrpc\":\"2.0\",\"id\":" + objectMapper.writeValueAsString(response.get("id"))
+                    + ",\"result\":" + ((RawJson) result).json + "}";
+            }
+            
             response.put("result", result);
             
             return objectMapper.writeValueAsString(response);
@@ -482,4 +511,39 @@ public class McpProtocolHandler {
             return "{\"jsonrpc\":\"2.0\",\"id\":\"0\",\"error\":{\"code\":-32603,\"message\":\"Internal error\"}}";
         }
     }
+    
+    /**
+     * A result that has already been serialized to JSON.
+     */
+    private static final class RawJson {
+        final String json;
+        
+        RawJson(String json) {
+            this.json = json;
+        }
+    }
+    
+    private static final class RequestKey {
+        private final String sessionId;
+        private final Object requestId;
+        
+        RequestKey(String sessionId, Object requestId) {
+            this.sessionId = sessionId;
+            this.requestId = requestId;
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof RequestKey)) {
+                return false;
+            }
+            RequestKey key = (RequestKey) other;
+            return Objects.equals(sessionId, key.sessionId) && requestId.equals(key.requestId);
+        }
+        
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(sessionId) + requestId.hashCode();
+        }
+    }
 }
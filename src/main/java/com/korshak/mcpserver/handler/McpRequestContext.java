@@ -0,0 +1,185 @@
+package com.korshak.mcpserver.handler;
+
+import com.korshak.mcpserver.service.ProgressListener;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * State for a single JSON-RPC request while it is being processed. Carries the
+ * transport's notification channel so handlers can push messages to the client
+ * before the final response is sent, and tracks cancellation of the request.
+ */
+public class McpRequestContext implements ProgressListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(McpRequestContext.class);
+
+    public static final String CHUNK_NOTIFICATION = "notifications/content/chunk";
+    public static final String PROGRESS_NOTIFICATION = "notifications/progress";
+
+    private static final long PROGRESS_INTERVAL_MS = 100;
+
+    private final Object requestId;
+    private final Consumer<String> notificationSink;
+    private final boolean streamChunks;
+    private final Object progressToken;
+    private final ObjectMapper objectMapper;
+    private final RequestTrace trace;
+    private int chunksSent;
+    private long lastProgressAt;
+
+    private volatile boolean cancelled;
+    private Thread worker;
+    private boolean finished;
+
+    public McpRequestContext(Object requestId, Consumer<String> notificationSink, boolean streamChunks,
+                             Object progressToken, ObjectMapper objectMapper) {
+        this(requestId, notificationSink, streamChunks, progressToken, objectMapper, null);
+    }
+
+    public McpRequestContext(Object requestId, Consumer<String> notificationSink, boolean streamChunks,
+                             Object progressToken, ObjectMapper objectMapper, RequestTrace trace) {
+        this.requestId = requestId;
+        this.notificationSink = notificationSink;
+        this.streamChunks = streamChunks && notificationSink != null;
+        this.progressToken = progressToken;
+        this.objectMapper = objectMapper;
+        this.trace = trace;
+        this.worker = Thread.currentThread();
+    }
+
+    public Object getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * True when the client asked for large results to be streamed as chunk
+     * notifications and the transport is able to deliver them.
+     */
+    public boolean isStreaming() {
+        return streamChunks;
+    }
+
+    /**
+     * Close a phase of the request's trace; a no-op for untraced requests.
+     */
+    public void endPhase(String phase) {
+        if (trace != null) {
+            trace.endPhase(phase);
+        }
+    }
+
+    public void setTool(String tool, Map<String, Object> arguments) {
+        if (trace != null) {
+            trace.setTool(tool, arguments);
+        }
+    }
+
+    @Override
+    public void onExtraction(long nanos) {
+        if (trace != null) {
+            trace.addNested(RequestTrace.EXTRACTION, nanos);
+        }
+    }
+
+    public int getChunksSent() {
+        return chunksSent;
+    }
+
+    public void sendChunk(String text) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("requestId", requestId);
+        params.put("index", chunksSent++);
+        params.put("text", text);
+        sendNotification(CHUNK_NOTIFICATION, params);
+    }
+
+    /**
+     * Sends {@code notifications/progress} when the client supplied a progress token.
+     * Intermediate updates are throttled; the final one always goes out.
+     */
+    @Override
+    public void onProgress(long completed, long total, String message) {
+        if (progressToken == null || cancelled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (completed < total && now - lastProgressAt < PROGRESS_INTERVAL_MS) {
+            return;
+        }
+        lastProgressAt = now;
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("progressToken", progressToken);
+        params.put("progress", completed);
+        params.put("total", total);
+        if (message != null) {
+            params.put("message", message);
+        }
+        sendNotification(PROGRESS_NOTIFICATION, params);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Mark the request cancelled and interrupt the thread working on it, unless
+     * the request has already completed.
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        if (!finished && worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Direct cancellation interrupts at the current thread, for tools that run
+     * on a bulkhead pool. Returns the previous thread for {@link #bindTo}.
+     */
+    public synchronized Thread bindToCurrentThread() {
+        Thread previous = worker;
+        worker = Thread.currentThread();
+        return previous;
+    }
+
+    public synchronized void bindTo(Thread thread) {
+        worker = thread;
+    }
+
+    /**
+     * Called once processing is over so a late cancellation cannot interrupt
+     * whatever the thread picks up next.
+     */
+    public void finish() {
+        Thread current;
+        synchronized (this) {
+            finished = true;
+            current = worker;
+        }
+        if (cancelled && current == Thread.currentThread()) {
+            Thread.interrupted();
+        }
+    }
+
+    public void sendNotification(String method, Map<String, Object> params) {
+        if (notificationSink == null) {
+            return;
+        }
+        try {
+            Map<String, Object> notification = new HashMap<>();
+            notification.put("jsonrpc", "2.0");
+            notification.put("method", method);
+            notification.put("params", params);
+            notificationSink.accept(objectMapper.writeValueAsString(notification));
+        } catch (Exception e) {
+            logger.warn("Failed to send notification {}: {}", method, e.getMessage());
+        }
+    }
+}
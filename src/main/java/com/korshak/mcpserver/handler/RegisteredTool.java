@@ -0,0 +1,166 @@
+package com.korshak.mcpserver.handler;
+
+import com.korshak.mcpserver.model.Tool;
+import com.korshak.mcpserver.service.ProgressListener;
+import com.korshak.mcpserver.tools.McpTool;
+import com.korshak.mcpserver.tools.ToolParam;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.ResolvableType;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.*;
+
+/**
+ * A tool method found on a bean, with its generated input schema and the
+ * binders that turn JSON call arguments into typed method arguments.
+ */
+public class RegisteredTool {
+
+    private final Tool descriptor;
+    private final Object bean;
+    private final Method method;
+    private final String bulkhead;
+    private final long timeoutMs;
+    private final List<ArgumentBinder> binders = new ArrayList<>();
+    private final ObjectMapper objectMapper;
+
+    RegisteredTool(Object bean, Method method, McpTool annotation, ObjectMapper objectMapper) {
+        this.bean = bean;
+        this.method = method;
+        this.bulkhead = annotation.bulkhead();
+        this.timeoutMs = annotation.timeoutMs();
+        this.objectMapper = objectMapper;
+        method.setAccessible(true);
+
+        Map<String, Object> properties = new LinkedHashMap<>();
+        List<String> required = new ArrayList<>();
+        Parameter[] parameters = method.getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            Parameter parameter = parameters[i];
+            ToolParam param = parameter.getAnnotation(ToolParam.class);
+            if (param == null) {
+                if (parameter.getType() != McpRequestContext.class && parameter.getType() != ProgressListener.class) {
+                    throw new IllegalStateException("Parameter " + parameter.getName() + " of tool "
+                        + annotation.name() + " needs @ToolParam");
+                }
+                binders.add(new ArgumentBinder(null, null, false));
+                continue;
+            }
+            if (!param.required() && parameter.getType().isPrimitive()) {
+                throw new IllegalStateException("Optional parameter " + param.name() + " of tool "
+                    + annotation.name() + " cannot be primitive");
+            }
+            Map<String, Object> schema = schemaFor(ResolvableType.forMethodParameter(method, i));
+            schema.put("description", param.description());
+            properties.put(param.name(), schema);
+            if (param.required()) {
+                required.add(param.name());
+            }
+            binders.add(new ArgumentBinder(param.name(),
+                objectMapper.constructType(parameter.getParameterizedType()), param.required()));
+        }
+
+        Map<String, Object> inputSchema = new LinkedHashMap<>();
+        inputSchema.put("type", "object");
+        inputSchema.put("properties", properties);
+        inputSchema.put("required", required);
+        this.descriptor = new Tool(annotation.name(), annotation.description(), inputSchema);
+    }
+
+    public String getName() {
+        return descriptor.getName();
+    }
+
+    public Tool getDescriptor() {
+        return descriptor;
+    }
+
+    public String getBulkhead() {
+        return bulkhead;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    /**
+     * Bind the arguments and call the tool method on the current thread.
+     * Invalid or missing arguments raise {@link IllegalArgumentException}.
+     */
+    public String invoke(Map<String, Object> arguments, McpRequestContext context) throws Exception {
+        Object[] values = new Object[binders.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = binders.get(i).bind(arguments, context);
+        }
+
+        Object result;
+        try {
+            result = method.invoke(bean, values);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+        if (result == null || result instanceof String) {
+            return (String) result;
+        }
+        return objectMapper.writeValueAsString(result);
+    }
+
+    private static Map<String, Object> schemaFor(ResolvableType type) {
+        Map<String, Object> schema = new LinkedHashMap<>();
+        Class<?> raw = type.toClass();
+        if (raw == String.class || raw == char.class || raw == Character.class || raw.isEnum()) {
+            schema.put("type", "string");
+        } else if (raw == int.class || raw == long.class || raw == short.class
+                || raw == Integer.class || raw == Long.class || raw == Short.class) {
+            schema.put("type", "integer");
+        } else if (raw == double.class || raw == float.class || Number.class.isAssignableFrom(raw)) {
+            schema.put("type", "number");
+        } else if (raw == boolean.class || raw == Boolean.class) {
+            schema.put("type", "boolean");
+        } else if (raw.isArray() || Collection.class.isAssignableFrom(raw)) {
+            schema.put("type", "array");
+            ResolvableType element = raw.isArray() ? type.getComponentType() : type.asCollection().getGeneric(0);
+            schema.put("items", schemaFor(element));
+        } else {
+            schema.put("type", "object");
+        }
+        return schema;
+    }
+
+    private class ArgumentBinder {
+        private final String name;
+        private final JavaType type;
+        private final boolean required;
+
+        ArgumentBinder(String name, JavaType type, boolean required) {
+            this.name = name;
+            this.type = type;
+            this.required = required;
+        }
+
+        Object bind(Map<String, Object> arguments, McpRequestContext context) {
+            if (name == null) {
+                return context;
+            }
+            Object value = arguments.get(name);
+            if (value == null) {
+                if (required) {
+                    throw new IllegalArgumentException(name + " parameter is required");
+                }
+                return null;
+            }
+            try {
+                return objectMapper.convertValue(value, type);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid value for " + name + " parameter: " + value);
+            }
+        }
+    }
+}
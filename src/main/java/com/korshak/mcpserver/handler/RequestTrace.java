@@ -0,0 +1,129 @@
+package com.korshak.mcpserver.handler;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Where the time of one request went. Phases are closed in order as the request
+ * moves from transport to handler to tool and back; each one is charged the time
+ * since the previous one ended, so together they add up to the total. Time
+ * reported through {@link #addNested} (text extraction inside a tool) is taken
+ * out of the phase that contains it.
+ */
+public class RequestTrace {
+
+    public static final String PARSE = "parse";
+    public static final String DISPATCH = "dispatch";
+    public static final String EXECUTE = "execute";
+    public static final String EXTRACTION = "extraction";
+    public static final String SERIALIZE = "serialize";
+    public static final String WRITE = "write";
+
+    private final String transport;
+    private final int requestChars;
+    private final long startNanos;
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private long markNanos;
+    private long nestedNanos;
+
+    private Object requestId;
+    private String method;
+    private String tool;
+    private Map<String, Integer> argumentSizes;
+    private Integer errorCode;
+
+    public RequestTrace(String transport, int requestChars) {
+        this.transport = transport;
+        this.requestChars = requestChars;
+        this.startNanos = System.nanoTime();
+        this.markNanos = startNanos;
+    }
+
+    /**
+     * Charge the time since the previous phase to {@code phase}.
+     */
+    public synchronized void endPhase(String phase) {
+        long now = System.nanoTime();
+        long elapsed = Math.max(0, now - markNanos - nestedNanos);
+        markNanos = now;
+        nestedNanos = 0;
+        phases.merge(phase, elapsed, Long::sum);
+    }
+
+    public synchronized void addNested(String phase, long nanos) {
+        phases.merge(phase, nanos, Long::sum);
+        nestedNanos += nanos;
+    }
+
+    public synchronized void setRequest(Object requestId, String method) {
+        this.requestId = requestId;
+        this.method = method;
+    }
+
+    /**
+     * Record the tool and the size of each argument: characters for strings,
+     * elements for collections. Contents are never kept.
+     */
+    public synchronized void setTool(String tool, Map<String, Object> arguments) {
+        this.tool = tool;
+        this.argumentSizes = new LinkedHashMap<>();
+        arguments.forEach((name, value) -> argumentSizes.put(name, sizeOf(value)));
+    }
+
+    public synchronized void setErrorCode(int errorCode) {
+        this.errorCode = errorCode;
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    public String getTransport() {
+        return transport;
+    }
+
+    public int getRequestChars() {
+        return requestChars;
+    }
+
+    public synchronized Object getRequestId() {
+        return requestId;
+    }
+
+    public synchronized String getMethod() {
+        return method;
+    }
+
+    public synchronized String getTool() {
+        return tool;
+    }
+
+    public synchronized Map<String, Integer> getArgumentSizes() {
+        return argumentSizes;
+    }
+
+    public synchronized Integer getErrorCode() {
+        return errorCode;
+    }
+
+    public synchronized Map<String, Long> getPhases() {
+        return new LinkedHashMap<>(phases);
+    }
+
+    private static int sizeOf(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof CharSequence) {
+            return ((CharSequence) value).length();
+        }
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).size();
+        }
+        if (value instanceof Map) {
+            return ((Map<?, ?>) value).size();
+        }
+        return String.valueOf(value).length();
+    }
+}
@@ -0,0 +1,148 @@
+package com.korshak.mcpserver.handler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes one JSON line per request that took longer than its threshold: method,
+ * tool, argument sizes, response size and the time spent in each
+ * {@link RequestTrace} phase. Argument and response contents are never logged.
+ * <p>
+ * {@code mcp.slow-request.output} picks the destination: {@code log} (the
+ * {@code mcp.slow-requests} logger), {@code stderr}, {@code off}, or a file path.
+ * Nothing is ever written to stdout, which the stdin transport uses for protocol messages.
+ */
+@Component
+public class SlowRequestLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowRequestLog.class);
+    private static final Logger slowLogger = LoggerFactory.getLogger("mcp.slow-requests");
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${mcp.slow-request.threshold-ms:1000}")
+    private long thresholdMs;
+
+    @Value("${mcp.slow-request.output:log}")
+    private String output;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Long> toolThresholds = new ConcurrentHashMap<>();
+    private PrintWriter writer;
+    private boolean enabled;
+
+    @PostConstruct
+    public void init() {
+        enabled = !"off".equalsIgnoreCase(output);
+        if ("stderr".equalsIgnoreCase(output)) {
+            writer = new PrintWriter(new PrintStream(System.err, true, StandardCharsets.UTF_8), true);
+        } else if (enabled && !"log".equalsIgnoreCase(output)) {
+            try {
+                Path file = Paths.get(output);
+                if (file.getParent() != null) {
+                    Files.createDirectories(file.getParent());
+                }
+                writer = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND), true);
+            } catch (IOException e) {
+                logger.warn("Cannot open slow request log {}, using the mcp.slow-requests logger: {}",
+                    output, e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (writer != null && !"stderr".equalsIgnoreCase(output)) {
+            writer.close();
+        }
+    }
+
+    public RequestTrace start(String transport, String message) {
+        return new RequestTrace(transport, message != null ? message.length() : 0);
+    }
+
+    /**
+     * Close the trace once the response has been written and log it if slow.
+     */
+    public void finish(RequestTrace trace, String response) {
+        if (!enabled || trace == null) {
+            return;
+        }
+        long elapsed = trace.elapsedNanos();
+        long threshold = thresholdFor(trace.getTool());
+        if (elapsed < TimeUnit.MILLISECONDS.toNanos(threshold)) {
+            return;
+        }
+
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("time", Instant.now().toString());
+        entry.put("transport", trace.getTransport());
+        entry.put("id", trace.getRequestId());
+        entry.put("method", trace.getMethod());
+        if (trace.getTool() != null) {
+            entry.put("tool", trace.getTool());
+            entry.put("argumentChars", trace.getArgumentSizes());
+        }
+        entry.put("totalMs", millis(elapsed));
+        entry.put("thresholdMs", threshold);
+        entry.put("requestChars", trace.getRequestChars());
+        entry.put("responseChars", response != null ? response.length() : 0);
+        if (trace.getErrorCode() != null) {
+            entry.put("errorCode", trace.getErrorCode());
+        }
+        Map<String, Double> phases = new LinkedHashMap<>();
+        trace.getPhases().forEach((phase, nanos) -> phases.put(phase, millis(nanos)));
+        entry.put("phasesMs", phases);
+
+        String line;
+        try {
+            line = objectMapper.writeValueAsString(entry);
+        } catch (JsonProcessingException e) {
+            return;
+        }
+        if (writer != null) {
+            synchronized (writer) {
+                writer.println(line);
+            }
+        } else {
+            slowLogger.warn(line);
+        }
+    }
+
+    // mcp.slow-request.tool-threshold-ms.<tool> overrides the default per tool
+    private long thresholdFor(String tool) {
+        if (tool == null) {
+            return thresholdMs;
+        }
+        return toolThresholds.computeIfAbsent(tool, name ->
+            environment.getProperty("mcp.slow-request.tool-threshold-ms." + name, Long.class, thresholdMs));
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
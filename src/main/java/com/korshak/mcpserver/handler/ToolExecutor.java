@@ -0,0 +1,142 @@
+package com.korshak.mcpserver.handler;
+
+import com.korshak.mcpserver.service.MetricsService;
+import com.korshak.mcpserver.tools.McpTool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tool calls on per-bulkhead pools so an expensive tool can only tie up
+ * its own threads, and enforces per-tool time limits. Inline tools run on the
+ * calling thread.
+ */
+@Component
+public class ToolExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolExecutor.class);
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MetricsService metricsService;
+
+    @Value("${mcp.tools.default-timeout-ms:300000}")
+    private long defaultTimeoutMs;
+
+    private final Map<String, ThreadPoolExecutor> bulkheads = new ConcurrentHashMap<>();
+    private final Map<String, Long> timeouts = new ConcurrentHashMap<>();
+
+    public String execute(RegisteredTool tool, Map<String, Object> arguments,
+                          McpRequestContext context) throws Exception {
+        long start = System.nanoTime();
+        String outcome = "error";
+        String result = null;
+        try {
+            result = run(tool, arguments, context);
+            outcome = "success";
+            return result;
+        } catch (TimeoutException e) {
+            outcome = "timeout";
+            throw e;
+        } catch (CancellationException e) {
+            outcome = "cancelled";
+            throw e;
+        } catch (McpException e) {
+            outcome = e.getCode() == McpException.SERVER_BUSY ? "rejected" : "error";
+            throw e;
+        } finally {
+            metricsService.recordToolCall(tool.getName(), outcome, System.nanoTime() - start, result);
+        }
+    }
+
+    private String run(RegisteredTool tool, Map<String, Object> arguments,
+                       McpRequestContext context) throws Exception {
+        if (McpTool.INLINE.equals(tool.getBulkhead())) {
+            context.endPhase(RequestTrace.DISPATCH);
+            try {
+                return tool.invoke(arguments, context);
+            } finally {
+                context.endPhase(RequestTrace.EXECUTE);
+            }
+        }
+
+        ThreadPoolExecutor bulkhead = bulkheads.computeIfAbsent(tool.getBulkhead(), this::createBulkhead);
+        Future<String> future;
+        try {
+            future = bulkhead.submit(() -> {
+                // Cancellation now has to interrupt this thread, not the waiting caller
+                Thread caller = context.bindToCurrentThread();
+                // Time spent waiting in the bulkhead queue counts as dispatch
+                context.endPhase(RequestTrace.DISPATCH);
+                try {
+                    context.checkCancelled();
+                    return tool.invoke(arguments, context);
+                } finally {
+                    context.endPhase(RequestTrace.EXECUTE);
+                    context.bindTo(caller);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new McpException(McpException.SERVER_BUSY,
+                "Server busy: too many " + tool.getBulkhead() + " tool calls queued");
+        }
+
+        long timeoutMs = getTimeoutMs(tool);
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            logger.warn("Tool {} timed out after {} ms", tool.getName(), timeoutMs);
+            throw new TimeoutException("Tool " + tool.getName() + " timed out after " + timeoutMs + " ms");
+        } catch (InterruptedException e) {
+            // Cancelled before the task picked up the request
+            future.cancel(true);
+            throw new CancellationException("Operation cancelled");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        bulkheads.values().forEach(ExecutorService::shutdownNow);
+    }
+
+    private long getTimeoutMs(RegisteredTool tool) {
+        return timeouts.computeIfAbsent(tool.getName(), name -> {
+            long fallback = tool.getTimeoutMs() > 0 ? tool.getTimeoutMs() : defaultTimeoutMs;
+            return environment.getProperty("mcp.tools.timeout." + name, Long.class, fallback);
+        });
+    }
+
+    private ThreadPoolExecutor createBulkhead(String name) {
+        String prefix = "mcp.tools.bulkhead." + name;
+        int maxConcurrency = environment.getProperty(prefix + ".max-concurrency", Integer.class, 4);
+        int maxQueued = environment.getProperty(prefix + ".max-queued", Integer.class, 64);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency,
+            60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(Math.max(1, maxQueued)), runnable -> {
+                Thread thread = new Thread(runnable, "mcp-tool-" + name + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        logger.info("Created tool bulkhead '{}' with {} threads", name, maxConcurrency);
+        return executor;
+    }
+}
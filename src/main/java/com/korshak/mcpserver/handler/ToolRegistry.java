@@ -0,0 +1,152 @@
+package com.korshak.mcpserver.handler;
+
+import com.korshak.mcpserver.tools.McpTool;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Catalog of the tools advertised through {@code tools/list}, collected from
+ * {@link McpTool} methods on application beans once the context has started.
+ * Tool descriptors are rendered to JSON once, page by page, so answering a
+ * discovery call is only a lookup; the cache is rebuilt when the catalog
+ * changes. Pages are addressed with opaque MCP cursors.
+ */
+@Component
+public class ToolRegistry implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolRegistry.class);
+
+    private static final String SCANNED_PACKAGE = "com.korshak.mcpserver";
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Value("${mcp.tools.page-size:50}")
+    private int pageSize = 50;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, RegisteredTool> tools = new TreeMap<>();
+    private volatile List<String> renderedPages;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String beanName : applicationContext.getBeanDefinitionNames()) {
+            Class<?> type = applicationContext.getType(beanName);
+            if (type != null && type.getName().startsWith(SCANNED_PACKAGE) && hasTools(type)) {
+                registerBean(applicationContext.getBean(beanName));
+            }
+        }
+        logger.info("Registered {} MCP tools", tools.size());
+        renderPage(null);
+    }
+
+    /**
+     * Register every {@link McpTool} method declared by {@code bean}.
+     */
+    public void registerBean(Object bean) {
+        Class<?> type = ClassUtils.getUserClass(bean);
+        findTools(type).forEach((method, annotation) ->
+            register(new RegisteredTool(bean, method, annotation, objectMapper)));
+    }
+
+    public synchronized void register(RegisteredTool tool) {
+        if (tools.containsKey(tool.getName())) {
+            throw new IllegalStateException("Duplicate MCP tool: " + tool.getName());
+        }
+        tools.put(tool.getName(), tool);
+        renderedPages = null;
+    }
+
+    public synchronized RegisteredTool getTool(String name) {
+        return tools.get(name);
+    }
+
+    public synchronized List<RegisteredTool> getTools() {
+        return new ArrayList<>(tools.values());
+    }
+
+    /**
+     * Returns the {@code tools/list} result for the page addressed by
+     * {@code cursor} (the first page when it is {@code null}) as a JSON object.
+     */
+    public String renderPage(String cursor) {
+        List<String> pages = renderedPages;
+        if (pages == null) {
+            pages = renderPages();
+        }
+        int page = decodeCursor(cursor);
+        if (page < 0 || page >= pages.size()) {
+            throw new McpException(McpException.INVALID_PARAMS, "Invalid cursor: " + cursor);
+        }
+        return pages.get(page);
+    }
+
+    private synchronized List<String> renderPages() {
+        if (renderedPages != null) {
+            return renderedPages;
+        }
+        List<RegisteredTool> all = new ArrayList<>(tools.values());
+        int size = pageSize > 0 ? pageSize : Math.max(1, all.size());
+        int pageCount = Math.max(1, (all.size() + size - 1) / size);
+
+        List<String> pages = new ArrayList<>(pageCount);
+        for (int page = 0; page < pageCount; page++) {
+            List<Object> descriptors = new ArrayList<>();
+            for (RegisteredTool tool : all.subList(page * size, Math.min(all.size(), (page + 1) * size))) {
+                descriptors.add(tool.getDescriptor());
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("tools", descriptors);
+            if (page + 1 < pageCount) {
+                result.put("nextCursor", encodeCursor(page + 1));
+            }
+            try {
+                pages.add(objectMapper.writeValueAsString(result));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Cannot render tool list", e);
+            }
+        }
+        renderedPages = Collections.unmodifiableList(pages);
+        return renderedPages;
+    }
+
+    private static boolean hasTools(Class<?> type) {
+        return !findTools(ClassUtils.getUserClass(type)).isEmpty();
+    }
+
+    private static Map<Method, McpTool> findTools(Class<?> type) {
+        return MethodIntrospector.selectMethods(type, (MethodIntrospector.MetadataLookup<McpTool>) method ->
+            AnnotatedElementUtils.findMergedAnnotation(method, McpTool.class));
+    }
+
+    private static String encodeCursor(int page) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(("page:" + page).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int decodeCursor(String cursor) {
+        if (cursor == null) {
+            return 0;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return decoded.startsWith("page:") ? Integer.parseInt(decoded.substring(5)) : -1;
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.korshak.mcpserver.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Definition pattern matching over the text of one file.
+ */
+@Name("com.korshak.mcpserver.DefinitionExtraction")
+@Label("Definition Extraction")
+@Category({"MCP Knowledge Server", "Analysis"})
+@Description("Regex definition and glossary matching over extracted text")
+@StackTrace(false)
+public class DefinitionExtractionEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    public String file;
+
+    @Label("Text Characters")
+    public long textChars;
+
+    @Label("Definitions Found")
+    public int definitions;
+}
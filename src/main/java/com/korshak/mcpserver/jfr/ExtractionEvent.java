@@ -0,0 +1,32 @@
+package com.korshak.mcpserver.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Text extraction from one file by PDFBox or Tika.
+ */
+@Name("com.korshak.mcpserver.Extraction")
+@Label("Text Extraction")
+@Category({"MCP Knowledge Server", "Extraction"})
+@Description("Text extracted from a knowledge store file")
+@StackTrace(false)
+public class ExtractionEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    public String file;
+
+    @Label("Parser")
+    public String parser;
+
+    @Label("File Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Extracted Characters")
+    public long resultChars;
+}
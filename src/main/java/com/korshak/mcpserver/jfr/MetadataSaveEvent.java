@@ -0,0 +1,26 @@
+package com.korshak.mcpserver.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One write of {@code file-metadata.json}.
+ */
+@Name("com.korshak.mcpserver.MetadataSave")
+@Label("Metadata Save")
+@Category({"MCP Knowledge Server", "Metadata"})
+@Description("Serialization and write of the metadata file")
+@StackTrace(true)
+public class MetadataSaveEvent extends jdk.jfr.Event {
+
+    @Label("Entries")
+    public int entries;
+
+    @Label("Written Size")
+    @DataAmount
+    public long bytes;
+}
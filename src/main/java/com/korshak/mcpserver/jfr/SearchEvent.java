@@ -0,0 +1,28 @@
+package com.korshak.mcpserver.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A full-text search over the store; the extractions it triggers are
+ * recorded as nested {@link ExtractionEvent}s.
+ */
+@Name("com.korshak.mcpserver.Search")
+@Label("Full-Text Search")
+@Category({"MCP Knowledge Server", "Search"})
+@Description("Content search across all files in the knowledge store")
+@StackTrace(false)
+public class SearchEvent extends jdk.jfr.Event {
+
+    @Label("Query")
+    public String query;
+
+    @Label("Files Scanned")
+    public int filesScanned;
+
+    @Label("Matches")
+    public int matches;
+}
@@ -18,6 +18,7 @@ public class FileMetadata {
     private int estimatedTokens;
     private String language;
     private boolean isLargeFile;
+    private String contentHash;
 
     public FileMetadata() {}
 
@@ -129,4 +130,12 @@ public class FileMetadata {
     public void setLargeFile(boolean largeFile) {
         isLargeFile = largeFile;
     }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
 }
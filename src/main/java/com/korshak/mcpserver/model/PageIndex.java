@@ -0,0 +1,88 @@
+package com.korshak.mcpserver.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which pages of a paged document mention which keywords. Stored under the
+ * hash of the document's content, so it is shared by every copy of the file.
+ */
+public class PageIndex {
+    private String filename;
+    private String contentHash;
+    private long size;
+    private long lastModified;
+    private int pageCount;
+    private List<String> terms;
+    private Map<String, List<Integer>> keywordPages;
+
+    public PageIndex() {}
+
+    public PageIndex(String filename, String contentHash, long size, long lastModified, int pageCount,
+                     List<String> terms, Map<String, List<Integer>> keywordPages) {
+        this.filename = filename;
+        this.contentHash = contentHash;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.pageCount = pageCount;
+        this.terms = terms;
+        this.keywordPages = keywordPages;
+    }
+
+    // Getters and setters
+    public String getFilename() {
+        return filename;
+    }
+
+    public void setFilename(String filename) {
+        this.filename = filename;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public void setPageCount(int pageCount) {
+        this.pageCount = pageCount;
+    }
+
+    public List<String> getTerms() {
+        return terms;
+    }
+
+    public void setTerms(List<String> terms) {
+        this.terms = terms;
+    }
+
+    public Map<String, List<Integer>> getKeywordPages() {
+        return keywordPages;
+    }
+
+    public void setKeywordPages(Map<String, List<Integer>> keywordPages) {
+        this.keywordPages = keywordPages;
+    }
+}
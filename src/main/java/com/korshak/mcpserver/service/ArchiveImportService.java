@@ -0,0 +1,421 @@
+package com.korshak.mcpserver.service;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Imports zip and tar(.gz) collections into the store. Entries are copied from
+ * the archive straight to their place in the store, never unpacked elsewhere
+ * first, by {@code knowledge.batch.parallelism} workers:
+ * <ul>
+ *   <li>a zip already in the store is read through its central directory, so
+ *       every worker inflates entries of its own;</li>
+ *   <li>a tar, or an archive arriving as a stream, can only be read in order;
+ *       entries up to {@value #BUFFERED_ENTRY_BYTES} bytes are read into memory
+ *       and written by a worker while the next ones are read, larger ones are
+ *       copied by the reading thread.</li>
+ * </ul>
+ * Metadata for the whole archive is saved once at the end, and the entries'
+ * ingestion jobs are queued together after that.
+ */
+@Service
+public class ArchiveImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveImportService.class);
+
+    static final int BUFFERED_ENTRY_BYTES = 1024 * 1024;
+
+    @Value("${knowledge.store.path:./knowledgeStore}")
+    private String knowledgeStorePath;
+
+    @Value("${knowledge.batch.parallelism:4}")
+    private int parallelism;
+
+    @Autowired
+    private KnowledgeStoreService knowledgeStoreService;
+
+    @Autowired
+    private MetadataService metadataService;
+
+    @Autowired
+    private IngestionService ingestionService;
+
+    public enum Format { ZIP, TAR, TAR_GZ }
+
+    /**
+     * Archive format going by the file name, or null for anything else.
+     */
+    public static Format formatOf(String filename) {
+        String lower = filename.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".zip")) {
+            return Format.ZIP;
+        }
+        if (lower.endsWith(".tar")) {
+            return Format.TAR;
+        }
+        if (lower.endsWith(".tar.gz") || lower.endsWith(".tgz")) {
+            return Format.TAR_GZ;
+        }
+        return null;
+    }
+
+    /**
+     * Directory an archive is imported into by default: its own name without
+     * the archive extension, next to it.
+     */
+    static String defaultTarget(String archive) {
+        String lower = archive.toLowerCase(Locale.ROOT);
+        for (String extension : List.of(".tar.gz", ".tgz", ".tar", ".zip")) {
+            if (lower.endsWith(extension)) {
+                return archive.substring(0, archive.length() - extension.length());
+            }
+        }
+        return archive;
+    }
+
+    /**
+     * Import an archive that is already in the store.
+     * @param targetDir directory to import into, relative to the store; by default
+     *                  {@link #defaultTarget}, an empty string for the store itself
+     */
+    public Result importStored(String archive, String targetDir, ProgressListener listener) throws IOException {
+        Format format = formatOf(archive);
+        if (format == null) {
+            throw new IllegalArgumentException("Not a zip or tar archive: " + archive);
+        }
+        Path archivePath = Paths.get(knowledgeStorePath, archive);
+        if (!Files.isRegularFile(archivePath)) {
+            throw new NoSuchFileException(archive);
+        }
+        String target = targetDir != null ? targetDir : defaultTarget(archive);
+        if (format == Format.ZIP) {
+            return run(archive, target, listener, batch -> importZipFile(archivePath, batch));
+        }
+        try (InputStream in = Files.newInputStream(archivePath)) {
+            return importStream(archive, in, target, listener);
+        }
+    }
+
+    /**
+     * Import an archive read from {@code in}, such as a request body, in one pass.
+     * {@code archive} only names the format and the default target directory.
+     */
+    public Result importStream(String archive, InputStream in, String targetDir, ProgressListener listener)
+            throws IOException {
+        Format format = formatOf(archive);
+        if (format == null) {
+            throw new IllegalArgumentException("Not a zip or tar archive: " + archive);
+        }
+        String target = targetDir != null ? targetDir : defaultTarget(archive);
+        return run(archive, target, listener, batch -> {
+            InputStream buffered = new BufferedInputStream(in, 64 * 1024);
+            switch (format) {
+                case ZIP -> importEntries(new ZipArchiveInputStream(buffered), batch);
+                case TAR -> importEntries(new TarArchiveInputStream(buffered), batch);
+                case TAR_GZ -> importEntries(new TarArchiveInputStream(new GzipCompressorInputStream(buffered)), batch);
+            }
+        });
+    }
+
+    private Result run(String archive, String targetDir, ProgressListener listener, Importer importer)
+            throws IOException {
+        long started = System.nanoTime();
+        Batch batch = new Batch(normalizeTarget(targetDir), listener);
+        try {
+            importer.importInto(batch);
+            batch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Operation cancelled");
+        } finally {
+            batch.close();
+            // Whatever made it into the store is ingested, even if the import stopped half way
+            ingestionService.submitAll(new ArrayList<>(batch.imported));
+        }
+        Result result = new Result(archive, batch.targetDir, batch.imported, batch.skipped, batch.bytes.get(),
+            (System.nanoTime() - started) / 1_000_000);
+        logger.info("Imported {} files ({} bytes) from {} into '{}' in {} ms, skipped {}", result.getImported().size(),
+            result.getBytes(), archive, result.getTargetDir(), result.getMillis(), result.getSkipped().size());
+        return result;
+    }
+
+    private void importZipFile(Path archivePath, Batch batch) throws IOException {
+        try (ZipFile zip = new ZipFile(archivePath.toFile())) {
+            List<ZipArchiveEntry> entries = Collections.list(zip.getEntriesInPhysicalOrder());
+            batch.total = entries.size();
+            for (ZipArchiveEntry entry : entries) {
+                batch.listener.checkCancelled();
+                String name = batch.targetName(entry);
+                if (name == null) {
+                    continue;
+                }
+                if (!zip.canReadEntryData(entry)) {
+                    batch.skip(entry.getName(), "unsupported compression or encryption");
+                    continue;
+                }
+                // Entries are read through positional reads, so workers do not share a position
+                batch.submit(name, () -> zip.getInputStream(entry));
+            }
+            batch.await();
+        }
+    }
+
+    private void importEntries(ArchiveInputStream in, Batch batch) throws IOException, InterruptedException {
+        ArchiveEntry entry;
+        while ((entry = in.getNextEntry()) != null) {
+            batch.listener.checkCancelled();
+            String name = batch.targetName(entry);
+            if (name == null) {
+                continue;
+            }
+            if (!in.canReadEntryData(entry)) {
+                batch.skip(entry.getName(), "unsupported compression or encryption");
+                continue;
+            }
+            long size = entry.getSize();
+            if (size >= 0 && size <= BUFFERED_ENTRY_BYTES) {
+                batch.submitBuffered(name, in.readNBytes((int) size));
+            } else {
+                // The channel is left open: closing it would close the archive
+                batch.store(name, Channels.newChannel(in));
+                batch.reportProgress();
+            }
+        }
+    }
+
+    private static String normalizeTarget(String targetDir) {
+        String target = targetDir.replace('\\', '/');
+        while (target.startsWith("/")) {
+            target = target.substring(1);
+        }
+        while (target.endsWith("/")) {
+            target = target.substring(0, target.length() - 1);
+        }
+        return target;
+    }
+
+    @FunctionalInterface
+    private interface Importer {
+        void importInto(Batch batch) throws IOException, InterruptedException;
+    }
+
+    @FunctionalInterface
+    private interface Opener {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Entries of one archive being stored, and what came of each.
+     */
+    private final class Batch {
+        private final String targetDir;
+        private final ProgressListener listener;
+        private final ExecutorService executor;
+        private final CompletionService<Void> completion;
+        // Every stored entry updates the metadata; it is saved once, when the import ends
+        private final MetadataService.Batch metadata = metadataService.beginBatch();
+        // Limits the buffered entries waiting for a worker
+        private final Semaphore buffers;
+        private final List<String> imported = Collections.synchronizedList(new ArrayList<>());
+        private final Map<String, String> skipped = Collections.synchronizedMap(new LinkedHashMap<>());
+        private final AtomicInteger stored = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+        private int submitted;
+        private int seen;
+        private long total = -1;
+
+        Batch(String targetDir, ProgressListener listener) {
+            this.targetDir = targetDir;
+            this.listener = listener;
+            int workers = Math.max(1, parallelism);
+            AtomicInteger threadCount = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(workers, runnable -> {
+                Thread thread = new Thread(runnable, "archive-import-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.completion = new ExecutorCompletionService<>(executor);
+            this.buffers = new Semaphore(2 * workers);
+        }
+
+        // Name in the store, or null for entries that are not imported: directories,
+        // links and devices, hidden files and macOS resource forks
+        String targetName(ArchiveEntry entry) {
+            if (entry.isDirectory()) {
+                return null;
+            }
+            String name = entry.getName().replace('\\', '/');
+            if (entry instanceof TarArchiveEntry tar && !tar.isFile()) {
+                skip(name, "not a regular file");
+                return null;
+            }
+            while (name.startsWith("/")) {
+                name = name.substring(1);
+            }
+            for (String segment : name.split("/")) {
+                if (segment.equals("..")) {
+                    skip(name, "outside the target directory");
+                    return null;
+                }
+                if (segment.startsWith(".") || segment.equals("__MACOSX")) {
+                    return null;
+                }
+            }
+            if (name.isEmpty()) {
+                return null;
+            }
+            seen++;
+            return targetDir.isEmpty() ? name : targetDir + "/" + name;
+        }
+
+        void skip(String entryName, String reason) {
+            skipped.put(entryName, reason);
+        }
+
+        void submit(String name, Opener opener) {
+            submitted++;
+            completion.submit(() -> {
+                try (InputStream in = opener.open()) {
+                    store(name, Channels.newChannel(in));
+                }
+                return null;
+            });
+        }
+
+        void submitBuffered(String name, byte[] content) throws InterruptedException {
+            buffers.acquire();
+            submitted++;
+            completion.submit(() -> {
+                try {
+                    store(name, Channels.newChannel(new ByteArrayInputStream(content)));
+                } finally {
+                    buffers.release();
+                }
+                return null;
+            });
+            reportProgress();
+        }
+
+        void store(String name, ReadableByteChannel content) {
+            try (MetadataService.Scope scope = metadata.enter()) {
+                Map<String, Object> info = knowledgeStoreService.storeFile(name, content);
+                bytes.addAndGet((Long) info.get("size"));
+                imported.add(name);
+            } catch (IOException | IllegalArgumentException e) {
+                logger.warn("Could not import {}: {}", name, e.getMessage());
+                skip(name, e.getMessage());
+            }
+            stored.incrementAndGet();
+        }
+
+        // Waits for the submitted entries, reporting them as they are stored
+        void await() throws IOException {
+            try {
+                while (submitted > 0) {
+                    completion.take().get();
+                    submitted--;
+                    reportProgress();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Operation cancelled");
+            } catch (ExecutionException e) {
+                throw new IOException("Archive import failed", e.getCause());
+            }
+        }
+
+        private void reportProgress() {
+            long expected = total >= 0 ? total : seen + 1;
+            listener.onProgress(stored.get(), Math.max(expected, stored.get()), "Imported " + stored.get() + " files");
+        }
+
+        // Stops the workers, giving ones still copying an entry a moment to finish it, then saves the metadata
+        void close() {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            metadata.close();
+        }
+    }
+
+    /**
+     * Outcome of an import: the files stored, entries left out and why, and totals.
+     */
+    public static final class Result {
+        private final String archive;
+        private final String targetDir;
+        private final List<String> imported;
+        private final Map<String, String> skipped;
+        private final long bytes;
+        private final long millis;
+
+        Result(String archive, String targetDir, List<String> imported, Map<String, String> skipped,
+               long bytes, long millis) {
+            this.archive = archive;
+            this.targetDir = targetDir;
+            synchronized (imported) {
+                List<String> sorted = new ArrayList<>(imported);
+                Collections.sort(sorted);
+                this.imported = sorted;
+            }
+            synchronized (skipped) {
+                this.skipped = new LinkedHashMap<>(skipped);
+            }
+            this.bytes = bytes;
+            this.millis = millis;
+        }
+
+        public String getArchive() {
+            return archive;
+        }
+
+        public String getTargetDir() {
+            return targetDir;
+        }
+
+        public List<String> getImported() {
+            return imported;
+        }
+
+        public Map<String, String> getSkipped() {
+            return skipped;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.korshak.mcpserver.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content-addressed storage for what the server derives from documents. Files
+ * are identified by the SHA-256 of their bytes, and extracted text and indexes
+ * are kept under {@code <store>/.mcp/cas/<kind>/<xx>/<hash>}, so a document
+ * stored under several names is parsed and indexed once.
+ * <p>
+ * Hashes are remembered per path while the file's size and modification time
+ * are unchanged; writes and uploads hand over the hash they computed on the way
+ * to disk through {@link #record}.
+ */
+@Service
+public class ContentStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentStore.class);
+
+    private static final String CAS_DIR = "cas";
+    private static final String TMP_DIR = "tmp";
+    public static final String TEXT = "text";
+    public static final String PAGE_INDEX = "page-index";
+    public static final String MINHASH = "minhash";
+    public static final String DEFINITIONS = "definitions";
+
+    @Value("${knowledge.store.path:./knowledgeStore}")
+    private String knowledgeStorePath;
+
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+    private static final int HEAD_BYTES = 8 * 1024;
+
+    private final Map<Path, Hashed> hashes = new ConcurrentHashMap<>();
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static String toHex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Hash of the file's current content, read from disk only when the file has
+     * changed since it was last hashed.
+     */
+    public String hash(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        long size = Files.size(key);
+        long lastModified = Files.getLastModifiedTime(key).toMillis();
+        Hashed known = hashes.get(key);
+        if (known != null && known.size == size && known.lastModified == lastModified) {
+            return known.hash;
+        }
+
+        MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(key), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        String hash = toHex(digest);
+        hashes.put(key, new Hashed(size, lastModified, hash));
+        return hash;
+    }
+
+    /**
+     * The remembered hash of {@code file} if it has not changed since, or null.
+     * Never reads the file.
+     */
+    public String knownHash(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        Hashed known = hashes.get(key);
+        return known != null && known.isCurrent(key) ? known.hash : null;
+    }
+
+    /**
+     * Files remembered with content {@code hash} that still have it. Only files
+     * hashed since startup (written, uploaded, ingested or indexed) are found.
+     */
+    public List<Path> filesWithHash(String hash) {
+        List<Path> files = new ArrayList<>();
+        hashes.forEach((file, known) -> {
+            try {
+                if (known.hash.equals(hash) && known.isCurrent(file)) {
+                    files.add(file);
+                }
+            } catch (IOException e) {
+                // Deleted or unreadable since it was hashed
+            }
+        });
+        return files;
+    }
+
+    /**
+     * Remember a hash computed while {@code file} was written, so it is not read back.
+     */
+    public void record(Path file, String hash) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        hashes.put(key, new Hashed(Files.size(key), Files.getLastModifiedTime(key).toMillis(), hash));
+    }
+
+    /**
+     * Copy {@code in} to {@code target}, hashing the bytes on the way.
+     * @return the content hash
+     */
+    public String store(InputStream in, Path target) throws IOException {
+        return store(Channels.newChannel(in), target).getHash();
+    }
+
+    /**
+     * Copy {@code source} to {@code target} through one direct buffer, hashing
+     * and counting the bytes and keeping the first few for type detection in
+     * the same pass. The file is staged under {@code .mcp/tmp} and moved into
+     * place when complete, so readers never see half a document.
+     */
+    public Stored store(ReadableByteChannel source, Path target) throws IOException {
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        // Staged inside the store, so the final move stays on one file system, but out of listings
+        Path staging = Paths.get(knowledgeStorePath, PageIndexService.INTERNAL_DIR, TMP_DIR);
+        Files.createDirectories(staging);
+        Path temp = staging.resolve("upload-" + UUID.randomUUID() + ".tmp");
+        try {
+            MessageDigest digest = newDigest();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(COPY_BUFFER_BYTES);
+            byte[] head = new byte[HEAD_BYTES];
+            int headLength = 0;
+            long size = 0;
+            // Created with default permissions, which the stored file keeps
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                while (source.read(buffer) != -1) {
+                    buffer.flip();
+                    if (headLength < HEAD_BYTES) {
+                        int take = Math.min(HEAD_BYTES - headLength, buffer.remaining());
+                        buffer.duplicate().get(head, headLength, take);
+                        headLength += take;
+                    }
+                    size += buffer.remaining();
+                    digest.update(buffer.duplicate());
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+            moveIntoPlace(temp, target);
+            String hash = toHex(digest);
+            record(target, hash);
+            return new Stored(hash, size, Arrays.copyOf(head, headLength));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public Path artifactPath(String kind, String hash, String suffix) {
+        return Paths.get(knowledgeStorePath, PageIndexService.INTERNAL_DIR, CAS_DIR, kind,
+            hash.substring(0, 2), hash + suffix);
+    }
+
+    /**
+     * Extracted text stored for the given content, or null if it was never extracted.
+     */
+    public String readText(String hash) {
+        Path path = artifactPath(TEXT, hash, ".txt");
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            return Files.readString(path, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable extracted text {}: {}", path.getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    public void writeText(String hash, String text) {
+        writeArtifact(artifactPath(TEXT, hash, ".txt"), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Write through a temporary file so concurrent readers never see a partial artifact.
+     */
+    public void writeArtifact(Path path, byte[] content) {
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = path.resolveSibling(path.getFileName() + "." + UUID.randomUUID() + ".tmp");
+            try {
+                Files.write(temp, content);
+                moveIntoPlace(temp, path);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not store {}: {}", path.getFileName(), e.getMessage());
+        }
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * What {@link #store(ReadableByteChannel, Path)} learned while copying.
+     */
+    public static final class Stored {
+        private final String hash;
+        private final long size;
+        private final byte[] head;
+
+        Stored(String hash, long size, byte[] head) {
+            this.hash = hash;
+            this.size = size;
+            this.head = head;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /** The first bytes of the content, enough for MIME type detection. */
+        public byte[] getHead() {
+            return head;
+        }
+    }
+
+    private static final class Hashed {
+        private final long size;
+        private final long lastModified;
+        private final String hash;
+
+        Hashed(long size, long lastModified, String hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+
+        boolean isCurrent(Path file) throws IOException {
+            return Files.size(file) == size && Files.getLastModifiedTime(file).toMillis() == lastModified;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.korshak.mcpserver.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Text already extracted from PDF and Tika documents, keyed by content hash so
+ * copies of a document share one entry. Least recently used entries are dropped
+ * once the total exceeds a character budget.
+ */
+public class ExtractedTextCache {
+
+    private final long maxChars;
+    private final Map<String, String> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalChars;
+
+    public ExtractedTextCache(long maxChars) {
+        this.maxChars = maxChars;
+    }
+
+    public synchronized String get(String hash) {
+        return entries.get(hash);
+    }
+
+    public synchronized boolean contains(String hash) {
+        return entries.containsKey(hash);
+    }
+
+    public synchronized void put(String hash, String text) {
+        if (text.length() > maxChars) {
+            return;
+        }
+        String previous = entries.put(hash, text);
+        if (previous != null) {
+            totalChars -= previous.length();
+        }
+        totalChars += text.length();
+
+        Iterator<String> eldest = entries.values().iterator();
+        while (totalChars > maxChars && eldest.hasNext()) {
+            totalChars -= eldest.next().length();
+            eldest.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long totalChars() {
+        return totalChars;
+    }
+}
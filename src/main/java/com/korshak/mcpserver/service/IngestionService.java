@@ -0,0 +1,315 @@
+package com.korshak.mcpserver.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.korshak.mcpserver.model.IngestionJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Runs {@link KnowledgeStoreService#ingest} for written and uploaded files on
+ * worker threads, so storing a file costs the same whatever its size.
+ * <p>
+ * Each pending job is persisted as {@code <store>/.mcp/ingestion/<id>.json}
+ * until it finishes, and jobs left over from a previous run are queued again
+ * at startup. A file written again before its job has started shares that job.
+ * While more jobs are waiting, metadata is saved once per
+ * {@value #SAVE_EVERY_JOBS} jobs and when the queue runs dry, and a finished
+ * job's file is removed only once its metadata has been saved.
+ * The most recent {@code knowledge.ingestion.retained-jobs} are kept in memory
+ * for status queries.
+ */
+@Service
+public class IngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionService.class);
+    private static final String QUEUE_DIR = "ingestion";
+    static final int SAVE_EVERY_JOBS = 100;
+
+    @Value("${knowledge.store.path:./knowledgeStore}")
+    private String knowledgeStorePath;
+
+    @Value("${knowledge.ingestion.threads:1}")
+    private int threads;
+
+    @Value("${knowledge.ingestion.retained-jobs:1000}")
+    private int retainedJobs;
+
+    @Autowired
+    private KnowledgeStoreService knowledgeStoreService;
+
+    @Autowired
+    private MetadataService metadataService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private ThreadPoolExecutor executor;
+
+    private final Map<String, IngestionJob> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, IngestionJob> eldest) {
+            return size() > Math.max(1, retainedJobs) && isFinished(eldest.getValue());
+        }
+    };
+    private final Map<String, IngestionJob> queuedByFile = new HashMap<>();
+
+    // Guarded by itself: jobs submitted and not yet finished, the open metadata
+    // batch, if any, and the finished jobs whose metadata it has not saved yet
+    private final Object batchLock = new Object();
+    private int unfinished;
+    private MetadataService.Batch batch;
+    private final List<String> unsaved = new ArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads),
+            60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "mcp-ingest-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        resumePending();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        closeBatch();
+    }
+
+    /**
+     * Queue ingestion of {@code filename}, or return its job if one is already waiting.
+     */
+    public IngestionJob submit(String filename) {
+        IngestionJob job;
+        synchronized (jobs) {
+            IngestionJob queued = queuedByFile.get(filename);
+            if (queued != null && queued.getStatus() == IngestionJob.Status.QUEUED) {
+                return queued;
+            }
+            job = new IngestionJob(UUID.randomUUID().toString(), filename);
+            jobs.put(job.getId(), job);
+            queuedByFile.put(filename, job);
+        }
+        persist(job);
+        enqueue(job);
+        return job;
+    }
+
+    /**
+     * Queue ingestion of several files at once, such as the contents of an archive.
+     */
+    public List<IngestionJob> submitAll(Collection<String> filenames) {
+        List<IngestionJob> submitted = new ArrayList<>(filenames.size());
+        for (String filename : filenames) {
+            submitted.add(submit(filename));
+        }
+        return submitted;
+    }
+
+    public IngestionJob getJob(String id) {
+        synchronized (jobs) {
+            return jobs.get(id);
+        }
+    }
+
+    /**
+     * The retained jobs, most recent first.
+     */
+    public List<IngestionJob> getJobs() {
+        synchronized (jobs) {
+            List<IngestionJob> recent = new ArrayList<>(jobs.values());
+            Collections.reverse(recent);
+            return recent;
+        }
+    }
+
+    public Map<IngestionJob.Status, Integer> countByStatus() {
+        Map<IngestionJob.Status, Integer> counts = new EnumMap<>(IngestionJob.Status.class);
+        for (IngestionJob.Status status : IngestionJob.Status.values()) {
+            counts.put(status, 0);
+        }
+        synchronized (jobs) {
+            jobs.values().forEach(job -> counts.merge(job.getStatus(), 1, Integer::sum));
+        }
+        return counts;
+    }
+
+    private void enqueue(IngestionJob job) {
+        synchronized (batchLock) {
+            unfinished++;
+        }
+        executor.execute(() -> run(job));
+    }
+
+    private void run(IngestionJob job) {
+        MetadataService.Batch current;
+        synchronized (batchLock) {
+            if (batch == null) {
+                batch = metadataService.beginBatch();
+            }
+            current = batch;
+        }
+        try (MetadataService.Scope scope = current.enter()) {
+            ingest(job);
+        } finally {
+            boolean save;
+            synchronized (batchLock) {
+                unfinished--;
+                save = unfinished == 0 || unsaved.size() >= SAVE_EVERY_JOBS;
+            }
+            if (save) {
+                closeBatch();
+            }
+        }
+    }
+
+    private void ingest(IngestionJob job) {
+        synchronized (jobs) {
+            queuedByFile.remove(job.getFilename(), job);
+            job.setStatus(IngestionJob.Status.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+        }
+        long start = System.nanoTime();
+        try {
+            knowledgeStoreService.ingest(job.getFilename(), new StageListener(job));
+            finish(job, IngestionJob.Status.COMPLETED, null);
+            logger.debug("Ingested {} in {} ms", job.getFilename(), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            if (executor.isShutdown()) {
+                // Interrupted by shutdown: the persisted job runs again on the next start
+                return;
+            }
+            logger.warn("Ingestion of {} failed: {}", job.getFilename(), e.getMessage());
+            finish(job, IngestionJob.Status.FAILED, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    private void finish(IngestionJob job, IngestionJob.Status status, String error) {
+        synchronized (jobs) {
+            job.setStatus(status);
+            job.setStage(null);
+            job.setFinishedAt(LocalDateTime.now());
+            job.setError(error);
+        }
+        synchronized (batchLock) {
+            unsaved.add(job.getId());
+        }
+    }
+
+    // Save the metadata of the jobs finished so far, then forget their persisted files
+    private void closeBatch() {
+        MetadataService.Batch closing;
+        List<String> saved;
+        synchronized (batchLock) {
+            closing = batch;
+            batch = null;
+            saved = new ArrayList<>(unsaved);
+            unsaved.clear();
+        }
+        // Jobs finished after their batch closed saved their metadata directly
+        if (closing != null) {
+            closing.close();
+        }
+        for (String id : saved) {
+            try {
+                Files.deleteIfExists(jobPath(id));
+            } catch (IOException e) {
+                logger.warn("Could not remove finished ingestion job {}: {}", id, e.getMessage());
+            }
+        }
+    }
+
+    private void persist(IngestionJob job) {
+        try {
+            Path path = jobPath(job.getId());
+            Files.createDirectories(path.getParent());
+            objectMapper.writeValue(path.toFile(), job);
+        } catch (IOException e) {
+            logger.warn("Could not persist ingestion job for {}: {}", job.getFilename(), e.getMessage());
+        }
+    }
+
+    // Jobs that did not finish before the last shutdown run again, in submission order
+    private void resumePending() {
+        Path queueDir = jobPath("").getParent();
+        if (!Files.isDirectory(queueDir)) {
+            return;
+        }
+        List<IngestionJob> pending = new ArrayList<>();
+        try (Stream<Path> files = Files.list(queueDir)) {
+            files.filter(path -> path.toString().endsWith(".json")).forEach(path -> {
+                try {
+                    pending.add(objectMapper.readValue(path.toFile(), IngestionJob.class));
+                } catch (IOException e) {
+                    logger.warn("Dropping unreadable ingestion job {}: {}", path.getFileName(), e.getMessage());
+                    path.toFile().delete();
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Could not read pending ingestion jobs: {}", e.getMessage());
+            return;
+        }
+        pending.sort(Comparator.comparing(IngestionJob::getSubmittedAt, Comparator.nullsFirst(Comparator.naturalOrder())));
+        for (IngestionJob job : pending) {
+            job.setStatus(IngestionJob.Status.QUEUED);
+            job.setStartedAt(null);
+            synchronized (jobs) {
+                jobs.put(job.getId(), job);
+                queuedByFile.put(job.getFilename(), job);
+            }
+            enqueue(job);
+        }
+        if (!pending.isEmpty()) {
+            logger.info("Resumed {} pending ingestion jobs", pending.size());
+        }
+    }
+
+    private Path jobPath(String id) {
+        return Paths.get(knowledgeStorePath, PageIndexService.INTERNAL_DIR, QUEUE_DIR, id + ".json");
+    }
+
+    private static boolean isFinished(IngestionJob job) {
+        return job.getStatus() == IngestionJob.Status.COMPLETED || job.getStatus() == IngestionJob.Status.FAILED;
+    }
+
+    // Shows the stage a running job is in
+    private final class StageListener implements ProgressListener {
+        private final IngestionJob job;
+
+        StageListener(IngestionJob job) {
+            this.job = job;
+        }
+
+        @Override
+        public void onProgress(long completed, long total, String message) {
+            synchronized (jobs) {
+                job.setStage(message);
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return executor.isShutdown();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.korshak.mcpserver.service;
+
+import java.util.*;
+
+/**
+ * Case-insensitive multi-pattern matcher (Aho-Corasick). Finds every occurrence
+ * of every pattern in a single pass over the text, so callers that test a
+ * document for dozens of keywords do not rescan it once per keyword. Instances
+ * are immutable and can be shared between threads.
+ */
+public final class KeywordScanner {
+
+    // Latin and Cyrillic characters are looked up directly, the rest by binary search
+    private static final int DIRECT_RANGE = 0x500;
+
+    private final List<String> patterns;
+    private final Map<String, Integer> patternIds = new HashMap<>();
+    private final char[] alphabet;
+    private final int[] directColumns = new int[DIRECT_RANGE];
+    private final int[] transitions;
+    private final int[][] outputs;
+
+    public KeywordScanner(Collection<String> keywords) {
+        this.patterns = new ArrayList<>(new LinkedHashSet<>(keywords));
+        for (int i = 0; i < patterns.size(); i++) {
+            if (patterns.get(i).isEmpty()) {
+                throw new IllegalArgumentException("Empty keyword");
+            }
+            patternIds.put(patterns.get(i), i);
+        }
+
+        // Compact alphabet: only characters that occur in a pattern get a column
+        SortedSet<Character> chars = new TreeSet<>();
+        for (String pattern : patterns) {
+            for (char c : pattern.toCharArray()) {
+                chars.add(Character.toLowerCase(c));
+            }
+        }
+        alphabet = new char[chars.size()];
+        int index = 0;
+        for (char c : chars) {
+            alphabet[index++] = c;
+        }
+        // Direct lookup table with case folding built in
+        for (char c = 0; c < DIRECT_RANGE; c++) {
+            directColumns[c] = Math.max(-1, Arrays.binarySearch(alphabet, Character.toLowerCase(c)));
+        }
+
+        // Trie
+        List<int[]> trie = new ArrayList<>();
+        List<List<Integer>> nodeOutputs = new ArrayList<>();
+        trie.add(newRow());
+        nodeOutputs.add(new ArrayList<>());
+        for (int id = 0; id < patterns.size(); id++) {
+            int node = 0;
+            for (char c : patterns.get(id).toCharArray()) {
+                int column = column(c);
+                if (trie.get(node)[column] < 0) {
+                    trie.get(node)[column] = trie.size();
+                    trie.add(newRow());
+                    nodeOutputs.add(new ArrayList<>());
+                }
+                node = trie.get(node)[column];
+            }
+            nodeOutputs.get(node).add(id);
+        }
+
+        // Breadth-first failure links, folded into a complete transition table
+        int width = alphabet.length;
+        transitions = new int[trie.size() * width];
+        int[] failure = new int[trie.size()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int column = 0; column < width; column++) {
+            int child = trie.get(0)[column];
+            if (child < 0) {
+                transitions[column] = 0;
+            } else {
+                transitions[column] = child;
+                failure[child] = 0;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            nodeOutputs.get(node).addAll(nodeOutputs.get(failure[node]));
+            for (int column = 0; column < width; column++) {
+                int child = trie.get(node)[column];
+                int fallback = transitions[failure[node] * width + column];
+                if (child < 0) {
+                    transitions[node * width + column] = fallback;
+                } else {
+                    transitions[node * width + column] = child;
+                    failure[child] = fallback;
+                    queue.add(child);
+                }
+            }
+        }
+
+        outputs = new int[trie.size()][];
+        for (int node = 0; node < outputs.length; node++) {
+            outputs[node] = nodeOutputs.get(node).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    public List<String> getPatterns() {
+        return Collections.unmodifiableList(patterns);
+    }
+
+    /**
+     * Scan the text once, recording the start offset of every match.
+     * Characters are compared after {@link Character#toLowerCase(char)}, so
+     * offsets refer to the original text.
+     */
+    public Matches scan(CharSequence text) {
+        int width = alphabet.length;
+        int[][] positions = new int[patterns.size()][];
+        int[] counts = new int[patterns.size()];
+
+        int node = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            int column = column(text.charAt(i));
+            if (column < 0) {
+                node = 0;
+                continue;
+            }
+            node = transitions[node * width + column];
+            for (int id : outputs[node]) {
+                int[] found = positions[id];
+                if (found == null) {
+                    found = positions[id] = new int[4];
+                } else if (counts[id] == found.length) {
+                    found = positions[id] = Arrays.copyOf(found, found.length * 2);
+                }
+                found[counts[id]++] = i - patterns.get(id).length() + 1;
+            }
+        }
+        return new Matches(positions, counts);
+    }
+
+    private int[] newRow() {
+        int[] row = new int[alphabet.length];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private int column(char c) {
+        if (c < DIRECT_RANGE) {
+            return directColumns[c];
+        }
+        int column = Arrays.binarySearch(alphabet, Character.toLowerCase(c));
+        return column >= 0 ? column : -1;
+    }
+
+    /**
+     * Result of one scan.
+     */
+    public final class Matches {
+        private final int[][] positions;
+        private final int[] counts;
+
+        private Matches(int[][] positions, int[] counts) {
+            this.positions = positions;
+            this.counts = counts;
+        }
+
+        public boolean contains(String keyword) {
+            return count(keyword) > 0;
+        }
+
+        public boolean containsAny(String... keywords) {
+            for (String keyword : keywords) {
+                if (contains(keyword)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public int count(String keyword) {
+            return counts[id(keyword)];
+        }
+
+        /**
+         * Start offsets of the keyword's matches, in text order.
+         */
+        public int[] positions(String keyword) {
+            int id = id(keyword);
+            return counts[id] == 0 ? new int[0] : Arrays.copyOf(positions[id], counts[id]);
+        }
+
+        private int id(String keyword) {
+            Integer id = patternIds.get(keyword);
+            if (id == null) {
+                throw new IllegalArgumentException("Keyword not registered with this scanner: " + keyword);
+            }
+            return id;
+        }
+    }
+}
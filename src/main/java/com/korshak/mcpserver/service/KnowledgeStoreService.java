@@ -1,27 +1,49 @@
 package com.korshak.mcpserver.service;
 
+import com.korshak.mcpserver.jfr.DefinitionExtractionEvent;
+import com.korshak.mcpserver.jfr.ExtractionEvent;
+import com.korshak.mcpserver.jfr.SearchEvent;
 import com.korshak.mcpserver.model.FileMetadata;
+import com.korshak.mcpserver.model.IngestionJob;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.apache.tika.Tika;
+import org.apache.tika.detect.DefaultDetector;
 import org.apache.tika.exception.TikaException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 
 import jakarta.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 @Service
@@ -32,17 +54,94 @@ public class KnowledgeStoreService {
     @Value("${knowledge.store.path:./knowledgeStore}")
     private String knowledgeStorePath;
     
+    @Value("${knowledge.stream.chunk-chars:65536}")
+    private int streamChunkChars;
+    
+    @Value("${knowledge.stream.pdf-pages-per-chunk:10}")
+    private int streamPdfPagesPerChunk;
+    
+    @Value("${knowledge.batch.parallelism:4}")
+    private int batchParallelism;
+    
+    @Value("${knowledge.text-cache.max-chars:16000000}")
+    private long textCacheMaxChars;
+    
+    @Value("${knowledge.similarity.threshold:0.8}")
+    private double similarityThreshold;
+    
     @Autowired
     private MetadataService metadataService;
     
-    private final Tika tika = new Tika();
+    @Autowired
+    private StrategyCatalogService strategyCatalogService;
+    
+    @Autowired
+    private PageIndexService pageIndexService;
+    
+    @Autowired
+    private MetricsService metricsService;
+    
+    @Autowired
+    private ContentStore contentStore;
+    
+    @Autowired
+    private MinHashIndex minHashIndex;
+    
+    // Looked up when used: the ingestion workers call back into this service
+    @Autowired
+    private ObjectProvider<IngestionService> ingestionService;
+    
+    private static final int INGEST_STAGES = 5;
+    private static final int LARGE_TEXT_CHARS = 50000;
+    
+    // Every keyword the strategy heuristics look for, matched in one pass over a document
+    static final KeywordScanner STRATEGY_KEYWORDS = new KeywordScanner(List.of(
+        "rsi", "relative strength", "oversold", "overbought", "< 30", "below 30", "> 70", "above 70",
+        "moving average", "ma", "sma", "ema", "price >", "price <", "above", "below",
+        "volume", "объем", "stop loss", "stop-loss", "stop", "take profit", "target", "profit", "%",
+        "exit", "risk", "position"));
+    
+    // Built on first use: the full parser set loads hundreds of classes, which
+    // would otherwise be paid by every stdin session at startup
+    private volatile Tika tika;
+    private volatile Tika detector;
     private final ObjectMapper objectMapper = new ObjectMapper();
     
+    private ExtractedTextCache textCache;
+    
     @PostConstruct
     public void init() {
+        textCache = new ExtractedTextCache(textCacheMaxChars);
         metadataService.loadMetadata();
     }
     
+    private Tika tika() {
+        Tika instance = tika;
+        if (instance == null) {
+            synchronized (this) {
+                if (tika == null) {
+                    tika = new Tika();
+                }
+                instance = tika;
+            }
+        }
+        return instance;
+    }
+    
+    // MIME detection only needs the detectors, not the parsers
+    private Tika detector() {
+        Tika instance = detector;
+        if (instance == null) {
+            synchronized (this) {
+                if (detector == null) {
+                    detector = tika != null ? tika : new Tika(new DefaultDetector());
+                }
+                instance = detector;
+            }
+        }
+        return instance;
+    }
+    
     public List<String> listFiles() {
         List<String> files = new ArrayList<>();
         try {
@@ -52,8 +151,10 @@ public class KnowledgeStoreService {
                 return files;
             }
             
+            Path internalDir = storePath.resolve(PageIndexService.INTERNAL_DIR);
             try (Stream<Path> paths = Files.walk(storePath)) {
                 paths.filter(Files::isRegularFile)
+                     .filter(path -> !path.startsWith(internalDir))
                      .forEach(path -> files.add(path.toString()));
             }
         } catch (IOException e) {
@@ -63,6 +164,14 @@ public class KnowledgeStoreService {
     }
     
     public String readFile(String filename) {
+        return readFile(filename, ProgressListener.NONE);
+    }
+    
+    /**
+     * Read a file, giving up between PDF pages once {@code listener} reports the
+     * request as cancelled.
+     */
+    public String readFile(String filename, ProgressListener listener) {
         try {
             Path filePath = Paths.get(knowledgeStorePath, filename);
             if (!Files.exists(filePath)) {
@@ -74,39 +183,212 @@ public class KnowledgeStoreService {
             
             String extension = FilenameUtils.getExtension(filename).toLowerCase();
             
-            switch (extension) {
-                case "pdf":
-                    return readPdfFile(filePath);
-                case "txt":
-                case "md":
-                    return Files.readString(filePath);
-                case "rtf":
-                    return readWithTika(filePath); // RTF handled by Tika
-                case "jpg":
-                case "jpeg":
-                case "png":
-                case "gif":
-                    return readImageFile(filePath);
-                default:
-                    return readWithTika(filePath);
+            long start = System.nanoTime();
+            try {
+                switch (extension) {
+                    case "txt":
+                    case "md":
+                        metricsService.recordExtraction(parserFor(extension));
+                        String content = Files.readString(filePath);
+                        minHashIndex.add(storeName(filePath), contentStore.hash(filePath), content);
+                        return content;
+                    case "jpg":
+                    case "jpeg":
+                    case "png":
+                    case "gif":
+                        metricsService.recordExtraction(parserFor(extension));
+                        return readImageFile(filePath);
+                    default:
+                        // PDF via PDFBox; RTF and everything else via Tika
+                        return extractText(filePath, extension, listener);
+                }
+            } finally {
+                listener.onExtraction(System.nanoTime() - start);
             }
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error reading file: " + filename, e);
             return "Error reading file: " + e.getMessage();
         }
     }
     
-    private String readPdfFile(Path filePath) throws IOException {
+    /**
+     * Extract the text of a file into the extracted-text cache without counting
+     * it as an access, for warm-up. Returns false when there was nothing to do.
+     */
+    public boolean preloadText(String filename, ProgressListener listener) throws IOException {
+        Path filePath = Paths.get(knowledgeStorePath, filename);
+        String extension = FilenameUtils.getExtension(filename).toLowerCase();
+        if (!Files.isRegularFile(filePath) || !isCachedFormat(extension)
+                || textCache.contains(contentStore.hash(filePath))) {
+            return false;
+        }
+        extractText(filePath, extension, listener);
+        return true;
+    }
+    
+    /**
+     * A document of the store as it is on disk, for serving its bytes, or null
+     * when there is no such file.
+     * @throws IllegalArgumentException for names outside the store or inside its {@code .mcp} directory
+     */
+    public Path storedFile(String filename) {
+        Path filePath = resolveInStore(filename);
+        return Files.isRegularFile(filePath) ? filePath : null;
+    }
+    
+    /**
+     * A file holding the UTF-8 text of a document, for serving it as is: the
+     * document itself for plain text and Markdown, otherwise the text stored in
+     * the content store, extracted first if needed. Null when there is no such file.
+     */
+    public Path extractedTextFile(String filename, ProgressListener listener) throws IOException {
+        Path filePath = storedFile(filename);
+        if (filePath == null) {
+            return null;
+        }
+        String extension = FilenameUtils.getExtension(filename).toLowerCase();
+        String parser = parserFor(extension);
+        if (parser.equals("text")) {
+            return filePath;
+        }
+        
+        String hash = contentStore.hash(filePath);
+        Path textPath = contentStore.artifactPath(ContentStore.TEXT, hash, ".txt");
+        if (!Files.exists(textPath)) {
+            if (parser.equals("image")) {
+                contentStore.writeText(hash, readImageFile(filePath));
+            } else {
+                String text = extractText(filePath, extension, listener);
+                if (text.startsWith("Error")) {
+                    throw new IOException(text);
+                }
+            }
+        }
+        if (!Files.exists(textPath)) {
+            throw new IOException("Extracted text of " + filename + " could not be stored");
+        }
+        return textPath;
+    }
+    
+    public String contentHash(Path filePath) throws IOException {
+        return contentStore.hash(filePath);
+    }
+    
+    // A name in the store, never the store itself or the server's own directory in it
+    private Path resolveInStore(String filename) {
+        Path storePath = Paths.get(knowledgeStorePath).toAbsolutePath().normalize();
+        Path filePath = storePath.resolve(filename).normalize();
+        if (!filePath.startsWith(storePath) || filePath.equals(storePath)
+                || storePath.relativize(filePath).startsWith(PageIndexService.INTERNAL_DIR)) {
+            throw new IllegalArgumentException("Invalid file name: " + filename);
+        }
+        return filePath;
+    }
+    
+    /**
+     * Build the Tika parser set now rather than on the first document that needs it.
+     */
+    public void preloadParsers() {
+        tika();
+    }
+    
+    // Formats worth caching: extracted by a parser rather than read as is
+    private static boolean isCachedFormat(String extension) {
+        String parser = parserFor(extension);
+        return parser.equals("pdfbox") || parser.equals("tika");
+    }
+    
+    // Memory first, then the text stored for the same content by an earlier extraction
+    private String extractText(Path filePath, String extension, ProgressListener listener) throws IOException {
+        String hash = contentStore.hash(filePath);
+        String cached = textCache.get(hash);
+        if (cached == null) {
+            cached = contentStore.readText(hash);
+            if (cached != null) {
+                textCache.put(hash, cached);
+            }
+        }
+        metricsService.recordCacheAccess("extracted-text", cached != null);
+        if (cached != null) {
+            minHashIndex.add(storeName(filePath), hash, cached);
+            return cached;
+        }
+        
+        metricsService.recordExtraction(parserFor(extension));
+        String text = "pdf".equals(extension) ? extractPdf(filePath, hash, listener) : readWithTika(filePath);
+        // Not stored if the file changed while it was being parsed
+        if (!text.startsWith("Error reading file with Tika") && hash.equals(contentStore.hash(filePath))) {
+            textCache.put(hash, text);
+            contentStore.writeText(hash, text);
+            minHashIndex.add(storeName(filePath), hash, text);
+        }
+        return text;
+    }
+    
+    private void addStoredSignature(Path filePath) {
+        try {
+            minHashIndex.addStored(storeName(filePath), contentStore.hash(filePath));
+        } catch (IOException e) {
+            logger.debug("No similarity signature for {}: {}", filePath, e.getMessage());
+        }
+    }
+    
+    // Name of a file relative to the store, as tools refer to it
+    private String storeName(Path filePath) {
+        return Paths.get(knowledgeStorePath).toAbsolutePath().normalize()
+            .relativize(filePath.toAbsolutePath().normalize()).toString();
+    }
+    
+    // Extractor that handles a file type, as reported in metrics
+    private static String parserFor(String extension) {
+        switch (extension) {
+            case "pdf":
+                return "pdfbox";
+            case "txt":
+            case "md":
+                return "text";
+            case "jpg":
+            case "jpeg":
+            case "png":
+            case "gif":
+                return "image";
+            default:
+                return "tika";
+        }
+    }
+    
+    // Page by page, so the pass that produces the stored text also builds the page index
+    private String extractPdf(Path filePath, String hash, ProgressListener listener) throws IOException {
+        PageIndexService.Builder pageIndex = pageIndexService.newIndex(storeName(filePath), hash);
+        StringBuilder text = new StringBuilder();
+        ExtractionEvent event = new ExtractionEvent();
+        event.begin();
         try (PDDocument document = PDDocument.load(filePath.toFile())) {
+            int pageCount = document.getNumberOfPages();
             PDFTextStripper stripper = new PDFTextStripper();
-            return stripper.getText(document);
+            for (int page = 1; page <= pageCount; page++) {
+                listener.checkCancelled();
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                String pageText = stripper.getText(document);
+                text.append(pageText);
+                pageIndex.addPage(pageText);
+            }
+        } finally {
+            commitExtraction(event, filePath, "pdfbox", text.length());
+        }
+        if (hash.equals(contentStore.hash(filePath))) {
+            pageIndex.save();
         }
+        return text.toString();
     }
     
     private String readImageFile(Path filePath) {
         try {
             // For images, we'll return metadata and a description
-            String mimeType = tika.detect(filePath.toFile());
+            String mimeType = detector().detect(filePath.toFile());
             long size = Files.size(filePath);
             
             return String.format("Image file: %s%nMIME Type: %s%nFile Size: %d bytes%n" +
@@ -119,29 +401,204 @@ public class KnowledgeStoreService {
     }
     
     private String readWithTika(Path filePath) {
+        ExtractionEvent event = new ExtractionEvent();
+        event.begin();
+        String text = null;
         try {
-            return tika.parseToString(filePath.toFile());
+            text = tika().parseToString(filePath.toFile());
+            return text;
         } catch (IOException | TikaException e) {
             logger.error("Error reading file with Tika", e);
             return "Error reading file with Tika: " + e.getMessage();
+        } finally {
+            commitExtraction(event, filePath, "tika", text != null ? text.length() : 0);
+        }
+    }
+    
+    // Fields are only filled in when a recording actually wants the event
+    private static void commitExtraction(ExtractionEvent event, Path filePath, String parser, long resultChars) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = filePath.getFileName().toString();
+            event.parser = parser;
+            event.bytes = filePath.toFile().length();
+            event.resultChars = resultChars;
+            event.commit();
+        }
+    }
+    
+    /**
+     * Read a file and hand its text to {@code chunkConsumer} piece by piece as it is
+     * extracted, so callers can forward the beginning of a large document before the
+     * rest has been parsed. PDFs are emitted a few pages at a time, plain text in
+     * fixed-size character blocks, and other formats as Tika's reader produces them.
+     * Errors are delivered as a single chunk, mirroring {@link #readFile(String)}.
+     * @return number of characters emitted
+     */
+    public long readFileInChunks(String filename, Consumer<String> chunkConsumer, ProgressListener listener) {
+        try {
+            Path filePath = Paths.get(knowledgeStorePath, filename);
+            if (!Files.exists(filePath)) {
+                String message = "File not found: " + filename;
+                chunkConsumer.accept(message);
+                return message.length();
+            }
+            
+            metadataService.updateFileAccess(filename);
+            
+            String extension = FilenameUtils.getExtension(filename).toLowerCase();
+            metricsService.recordExtraction(parserFor(extension));
+            
+            switch (extension) {
+                case "pdf":
+                    return streamPdfFile(filePath, chunkConsumer, listener);
+                case "txt":
+                case "md":
+                    try (Reader reader = Files.newBufferedReader(filePath, StandardCharsets.UTF_8)) {
+                        return streamReader(reader, chunkConsumer, listener);
+                    }
+                case "jpg":
+                case "jpeg":
+                case "png":
+                case "gif":
+                    String imageInfo = readImageFile(filePath);
+                    chunkConsumer.accept(imageInfo);
+                    return imageInfo.length();
+                default:
+                    ExtractionEvent event = new ExtractionEvent();
+                    event.begin();
+                    long characters = 0;
+                    try (Reader reader = tika().parse(filePath.toFile())) {
+                        characters = streamReader(reader, chunkConsumer, listener);
+                        return characters;
+                    } finally {
+                        commitExtraction(event, filePath, "tika", characters);
+                    }
+            }
+        } catch (CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error streaming file: " + filename, e);
+            String message = "Error reading file: " + e.getMessage();
+            chunkConsumer.accept(message);
+            return message.length();
         }
     }
     
+    private long streamPdfFile(Path filePath, Consumer<String> chunkConsumer,
+                               ProgressListener listener) throws IOException {
+        long characters = 0;
+        ExtractionEvent event = new ExtractionEvent();
+        event.begin();
+        try (PDDocument document = PDDocument.load(filePath.toFile())) {
+            int pageCount = document.getNumberOfPages();
+            int pagesPerChunk = Math.max(1, streamPdfPagesPerChunk);
+            PDFTextStripper stripper = new PDFTextStripper();
+            
+            for (int startPage = 1; startPage <= pageCount; startPage += pagesPerChunk) {
+                listener.checkCancelled();
+                stripper.setStartPage(startPage);
+                stripper.setEndPage(Math.min(pageCount, startPage + pagesPerChunk - 1));
+                String text = stripper.getText(document);
+                if (!text.isEmpty()) {
+                    chunkConsumer.accept(text);
+                    characters += text.length();
+                }
+            }
+        } finally {
+            commitExtraction(event, filePath, "pdfbox", characters);
+        }
+        return characters;
+    }
+    
+    private long streamReader(Reader reader, Consumer<String> chunkConsumer,
+                              ProgressListener listener) throws IOException {
+        char[] buffer = new char[Math.max(1024, streamChunkChars)];
+        long characters = 0;
+        int filled = 0;
+        int read;
+        
+        while ((read = reader.read(buffer, filled, buffer.length - filled)) != -1) {
+            filled += read;
+            if (filled == buffer.length) {
+                listener.checkCancelled();
+                chunkConsumer.accept(new String(buffer, 0, filled));
+                characters += filled;
+                filled = 0;
+            }
+        }
+        if (filled > 0) {
+            chunkConsumer.accept(new String(buffer, 0, filled));
+            characters += filled;
+        }
+        return characters;
+    }
+    
     public String searchFiles(String query) {
-        List<String> results = new ArrayList<>();
+        return searchFiles(query, ProgressListener.NONE);
+    }
+    
+    public String searchFiles(String query, ProgressListener listener) {
+        return searchFiles(query, false, listener);
+    }
+    
+    /**
+     * Search file contents. With {@code collapseDuplicates}, a match that is a
+     * near-duplicate of an earlier match is listed under it instead of on its own.
+     */
+    public String searchFiles(String query, boolean collapseDuplicates, ProgressListener listener) {
+        Map<String, String> matched = new LinkedHashMap<>();
+        Map<String, List<String>> folded = new HashMap<>();
         List<String> files = listFiles();
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        int scanned = 0;
         
-        for (String file : files) {
-            String content = readFile(Paths.get(file).getFileName().toString());
-            if (content.toLowerCase().contains(query.toLowerCase())) {
-                results.add(file + " - Content matches query");
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                listener.checkCancelled();
+                String file = files.get(i);
+                String filename = storeName(Paths.get(file));
+                String content = readFile(filename, listener);
+                if (content.toLowerCase().contains(query.toLowerCase())) {
+                    String original = collapseDuplicates
+                        ? minHashIndex.duplicateOf(filename, matched.keySet(), similarityThreshold) : null;
+                    if (original != null) {
+                        folded.computeIfAbsent(original, key -> new ArrayList<>()).add(filename);
+                    } else {
+                        matched.put(filename, file);
+                    }
+                }
+                scanned++;
+                listener.onProgress(i + 1, files.size(), "Searched " + filename);
+            }
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.query = query;
+                event.filesScanned = scanned;
+                event.matches = matched.size();
+                event.commit();
             }
         }
         
+        List<String> results = new ArrayList<>();
+        matched.forEach((filename, file) -> {
+            List<String> duplicates = folded.get(filename);
+            results.add(file + " - Content matches query"
+                + (duplicates != null ? " (near-duplicates: " + String.join(", ", duplicates) + ")" : ""));
+        });
+        
         return results.isEmpty() ? "No files found matching query: " + query : 
                "Files matching query '" + query + "':\n" + String.join("\n", results);
     }
     
+    /**
+     * Attributes of a stored file. Cheap enough to answer inline: the content
+     * hash and duplicates are the ones already known from writes, uploads,
+     * ingestion and the start-up index, and are left out for a file that has
+     * not been hashed yet.
+     */
     public Map<String, Object> getFileInfo(String filename) {
         Map<String, Object> info = new HashMap<>();
         try {
@@ -154,9 +611,15 @@ public class KnowledgeStoreService {
             info.put("filename", filename);
             info.put("size", Files.size(filePath));
             info.put("lastModified", Files.getLastModifiedTime(filePath).toString());
-            info.put("mimeType", tika.detect(filePath.toFile()));
+            info.put("mimeType", detector().detect(filePath.toFile()));
             info.put("extension", FilenameUtils.getExtension(filename));
             
+            String hash = contentStore.knownHash(filePath);
+            if (hash != null) {
+                info.put("contentHash", hash);
+                info.put("duplicates", findDuplicates(filePath, hash));
+            }
+            
         } catch (IOException e) {
             logger.error("Error getting file info", e);
             info.put("error", "Error getting file info: " + e.getMessage());
@@ -173,15 +636,24 @@ public class KnowledgeStoreService {
                 Files.createDirectories(parentDir);
             }
             
-            Files.writeString(filePath, content);
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            Files.write(filePath, bytes);
+            MessageDigest digest = ContentStore.newDigest();
+            digest.update(bytes);
+            String hash = ContentStore.toHex(digest);
+            contentStore.record(filePath, hash);
             
-            // Update or create metadata
+            // Update or create metadata; tokens, language and indexes follow from ingestion
             FileMetadata metadata = metadataService.getOrCreateMetadata(filename);
-            metadata.setSize(content.length());
-            metadata.setEstimatedTokens(estimateTokens(content));
-            metadata.setLargeFile(content.length() > 50000);
+            metadata.setContentHash(hash);
+            metadata.setSize(bytes.length);
             metadataService.updateMetadata(filename, metadata);
             
+            if (StrategyCatalogService.isStrategyFile(filename)) {
+                strategyCatalogService.reload(filename);
+            }
+            ingestionService.getObject().submit(filename);
+            
             return "File written successfully: " + filename;
         } catch (IOException e) {
             logger.error("Error writing file", e);
@@ -189,6 +661,223 @@ public class KnowledgeStoreService {
         }
     }
     
+    /**
+     * Save an uploaded file, hashing it as it is copied to the store.
+     */
+    public String storeUpload(String filename, InputStream content) {
+        try {
+            storeStream(filename, Channels.newChannel(content));
+            logger.info("File uploaded successfully: {}", filename);
+            return "File uploaded successfully: " + filename;
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Error uploading file", e);
+            return "Error uploading file: " + e.getMessage();
+        }
+    }
+    
+    /**
+     * Write {@code content} to the store as {@code filename}, computing its
+     * hash, size and MIME type in the same pass, and record them in the
+     * metadata, then queue its ingestion.
+     * @return filename, size, contentHash, mimeType, and the ingestion jobId and status
+     */
+    public Map<String, Object> storeStream(String filename, ReadableByteChannel content) throws IOException {
+        Map<String, Object> info = storeFile(filename, content);
+        IngestionJob job = ingestionService.getObject().submit(filename);
+        info.put("jobId", job.getId());
+        info.put("status", job.getStatus());
+        return info;
+    }
+    
+    /**
+     * {@link #storeStream} without queueing the ingestion, for callers that
+     * store many files and submit their jobs together.
+     * @return filename, size, contentHash and mimeType
+     */
+    Map<String, Object> storeFile(String filename, ReadableByteChannel content) throws IOException {
+        Path filePath = resolveInStore(filename);
+        ContentStore.Stored stored = contentStore.store(content, filePath);
+        String mimeType;
+        try (InputStream head = new ByteArrayInputStream(stored.getHead())) {
+            mimeType = detector().detect(head, filePath.getFileName().toString());
+        }
+        
+        FileMetadata metadata = metadataService.getOrCreateMetadata(filename);
+        metadata.setContentHash(stored.getHash());
+        metadata.setSize(stored.getSize());
+        metadata.setMimeType(mimeType);
+        metadata.setLastModified(LocalDateTime.ofInstant(
+            Files.getLastModifiedTime(filePath).toInstant(), ZoneId.systemDefault()));
+        metadataService.updateMetadata(filename, metadata);
+        
+        if (StrategyCatalogService.isStrategyFile(filename)) {
+            strategyCatalogService.reload(filename);
+        }
+        
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("filename", filename);
+        info.put("size", stored.getSize());
+        info.put("contentHash", stored.getHash());
+        info.put("mimeType", mimeType);
+        return info;
+    }
+    
+    /**
+     * Work out everything derived from a stored file's content: extracted text
+     * in the content store, language, token estimate, definitions, similarity
+     * signature and, for PDFs, the page index. Run by {@link IngestionService};
+     * does not count as an access. Stages are reported through {@code listener}.
+     */
+    public void ingest(String filename, ProgressListener listener) throws IOException {
+        Path filePath = Paths.get(knowledgeStorePath, filename);
+        if (!Files.isRegularFile(filePath)) {
+            throw new NoSuchFileException(filename);
+        }
+        String extension = FilenameUtils.getExtension(filename).toLowerCase();
+        String parser = parserFor(extension);
+        String hash = contentStore.hash(filePath);
+        
+        listener.onProgress(0, INGEST_STAGES, "extraction");
+        String text = null;
+        if (parser.equals("text")) {
+            text = Files.readString(filePath);
+        } else if (isCachedFormat(extension)) {
+            text = extractText(filePath, extension, listener);
+            if (text.startsWith("Error reading file with Tika")) {
+                throw new IOException(text);
+            }
+        }
+        
+        FileMetadata metadata = metadataService.getOrCreateMetadata(filename);
+        metadata.setContentHash(hash);
+        if (text != null) {
+            listener.onProgress(1, INGEST_STAGES, "language");
+            metadata.setLanguage(LanguageDetector.detect(text));
+            metadata.setEstimatedTokens(estimateTokens(text));
+            metadata.setLargeFile(text.length() > LARGE_TEXT_CHARS);
+            
+            listener.onProgress(2, INGEST_STAGES, "definitions");
+            definitionsOf(filePath, filename, text);
+            
+            listener.onProgress(3, INGEST_STAGES, "similarity");
+            minHashIndex.add(storeName(filePath), hash, text);
+        }
+        if (extension.equals("pdf")) {
+            listener.onProgress(4, INGEST_STAGES, "page-index");
+            pageIndexService.ensureIndex(filename, listener);
+        }
+        metadataService.updateMetadata(filename, metadata);
+        listener.onProgress(INGEST_STAGES, INGEST_STAGES, "done");
+    }
+    
+    // Definitions are stored with the content they came from, so scans skip the text next time
+    private Map<String, String> definitionsOf(Path filePath, String filename, String text) throws IOException {
+        Map<String, String> definitions = extractDefinitionsFromText(text, filename);
+        ObjectNode stored = objectMapper.createObjectNode();
+        stored.put("filename", filename);
+        stored.set("definitions", objectMapper.valueToTree(definitions));
+        contentStore.writeArtifact(definitionsPath(filePath), objectMapper.writeValueAsBytes(stored));
+        return definitions;
+    }
+    
+    // Definitions stored for the file's current content, or null. They name their source
+    // file, so ones found under another name are not reused.
+    private Map<String, String> storedDefinitions(Path filePath, String filename) {
+        try {
+            Path path = definitionsPath(filePath);
+            if (!Files.exists(path)) {
+                return null;
+            }
+            JsonNode stored = objectMapper.readTree(path.toFile());
+            if (!filename.equals(stored.path("filename").asText())) {
+                return null;
+            }
+            return objectMapper.convertValue(stored.path("definitions"), new TypeReference<Map<String, String>>() {});
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    private Path definitionsPath(Path filePath) throws IOException {
+        return contentStore.artifactPath(ContentStore.DEFINITIONS, contentStore.hash(filePath), ".json");
+    }
+    
+    /**
+     * Files whose text is estimated to share at least {@code threshold} of its
+     * word shingles with {@code filename} (default {@code knowledge.similarity.threshold}).
+     * Files not yet in the similarity index are indexed first.
+     */
+    public String findSimilarFiles(String filename, Double threshold, ProgressListener listener) {
+        Path filePath = Paths.get(knowledgeStorePath, filename);
+        if (!Files.exists(filePath)) {
+            return "File not found: " + filename;
+        }
+        double minimum = threshold != null ? threshold : similarityThreshold;
+        indexStore(listener);
+        
+        List<MinHashIndex.Match> matches = minHashIndex.similar(storeName(filePath), minimum);
+        String heading = String.format(Locale.ROOT, "%s (similarity >= %.2f)", filename, minimum);
+        if (matches.isEmpty()) {
+            return "No files similar to " + heading;
+        }
+        StringBuilder sb = new StringBuilder("Files similar to ").append(heading).append(":\n");
+        for (MinHashIndex.Match match : matches) {
+            sb.append(String.format(Locale.ROOT, "%s - %.2f%n", match.getName(), match.getSimilarity()));
+        }
+        return sb.toString();
+    }
+    
+    // Give every file with text a signature; only files new or changed since they were indexed are read
+    private void indexStore(ProgressListener listener) {
+        List<String> files = listFiles();
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < files.size(); i++) {
+            listener.checkCancelled();
+            Path filePath = Paths.get(files.get(i));
+            String name = storeName(filePath);
+            names.add(name);
+            String parser = parserFor(FilenameUtils.getExtension(name).toLowerCase());
+            if (parser.equals("image")) {
+                continue;
+            }
+            try {
+                String hash = contentStore.hash(filePath);
+                if (minHashIndex.isIndexed(name, hash) || minHashIndex.addStored(name, hash)) {
+                    continue;
+                }
+                if (parser.equals("text")) {
+                    minHashIndex.add(name, hash, Files.readString(filePath));
+                } else {
+                    extractText(filePath, FilenameUtils.getExtension(name).toLowerCase(), listener);
+                }
+                if (!minHashIndex.isIndexed(name, hash)) {
+                    // Unreadable: indexed without text so it is not retried on every call
+                    minHashIndex.add(name, hash, "");
+                }
+            } catch (CancellationException e) {
+                throw e;
+            } catch (Exception e) {
+                logger.warn("Not indexing {} for similarity: {}", name, e.getMessage());
+            }
+            listener.onProgress(i + 1, files.size(), "Indexed " + name);
+        }
+        minHashIndex.retain(names);
+    }
+    
+    // Other files in the store known to have the same bytes
+    private List<String> findDuplicates(Path filePath, String hash) {
+        Path storePath = Paths.get(knowledgeStorePath).toAbsolutePath().normalize();
+        Path self = filePath.toAbsolutePath().normalize();
+        List<String> duplicates = new ArrayList<>();
+        for (Path other : contentStore.filesWithHash(hash)) {
+            if (!other.equals(self) && other.startsWith(storePath)) {
+                duplicates.add(storePath.relativize(other).toString());
+            }
+        }
+        Collections.sort(duplicates);
+        return duplicates;
+    }
+    
     // New metadata-enhanced methods
     
     public List<FileMetadata> listFilesWithMetadata() {
@@ -196,8 +885,7 @@ public class KnowledgeStoreService {
         List<FileMetadata> filesWithMetadata = new ArrayList<>();
         
         for (String filename : filenames) {
-            String shortName = Paths.get(filename).getFileName().toString();
-            FileMetadata metadata = metadataService.getOrCreateMetadata(shortName);
+            FileMetadata metadata = metadataService.getOrCreateMetadata(storeName(Paths.get(filename)));
             filesWithMetadata.add(metadata);
         }
         
@@ -321,17 +1009,46 @@ public class KnowledgeStoreService {
      * @return Map where key is the term and value is the definition
      */
     public Map<String, String> getAllDefinitions() {
+        return getAllDefinitions(ProgressListener.NONE);
+    }
+    
+    public Map<String, String> getAllDefinitions(ProgressListener listener) {
+        return getAllDefinitions(false, listener);
+    }
+    
+    /**
+     * Definitions from every file. With {@code collapseDuplicates}, files that
+     * are near-duplicates of one already scanned are skipped.
+     */
+    public Map<String, String> getAllDefinitions(boolean collapseDuplicates, ProgressListener listener) {
         Map<String, String> definitions = new HashMap<>();
         List<String> files = listFiles();
+        Set<String> scanned = new HashSet<>();
         
-        for (String file : files) {
-            String filename = Paths.get(file).getFileName().toString();
-            String content = readFile(filename);
+        for (int i = 0; i < files.size(); i++) {
+            listener.checkCancelled();
+            Path filePath = Paths.get(files.get(i));
+            String filename = storeName(filePath);
+            Map<String, String> fileDefinitions = storedDefinitions(filePath, filename);
+            if (fileDefinitions == null) {
+                String content = readFile(filename, listener);
+                if (!content.startsWith("Error") && !content.startsWith("File not found")) {
+                    try {
+                        fileDefinitions = definitionsOf(filePath, filename, content);
+                    } catch (IOException e) {
+                        fileDefinitions = extractDefinitionsFromText(content, filename);
+                    }
+                }
+            } else if (collapseDuplicates) {
+                addStoredSignature(filePath);
+            }
             
-            if (!content.startsWith("Error") && !content.startsWith("File not found")) {
-                Map<String, String> fileDefinitions = extractDefinitionsFromText(content, filename);
+            if (fileDefinitions != null
+                    && !(collapseDuplicates && minHashIndex.duplicateOf(filename, scanned, similarityThreshold) != null)) {
+                scanned.add(filename);
                 definitions.putAll(fileDefinitions);
             }
+            listener.onProgress(i + 1, files.size(), "Scanned " + filename);
         }
         
         return definitions;
@@ -344,6 +1061,20 @@ public class KnowledgeStoreService {
      * @return Map of term -> definition pairs found in the text
      */
     private Map<String, String> extractDefinitionsFromText(String text, String filename) {
+        DefinitionExtractionEvent event = new DefinitionExtractionEvent();
+        event.begin();
+        Map<String, String> definitions = matchDefinitions(text, filename);
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = filename;
+            event.textChars = text != null ? text.length() : 0;
+            event.definitions = definitions.size();
+            event.commit();
+        }
+        return definitions;
+    }
+    
+    private Map<String, String> matchDefinitions(String text, String filename) {
         Map<String, String> definitions = new HashMap<>();
         
         if (text == null || text.trim().isEmpty()) {
@@ -514,73 +1245,330 @@ public class KnowledgeStoreService {
      * @return Result message indicating success or failure
      */
     public String extractStrategy(String fileName) {
-        try {
+        return extractStrategy(fileName, ProgressListener.NONE);
+    }
+    
+    public String extractStrategy(String fileName, ProgressListener listener) {
+        return extractStrategy(fileName, false, listener);
+    }
+    
+    /**
+     * With {@code sections}, a PDF is analyzed from the pages that mention
+     * strategy terms only (see {@link PageIndexService}); other formats are
+     * always read in full.
+     */
+    public String extractStrategy(String fileName, boolean sections, ProgressListener listener) {
+        // Access time, strategy file and its description go out in one metadata save
+        try (MetadataService.Batch batch = metadataService.beginBatch();
+             MetadataService.Scope scope = batch.enter()) {
             // Read the input file
-            String content = readFile(fileName);
-            if (content.startsWith("Error") || content.startsWith("File not found")) {
-                return "Cannot read input file: " + content;
+            listener.onProgress(0, 3, "Reading " + fileName);
+            SourceText source = readStrategySource(fileName, sections, listener);
+            if (source.text.startsWith("Error") || source.text.startsWith("File not found")) {
+                return "Cannot read input file: " + source.text;
             }
+            listener.checkCancelled();
+            listener.onProgress(1, 3, "Analyzing content");
             
-            // Create a basic strategy template
-            ObjectNode strategy = objectMapper.createObjectNode();
-            
-            // Generate strategy ID from filename and timestamp
-            String baseFileName = FilenameUtils.getBaseName(fileName);
-            String strategyId = baseFileName.toLowerCase().replaceAll("[^a-z0-9]", "-") + 
-                              "-" + System.currentTimeMillis();
-            
-            strategy.put("strategyId", strategyId);
-            strategy.put("name", extractStrategyName(content, baseFileName));
-            strategy.put("description", extractStrategyDescription(content));
-            
-            // Create conditions structure
-            ObjectNode conditions = objectMapper.createObjectNode();
-            ObjectNode entry = objectMapper.createObjectNode();
-            entry.set("long", objectMapper.createArrayNode());
-            entry.set("short", objectMapper.createArrayNode());
-            conditions.set("entry", entry);
-            
-            ObjectNode exit = objectMapper.createObjectNode();
-            conditions.set("exit", exit);
-            strategy.set("conditions", conditions);
-            
-            // Create indicators structure
-            ObjectNode indicators = objectMapper.createObjectNode();
-            indicators.set("required", objectMapper.createArrayNode());
-            indicators.set("optional", objectMapper.createArrayNode());
-            strategy.set("indicators", indicators);
-            
-            // Extract basic information from content
-            populateStrategyFromContent(strategy, content);
-            
-            // Generate output filename
-            String outputFileName = "strategy-" + baseFileName.toLowerCase() + ".json";
-            
-            // Write the strategy JSON file
-            String jsonString = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(strategy);
-            String writeResult = writeFile(outputFileName, jsonString);
+            StrategyDraft draft = buildStrategy(fileName, source.text);
+            listener.checkCancelled();
+            listener.onProgress(2, 3, "Writing " + draft.outputFileName);
             
+            String writeResult = saveStrategy(draft);
             if (writeResult.startsWith("Error")) {
                 return "Failed to write strategy file: " + writeResult;
             }
             
-            // Update metadata for the strategy file
-            updateFileMetadata(outputFileName, 
-                "Trading strategy generated from " + fileName, 
-                Arrays.asList("strategy", "trading", "json"),
-                "strategy",
-                "Auto-generated trading strategy based on " + fileName);
-            
-            return "Successfully created trading strategy file: " + outputFileName + 
-                   "\nStrategy ID: " + strategyId + 
-                   "\nBased on: " + fileName;
+            listener.onProgress(3, 3, "Done");
+            return "Successfully created trading strategy file: " + draft.outputFileName + 
+                   "\nStrategy ID: " + draft.strategyId + 
+                   "\nBased on: " + fileName +
+                   (source.pages != null ? "\n" + source.pages : "");
             
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error creating strategy from file: " + fileName, e);
             return "Error creating strategy: " + e.getMessage();
         }
     }
     
+    /**
+     * Extract strategies from every file matching all of the given filters (each
+     * may be null): metadata category, metadata tag, and a glob on the path
+     * relative to the store. Files are analyzed in parallel, the strategy files
+     * are written once all analysis is done, and metadata is saved once at the end.
+     */
+    public String extractStrategies(String category, String tag, String glob, ProgressListener listener) {
+        return extractStrategies(category, tag, glob, false, listener);
+    }
+    
+    public String extractStrategies(String category, String tag, String glob, boolean sections,
+                                    ProgressListener listener) {
+        List<String> fileNames = findStrategySources(category, tag, glob);
+        if (fileNames.isEmpty()) {
+            return "No files match the given filters";
+        }
+        
+        long started = System.nanoTime();
+        int parallelism = Math.max(1, Math.min(batchParallelism, fileNames.size()));
+        Map<String, BatchResult> results = new LinkedHashMap<>();
+        fileNames.forEach(fileName -> results.put(fileName, new BatchResult()));
+        
+        // Workers only see cancellation; progress is reported from this thread
+        ProgressListener workerListener = new ProgressListener() {
+            @Override
+            public void onProgress(long completed, long total, String message) {
+            }
+            
+            @Override
+            public boolean isCancelled() {
+                return listener.isCancelled();
+            }
+        };
+        
+        MetadataService.Batch batch = metadataService.beginBatch();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "strategy-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (MetadataService.Scope scope = batch.enter()) {
+            CompletionService<String> completion = new ExecutorCompletionService<>(executor);
+            for (String fileName : fileNames) {
+                BatchResult result = results.get(fileName);
+                completion.submit(() -> {
+                    long start = System.nanoTime();
+                    try (MetadataService.Scope workerScope = batch.enter()) {
+                        workerListener.checkCancelled();
+                        SourceText source = readStrategySource(fileName, sections, workerListener);
+                        result.pages = source.pages;
+                        if (source.text.startsWith("Error") || source.text.startsWith("File not found")) {
+                            result.error = "Cannot read input file: " + source.text;
+                        } else {
+                            result.draft = buildStrategy(fileName, source.text);
+                        }
+                    } catch (CancellationException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        logger.error("Error creating strategy from file: " + fileName, e);
+                        result.error = "Error creating strategy: " + e.getMessage();
+                    } finally {
+                        result.analyzeMillis = (System.nanoTime() - start) / 1_000_000;
+                    }
+                    return fileName;
+                });
+            }
+            
+            for (int done = 0; done < fileNames.size(); done++) {
+                String fileName = completion.take().get();
+                listener.onProgress(done + 1, fileNames.size() + 1, "Analyzed " + fileName);
+            }
+            
+            // Write all strategy files together once every file has been analyzed
+            listener.checkCancelled();
+            Set<String> written = new HashSet<>();
+            for (Map.Entry<String, BatchResult> entry : results.entrySet()) {
+                BatchResult result = entry.getValue();
+                if (result.draft == null) {
+                    continue;
+                }
+                if (!written.add(result.draft.outputFileName)) {
+                    result.error = "Duplicate output " + result.draft.outputFileName + ", skipped";
+                    result.draft = null;
+                    continue;
+                }
+                long start = System.nanoTime();
+                String writeResult = saveStrategy(result.draft);
+                result.writeMillis = (System.nanoTime() - start) / 1_000_000;
+                if (writeResult.startsWith("Error")) {
+                    result.error = "Failed to write strategy file: " + writeResult;
+                    result.draft = null;
+                }
+            }
+            listener.onProgress(fileNames.size() + 1, fileNames.size() + 1, "Wrote strategy files");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Operation cancelled");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException) {
+                throw (CancellationException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+            batch.close();
+        }
+        
+        return formatBatchReport(results, parallelism, (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    /**
+     * Text to analyze for a strategy; with {@code sections} a PDF is limited to
+     * its strategy pages and {@code pages} says how many of them were read.
+     */
+    private SourceText readStrategySource(String fileName, boolean sections, ProgressListener listener)
+            throws IOException {
+        Path filePath = Paths.get(knowledgeStorePath, fileName);
+        if (!sections || !"pdf".equalsIgnoreCase(FilenameUtils.getExtension(fileName)) || !Files.exists(filePath)) {
+            return new SourceText(readFile(fileName, listener), null);
+        }
+        metadataService.updateFileAccess(fileName);
+        PageIndexService.PageSelection selection = pageIndexService.readStrategyPages(fileName, listener);
+        return new SourceText(selection.getText(), "pages analyzed: " + selection.getPagesRead() + " of "
+            + selection.getPageCount() + (selection.isFromIndex() ? "" : ", page index built"));
+    }
+    
+    private List<String> findStrategySources(String category, String tag, String glob) {
+        Path storePath = Paths.get(knowledgeStorePath);
+        PathMatcher matcher = glob != null ? FileSystems.getDefault().getPathMatcher("glob:" + glob) : null;
+        
+        List<String> fileNames = new ArrayList<>();
+        for (String file : listFiles()) {
+            Path relative = storePath.relativize(Paths.get(file));
+            String fileName = relative.toString();
+            if (StrategyCatalogService.isStrategyFile(fileName) || fileName.equals("file-metadata.json")) {
+                continue;
+            }
+            if (matcher != null && !matcher.matches(relative)) {
+                continue;
+            }
+            if (category != null || tag != null) {
+                FileMetadata metadata = metadataService.getOrCreateMetadata(fileName);
+                if (category != null && !category.equalsIgnoreCase(metadata.getCategory())) {
+                    continue;
+                }
+                if (tag != null && (metadata.getTags() == null
+                        || metadata.getTags().stream().noneMatch(tag::equalsIgnoreCase))) {
+                    continue;
+                }
+            }
+            fileNames.add(fileName);
+        }
+        Collections.sort(fileNames);
+        return fileNames;
+    }
+    
+    private String formatBatchReport(Map<String, BatchResult> results, int parallelism, long totalMillis) {
+        long succeeded = results.values().stream().filter(result -> result.draft != null).count();
+        StringBuilder sb = new StringBuilder();
+        sb.append("📊 Batch strategy extraction: ").append(results.size()).append(" files, ")
+          .append(succeeded).append(" succeeded, ").append(results.size() - succeeded).append(" failed in ")
+          .append(totalMillis).append(" ms (parallelism ").append(parallelism).append(")\n\n");
+        
+        results.forEach((fileName, result) -> {
+            if (result.draft != null) {
+                sb.append("✅ ").append(fileName).append(" → ").append(result.draft.outputFileName)
+                  .append(" (analyze ").append(result.analyzeMillis).append(" ms, write ")
+                  .append(result.writeMillis).append(" ms")
+                  .append(result.pages != null ? ", " + result.pages : "").append(")\n");
+            } else {
+                sb.append("❌ ").append(fileName).append(": ").append(result.error)
+                  .append(" (").append(result.analyzeMillis).append(" ms)\n");
+            }
+        });
+        return sb.toString();
+    }
+    
+    /**
+     * Build the strategy JSON for a document without writing anything.
+     */
+    private StrategyDraft buildStrategy(String fileName, String content) throws IOException {
+        // Create a basic strategy template
+        ObjectNode strategy = objectMapper.createObjectNode();
+        
+        // Generate strategy ID from filename and timestamp
+        String baseFileName = FilenameUtils.getBaseName(fileName);
+        String strategyId = baseFileName.toLowerCase().replaceAll("[^a-z0-9]", "-") + 
+                          "-" + System.currentTimeMillis();
+        
+        strategy.put("strategyId", strategyId);
+        strategy.put("name", extractStrategyName(content, baseFileName));
+        KeywordScanner.Matches keywords = STRATEGY_KEYWORDS.scan(content);
+        strategy.put("description", extractStrategyDescription(content, keywords));
+        
+        // Create conditions structure
+        ObjectNode conditions = objectMapper.createObjectNode();
+        ObjectNode entry = objectMapper.createObjectNode();
+        entry.set("long", objectMapper.createArrayNode());
+        entry.set("short", objectMapper.createArrayNode());
+        conditions.set("entry", entry);
+        
+        ObjectNode exit = objectMapper.createObjectNode();
+        conditions.set("exit", exit);
+        strategy.set("conditions", conditions);
+        
+        // Create indicators structure
+        ObjectNode indicators = objectMapper.createObjectNode();
+        indicators.set("required", objectMapper.createArrayNode());
+        indicators.set("optional", objectMapper.createArrayNode());
+        strategy.set("indicators", indicators);
+        
+        // Extract basic information from content
+        populateStrategyFromContent(strategy, keywords);
+        
+        // Classification used by the strategy catalog indexes
+        strategy.put("category", StrategyCatalogService.inferCategory(strategy));
+        strategy.put("riskLevel", StrategyCatalogService.inferRiskLevel(strategy));
+        
+        // Generate output filename
+        String outputFileName = "strategy-" + baseFileName.toLowerCase() + ".json";
+        String json = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(strategy);
+        return new StrategyDraft(fileName, outputFileName, strategyId, json);
+    }
+    
+    /**
+     * Write a strategy file and describe it in the metadata; returns the
+     * {@link #writeFile} result.
+     */
+    private String saveStrategy(StrategyDraft draft) {
+        String writeResult = writeFile(draft.outputFileName, draft.json);
+        if (writeResult.startsWith("Error")) {
+            return writeResult;
+        }
+        
+        // Update metadata for the strategy file
+        updateFileMetadata(draft.outputFileName, 
+            "Trading strategy generated from " + draft.sourceFile, 
+            Arrays.asList("strategy", "trading", "json"),
+            "strategy",
+            "Auto-generated trading strategy based on " + draft.sourceFile);
+        return writeResult;
+    }
+    
+    private static class StrategyDraft {
+        private final String sourceFile;
+        private final String outputFileName;
+        private final String strategyId;
+        private final String json;
+        
+        StrategyDraft(String sourceFile, String outputFileName, String strategyId, String json) {
+            this.sourceFile = sourceFile;
+            this.outputFileName = outputFileName;
+            this.strategyId = strategyId;
+            this.json = json;
+        }
+    }
+    
+    private static class SourceText {
+        private final String text;
+        private final String pages;
+        
+        SourceText(String text, String pages) {
+            this.text = text;
+            this.pages = pages;
+        }
+    }
+    
+    private static class BatchResult {
+        private volatile StrategyDraft draft;
+        private volatile String error;
+        private volatile String pages;
+        private volatile long analyzeMillis;
+        private long writeMillis;
+    }
+    
     /**
      * Extract strategy name from content or use filename as fallback
      */
@@ -624,40 +1612,42 @@ public class KnowledgeStoreService {
     /**
      * Extract strategy description from content - now generates concrete condition descriptions
      */
-    private String extractStrategyDescription(String content) {
+    String extractStrategyDescription(String content, KeywordScanner.Matches keywords) {
         StringBuilder description = new StringBuilder();
-        String lowerContent = content.toLowerCase();
         
         List<String> longConditions = new ArrayList<>();
         List<String> shortConditions = new ArrayList<>();
         List<String> exitConditions = new ArrayList<>();
         
+        boolean rsi = keywords.containsAny("rsi", "relative strength");
+        boolean movingAverage = keywords.containsAny("moving average", "sma", "ema");
+        
         // Analyze content for long entry conditions
-        if (lowerContent.contains("rsi") || lowerContent.contains("relative strength")) {
-            if (lowerContent.contains("oversold") || lowerContent.contains("< 30") || lowerContent.contains("below 30")) {
+        if (rsi) {
+            if (keywords.containsAny("oversold", "< 30", "below 30")) {
                 longConditions.add("RSI(14) < 30");
             }
         }
         
-        if (lowerContent.contains("moving average") || lowerContent.contains("sma") || lowerContent.contains("ema")) {
-            if (lowerContent.contains("price >") || lowerContent.contains("above")) {
+        if (movingAverage) {
+            if (keywords.containsAny("price >", "above")) {
                 longConditions.add("close price > SMA(50)");
             }
         }
         
-        if (lowerContent.contains("volume")) {
+        if (keywords.contains("volume")) {
             longConditions.add("volume > 1.5x SMA(20)");
         }
         
         // Analyze content for short entry conditions
-        if (lowerContent.contains("rsi") || lowerContent.contains("relative strength")) {
-            if (lowerContent.contains("overbought") || lowerContent.contains("> 70") || lowerContent.contains("above 70")) {
+        if (rsi) {
+            if (keywords.containsAny("overbought", "> 70", "above 70")) {
                 shortConditions.add("RSI(14) > 70");
             }
         }
         
-        if (lowerContent.contains("moving average") || lowerContent.contains("sma") || lowerContent.contains("ema")) {
-            if (lowerContent.contains("price <") || lowerContent.contains("below")) {
+        if (movingAverage) {
+            if (keywords.containsAny("price <", "below")) {
                 shortConditions.add("close price < SMA(50)");
             }
         }
@@ -676,15 +1666,12 @@ public class KnowledgeStoreService {
         }
         
         // Analyze exit conditions
-        if (lowerContent.contains("stop loss") || lowerContent.contains("stop-loss")) {
-            if (lowerContent.contains("%")) {
-                // Try to extract percentage
-                String[] words = content.split("\\s+");
-                for (int i = 0; i < words.length - 1; i++) {
-                    if (words[i].toLowerCase().contains("stop") && words[i+1].contains("%")) {
-                        exitConditions.add("stop loss at " + words[i+1] + " from entry");
-                        break;
-                    }
+        if (keywords.containsAny("stop loss", "stop-loss")) {
+            if (keywords.contains("%")) {
+                // Try to extract percentage from the word following "stop"
+                String percent = findPercentAfter(content, keywords.positions("stop"));
+                if (percent != null) {
+                    exitConditions.add("stop loss at " + percent + " from entry");
                 }
             }
             if (exitConditions.isEmpty()) {
@@ -692,14 +1679,11 @@ public class KnowledgeStoreService {
             }
         }
         
-        if (lowerContent.contains("take profit") || lowerContent.contains("target")) {
-            if (lowerContent.contains("%")) {
-                String[] words = content.split("\\s+");
-                for (int i = 0; i < words.length - 1; i++) {
-                    if (words[i].toLowerCase().contains("profit") && words[i+1].contains("%")) {
-                        exitConditions.add("take profit at " + words[i+1] + " above entry");
-                        break;
-                    }
+        if (keywords.containsAny("take profit", "target")) {
+            if (keywords.contains("%")) {
+                String percent = findPercentAfter(content, keywords.positions("profit"));
+                if (percent != null) {
+                    exitConditions.add("take profit at " + percent + " above entry");
                 }
             }
             if (exitConditions.stream().noneMatch(c -> c.contains("profit"))) {
@@ -708,11 +1692,11 @@ public class KnowledgeStoreService {
         }
         
         // Look for RSI exit conditions
-        if (lowerContent.contains("rsi") && lowerContent.contains("exit")) {
-            if (lowerContent.contains("> 70") || lowerContent.contains("above 70")) {
+        if (keywords.contains("rsi") && keywords.contains("exit")) {
+            if (keywords.containsAny("> 70", "above 70")) {
                 exitConditions.add("exit long when RSI(14) > 70");
             }
-            if (lowerContent.contains("< 30") || lowerContent.contains("below 30")) {
+            if (keywords.containsAny("< 30", "below 30")) {
                 exitConditions.add("exit short when RSI(14) < 30");
             }
         }
@@ -725,36 +1709,67 @@ public class KnowledgeStoreService {
         }
         
         // Add risk management if mentioned
-        if (lowerContent.contains("risk") && lowerContent.contains("position")) {
+        if (keywords.contains("risk") && keywords.contains("position")) {
             description.append("Risk management: limit position size and maintain risk-reward ratio.");
         }
         
         return description.toString();
     }
     
+    /**
+     * For each keyword match, in text order, look at the whitespace-separated
+     * word after the one containing it and return the first such word holding
+     * a '%'. Only the words around matches are inspected.
+     */
+    private static String findPercentAfter(String content, int[] matchPositions) {
+        int length = content.length();
+        for (int position : matchPositions) {
+            int next = position;
+            while (next < length && !isWordSeparator(content.charAt(next))) {
+                next++;
+            }
+            while (next < length && isWordSeparator(content.charAt(next))) {
+                next++;
+            }
+            // The following word, checked for '%' as it is walked
+            int end = next;
+            boolean percent = false;
+            char c;
+            while (end < length && !isWordSeparator(c = content.charAt(end))) {
+                percent |= c == '%';
+                end++;
+            }
+            if (percent) {
+                return content.substring(next, end);
+            }
+        }
+        return null;
+    }
+    
+    // Same characters as the regex \s used to split words
+    private static boolean isWordSeparator(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+    
     /**
      * Populate strategy with information extracted from content
      */
-    private void populateStrategyFromContent(ObjectNode strategy, String content) {
+    private void populateStrategyFromContent(ObjectNode strategy, KeywordScanner.Matches keywords) {
         // This is a basic implementation - can be enhanced to extract
         // actual conditions and indicators from text
         
-        // Look for common trading terms and create sample conditions
-        String lowerContent = content.toLowerCase();
-        
         // Add sample RSI condition if RSI is mentioned
-        if (lowerContent.contains("rsi") || lowerContent.contains("relative strength")) {
+        if (keywords.containsAny("rsi", "relative strength")) {
             addSampleRSICondition(strategy);
         }
         
         // Add sample moving average condition if MA is mentioned
-        if (lowerContent.contains("moving average") || lowerContent.contains("ma") || 
-            lowerContent.contains("sma") || lowerContent.contains("ema")) {
+        if (keywords.containsAny("moving average", "ma", "sma", "ema")) {
             addSampleMACondition(strategy);
         }
         
         // Add basic volume condition
-        if (lowerContent.contains("volume") || lowerContent.contains("объем")) {
+        if (keywords.containsAny("volume", "объем")) {
             addSampleVolumeCondition(strategy);
         }
     }
@@ -0,0 +1,80 @@
+package com.korshak.mcpserver.service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Guesses the language of a document from how often the most common function
+ * words of each language occur in its first words. Covers the languages the
+ * store's documents are written in; anything else is reported as unknown.
+ */
+public final class LanguageDetector {
+
+    private static final int SAMPLE_WORDS = 5000;
+    private static final int MIN_WORDS = 20;
+    // Share of sampled words that must be function words of the winning language
+    private static final double MIN_SHARE = 0.05;
+
+    private static final Map<String, Set<String>> FUNCTION_WORDS = new LinkedHashMap<>();
+
+    static {
+        FUNCTION_WORDS.put("en", Set.of("the", "and", "of", "to", "in", "is", "that", "for", "it", "with",
+            "as", "on", "are", "this", "be", "by", "or", "you", "at", "from"));
+        FUNCTION_WORDS.put("ru", Set.of("и", "в", "не", "на", "что", "с", "по", "это", "как", "а",
+            "к", "из", "у", "для", "то", "же", "от", "при", "или", "если"));
+        FUNCTION_WORDS.put("de", Set.of("der", "die", "und", "das", "ist", "nicht", "mit", "den", "ein", "zu",
+            "sich", "auf", "eine", "dem", "auch", "es", "für", "im", "von", "wird"));
+        FUNCTION_WORDS.put("fr", Set.of("le", "la", "les", "et", "des", "est", "une", "du", "que", "pour",
+            "dans", "qui", "pas", "sur", "au", "avec", "il", "ce", "par", "sont"));
+        FUNCTION_WORDS.put("es", Set.of("el", "la", "los", "las", "y", "que", "del", "en", "es", "por",
+            "una", "con", "para", "se", "no", "como", "al", "lo", "su", "pero"));
+    }
+
+    private LanguageDetector() {}
+
+    /**
+     * ISO 639-1 code of the text's language, or null when it cannot tell.
+     */
+    public static String detect(CharSequence text) {
+        Map<String, Integer> hits = new LinkedHashMap<>();
+        int words = 0;
+        int length = text.length();
+        int i = 0;
+        StringBuilder word = new StringBuilder();
+        while (i < length && words < SAMPLE_WORDS) {
+            while (i < length && !Character.isLetter(text.charAt(i))) {
+                i++;
+            }
+            word.setLength(0);
+            while (i < length && Character.isLetter(text.charAt(i))) {
+                word.append(text.charAt(i));
+                i++;
+            }
+            if (word.length() == 0) {
+                break;
+            }
+            words++;
+            String lower = word.toString().toLowerCase(Locale.ROOT);
+            for (Map.Entry<String, Set<String>> language : FUNCTION_WORDS.entrySet()) {
+                if (language.getValue().contains(lower)) {
+                    hits.merge(language.getKey(), 1, Integer::sum);
+                }
+            }
+        }
+        if (words < MIN_WORDS) {
+            return null;
+        }
+
+        String best = null;
+        int bestHits = 0;
+        for (Map.Entry<String, Integer> entry : hits.entrySet()) {
+            if (entry.getValue() > bestHits) {
+                best = entry.getKey();
+                bestHits = entry.getValue();
+            }
+        }
+        return bestHits >= words * MIN_SHARE ? best : null;
+    }
+}
@@ -1,11 +1,13 @@
 package com.korshak.mcpserver.service;
 
+import com.korshak.mcpserver.jfr.MetadataSaveEvent;
 import com.korshak.mcpserver.model.FileMetadata;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -28,8 +30,13 @@ public class MetadataService {
     @Value("${knowledge.store.path:./knowledgeStore}")
     private String knowledgeStorePath;
     
+    @Autowired
+    private MetricsService metricsService;
+    
     private final ObjectMapper objectMapper;
     private final Map<String, FileMetadata> metadataCache = new ConcurrentHashMap<>();
+    // The batch whose work the current thread is doing, if any
+    private final ThreadLocal<Batch> currentBatch = new ThreadLocal<>();
     
     public MetadataService() {
         this.objectMapper = new ObjectMapper();
@@ -52,7 +59,26 @@ public class MetadataService {
         }
     }
     
+    /**
+     * Start a batch of updates. Saves requested by threads inside the batch (see
+     * {@link Batch#enter()}) are folded into a single save when it is closed;
+     * saves from anywhere else still happen right away.
+     */
+    public Batch beginBatch() {
+        return new Batch();
+    }
+    
     public void saveMetadata() {
+        Batch batch = currentBatch.get();
+        if (batch != null && batch.defer()) {
+            return;
+        }
+        writeMetadata();
+    }
+    
+    private synchronized void writeMetadata() {
+        MetadataSaveEvent event = new MetadataSaveEvent();
+        event.begin();
         try {
             Path storePath = Paths.get(knowledgeStorePath);
             if (!Files.exists(storePath)) {
@@ -63,6 +89,13 @@ public class MetadataService {
             String jsonContent = objectMapper.writerWithDefaultPrettyPrinter()
                 .writeValueAsString(metadataCache);
             Files.writeString(metadataPath, jsonContent);
+            event.end();
+            if (event.shouldCommit()) {
+                event.entries = metadataCache.size();
+                event.bytes = Files.size(metadataPath);
+                event.commit();
+            }
+            metricsService.recordMetadataFlush();
             logger.debug("Saved metadata for {} files", metadataCache.size());
         } catch (IOException e) {
             logger.error("Error saving metadata", e);
@@ -264,4 +297,61 @@ public class MetadataService {
         
         return overview;
     }
+    
+    /**
+     * A thread's membership of a batch, ended by {@link #close()}.
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+    
+    /**
+     * Saves coalesced for one caller, from {@link #beginBatch()}.
+     */
+    public final class Batch implements AutoCloseable {
+        private boolean saveRequested;
+        private boolean closed;
+        
+        private Batch() {
+        }
+        
+        /**
+         * Fold the calling thread's saves into this batch until the scope is closed.
+         */
+        public Scope enter() {
+            Batch previous = currentBatch.get();
+            currentBatch.set(this);
+            return () -> {
+                if (previous != null) {
+                    currentBatch.set(previous);
+                } else {
+                    currentBatch.remove();
+                }
+            };
+        }
+        
+        // False once closed: a save arriving after that must not be lost
+        private synchronized boolean defer() {
+            if (!closed) {
+                saveRequested = true;
+            }
+            return !closed;
+        }
+        
+        /**
+         * Save once if anything in the batch asked for a save.
+         */
+        @Override
+        public void close() {
+            boolean save;
+            synchronized (this) {
+                save = saveRequested && !closed;
+                closed = true;
+            }
+            if (save) {
+                writeMetadata();
+            }
+        }
+    }
 }
@@ -0,0 +1,219 @@
+package com.korshak.mcpserver.service;
+
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Server metrics on top of Micrometer: per-tool and per-transport timings,
+ * bytes in and out, response compression, text extraction by parser, cache
+ * hits and misses, and metadata flushes. The web build publishes them through Actuator (including
+ * {@code /actuator/prometheus}); {@link #snapshot()} backs the
+ * {@code get_server_metrics} tool for clients that only speak MCP.
+ */
+@Service
+public class MetricsService {
+
+    public static final String TOOL_CALLS = "mcp.tool.calls";
+    public static final String TOOL_RESPONSE_BYTES = "mcp.tool.response.bytes";
+    public static final String TRANSPORT_REQUESTS = "mcp.transport.requests";
+    public static final String TRANSPORT_BYTES_IN = "mcp.transport.bytes.in";
+    public static final String TRANSPORT_BYTES_OUT = "mcp.transport.bytes.out";
+    public static final String COMPRESSED_RESPONSES = "mcp.compression.responses";
+    public static final String COMPRESSION_BYTES_IN = "mcp.compression.bytes.in";
+    public static final String COMPRESSION_BYTES_OUT = "mcp.compression.bytes.out";
+    public static final String WEBSOCKET_SESSIONS = "mcp.websocket.sessions";
+    public static final String EXTRACTIONS = "knowledge.extractions";
+    public static final String CACHE_REQUESTS = "knowledge.cache.requests";
+    public static final String METADATA_FLUSHES = "knowledge.metadata.flushes";
+
+    private final MeterRegistry registry;
+
+    public MetricsService(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * One finished tool call. {@code outcome} is success, error, cancelled,
+     * timeout or rejected; {@code result} is null unless the call succeeded.
+     */
+    public void recordToolCall(String tool, String outcome, long nanos, String result) {
+        Timer.builder(TOOL_CALLS)
+            .description("Tool call duration, including time queued on a bulkhead")
+            .tag("tool", tool)
+            .tag("outcome", outcome)
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+        if (result != null) {
+            DistributionSummary.builder(TOOL_RESPONSE_BYTES)
+                .baseUnit("bytes")
+                .tag("tool", tool)
+                .register(registry)
+                .record(utf8Length(result));
+        }
+    }
+
+    /**
+     * One JSON-RPC message handled by a transport; {@code response} is null for
+     * notifications.
+     */
+    public void recordTransportRequest(String transport, String message, String response, long nanos) {
+        Timer.builder(TRANSPORT_REQUESTS)
+            .tag("transport", transport)
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+        bytesIn(transport).increment(utf8Length(message));
+        if (response != null) {
+            bytesOut(transport).increment(utf8Length(response));
+        }
+    }
+
+    /**
+     * Wrap a notification sink so the notifications it sends count as bytes out.
+     */
+    public Consumer<String> countingSink(String transport, Consumer<String> sink) {
+        if (sink == null) {
+            return null;
+        }
+        Counter counter = bytesOut(transport);
+        return payload -> {
+            counter.increment(utf8Length(payload));
+            sink.accept(payload);
+        };
+    }
+
+    /**
+     * One response body compressed with {@code encoding}: {@code contentBytes}
+     * as written by the application, {@code sentBytes} as sent on the wire.
+     */
+    public void recordCompression(String transport, String encoding, long contentBytes, long sentBytes) {
+        registry.counter(COMPRESSED_RESPONSES, "transport", transport, "encoding", encoding).increment();
+        Counter.builder(COMPRESSION_BYTES_IN).baseUnit("bytes").tag("transport", transport)
+            .register(registry).increment(contentBytes);
+        Counter.builder(COMPRESSION_BYTES_OUT).baseUnit("bytes").tag("transport", transport)
+            .register(registry).increment(sentBytes);
+    }
+
+    /**
+     * A WebSocket session opened, with the compression extension it negotiated or "none".
+     */
+    public void recordWebSocketSession(String compression) {
+        registry.counter(WEBSOCKET_SESSIONS, "compression", compression).increment();
+    }
+
+    public void recordExtraction(String parser) {
+        registry.counter(EXTRACTIONS, "parser", parser).increment();
+    }
+
+    public void recordCacheAccess(String cache, boolean hit) {
+        registry.counter(CACHE_REQUESTS, "cache", cache, "result", hit ? "hit" : "miss").increment();
+    }
+
+    public void recordMetadataFlush() {
+        registry.counter(METADATA_FLUSHES).increment();
+    }
+
+    /**
+     * The server's own meters, keyed by name and tags, with times in milliseconds.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> meters = new TreeMap<>();
+        for (Meter meter : registry.getMeters()) {
+            String name = meter.getId().getName();
+            // Percentile gauges are already part of their timer's entry
+            if (!name.startsWith("mcp.") && !name.startsWith("knowledge.") || name.endsWith(".percentile")) {
+                continue;
+            }
+            meters.put(key(meter.getId()), describe(meter));
+        }
+        return meters;
+    }
+
+    private Counter bytesIn(String transport) {
+        return Counter.builder(TRANSPORT_BYTES_IN).baseUnit("bytes").tag("transport", transport).register(registry);
+    }
+
+    private Counter bytesOut(String transport) {
+        return Counter.builder(TRANSPORT_BYTES_OUT).baseUnit("bytes").tag("transport", transport).register(registry);
+    }
+
+    private static String key(Meter.Id id) {
+        StringBuilder key = new StringBuilder(id.getName());
+        if (!id.getTags().isEmpty()) {
+            key.append('{');
+            for (Tag tag : id.getTags()) {
+                if (key.charAt(key.length() - 1) != '{') {
+                    key.append(',');
+                }
+                key.append(tag.getKey()).append('=').append(tag.getValue());
+            }
+            key.append('}');
+        }
+        return key.toString();
+    }
+
+    private static Map<String, Object> describe(Meter meter) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        if (meter instanceof Timer) {
+            HistogramSnapshot snapshot = ((Timer) meter).takeSnapshot();
+            values.put("count", snapshot.count());
+            values.put("totalMs", round(snapshot.total(TimeUnit.MILLISECONDS)));
+            values.put("meanMs", round(snapshot.mean(TimeUnit.MILLISECONDS)));
+            values.put("maxMs", round(snapshot.max(TimeUnit.MILLISECONDS)));
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                values.put("p" + percentileLabel(percentile.percentile()) + "Ms",
+                    round(percentile.value(TimeUnit.MILLISECONDS)));
+            }
+        } else if (meter instanceof DistributionSummary) {
+            HistogramSnapshot snapshot = ((DistributionSummary) meter).takeSnapshot();
+            values.put("count", snapshot.count());
+            values.put("total", round(snapshot.total()));
+            values.put("mean", round(snapshot.mean()));
+            values.put("max", round(snapshot.max()));
+        } else if (meter instanceof Counter) {
+            values.put("count", round(((Counter) meter).count()));
+        } else {
+            meter.measure().forEach(measurement ->
+                values.put(measurement.getStatistic().getTagValueRepresentation(), round(measurement.getValue())));
+        }
+        return values;
+    }
+
+    // 0.5 -> "50", 0.999 -> "999"
+    private static String percentileLabel(double percentile) {
+        String digits = Double.toString(percentile).substring(2);
+        return digits.length() == 1 ? digits + "0" : digits;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    /**
+     * Encoded size of the text in UTF-8, without encoding it.
+     */
+    static long utf8Length(CharSequence text) {
+        long bytes = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,341 @@
+package com.korshak.mcpserver.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * MinHash signatures of document text, with a locality-sensitive hashing table
+ * over them so near-duplicates are found by looking up a few buckets instead of
+ * comparing every pair of documents.
+ * <p>
+ * Text is split into lowercase words and shingled into overlapping runs of
+ * {@value #SHINGLE_WORDS}; {@value #NUM_HASHES} hash functions give the
+ * signature, whose fraction of equal positions estimates the Jaccard similarity
+ * of two documents' shingle sets. The signature is cut into {@value #BANDS}
+ * bands of {@value #ROWS} rows, and documents sharing any band are compared:
+ * pairs at 0.5 similarity are found about 87% of the time, at 0.8 practically always.
+ * Signatures belong to content hashes and are kept in the {@link ContentStore}.
+ */
+@Service
+public class MinHashIndex {
+
+    static final int SHINGLE_WORDS = 3;
+    static final int NUM_HASHES = 128;
+    static final int BANDS = 32;
+    static final int ROWS = NUM_HASHES / BANDS;
+
+    private static final int FORMAT = 1;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long[] SEEDS = new SplittableRandom(0x4d696e48617368L).longs(NUM_HASHES).toArray();
+
+    @Autowired
+    private ContentStore contentStore;
+
+    private final Map<String, String> hashByName = new HashMap<>();
+    private final Map<String, Set<String>> namesByHash = new HashMap<>();
+    private final Map<String, long[]> signatures = new HashMap<>();
+    private final List<Map<Long, Set<String>>> bandTables = new ArrayList<>();
+
+    public MinHashIndex() {
+        for (int band = 0; band < BANDS; band++) {
+            bandTables.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * A file similar to the one asked about, with the estimated share of
+     * word shingles the two have in common.
+     */
+    public static class Match {
+        private final String name;
+        private final double similarity;
+
+        Match(String name, double similarity) {
+            this.name = name;
+            this.similarity = similarity;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getSimilarity() {
+            return similarity;
+        }
+    }
+
+    /**
+     * True when {@code name} is indexed with the given content.
+     */
+    public synchronized boolean isIndexed(String name, String hash) {
+        return hash.equals(hashByName.get(name));
+    }
+
+    /**
+     * Index {@code name} from a signature stored by an earlier run. Returns
+     * false when there is none and the text has to be extracted.
+     */
+    public boolean addStored(String name, String hash) {
+        synchronized (this) {
+            if (signatures.containsKey(hash)) {
+                link(name, hash);
+                return true;
+            }
+        }
+        long[] signature = load(hash);
+        if (signature == null) {
+            return false;
+        }
+        synchronized (this) {
+            put(hash, signature);
+            link(name, hash);
+        }
+        return true;
+    }
+
+    /**
+     * Index {@code name} with the text extracted from content {@code hash}.
+     * The signature is computed only the first time that content is seen.
+     */
+    public void add(String name, String hash, CharSequence text) {
+        if (addStored(name, hash)) {
+            return;
+        }
+        long[] signature = signature(text);
+        if (signature != null) {
+            contentStore.writeArtifact(artifactPath(hash), encode(signature));
+        }
+        synchronized (this) {
+            if (signature != null) {
+                put(hash, signature);
+            }
+            link(name, hash);
+        }
+    }
+
+    /**
+     * Other files whose estimated similarity to {@code name} is at least
+     * {@code threshold}, most similar first. Identical copies score 1.0.
+     */
+    public synchronized List<Match> similar(String name, double threshold) {
+        List<Match> matches = new ArrayList<>();
+        String hash = hashByName.get(name);
+        long[] signature = hash != null ? signatures.get(hash) : null;
+        if (signature == null) {
+            return matches;
+        }
+        for (String candidate : candidates(signature)) {
+            double similarity = candidate.equals(hash) ? 1.0 : estimate(signature, signatures.get(candidate));
+            if (similarity >= threshold) {
+                for (String other : namesByHash.getOrDefault(candidate, Collections.emptySet())) {
+                    if (!other.equals(name)) {
+                        matches.add(new Match(other, similarity));
+                    }
+                }
+            }
+        }
+        matches.sort(Comparator.comparingDouble(Match::getSimilarity).reversed()
+            .thenComparing(Match::getName));
+        return matches;
+    }
+
+    /**
+     * One of {@code among} that {@code name} is a near-duplicate of, or null.
+     * Used to fold repeated documents into the first one seen.
+     */
+    public synchronized String duplicateOf(String name, Collection<String> among, double threshold) {
+        String hash = hashByName.get(name);
+        long[] signature = hash != null ? signatures.get(hash) : null;
+        if (signature == null || among.isEmpty()) {
+            return null;
+        }
+        String best = null;
+        double bestSimilarity = -1;
+        for (String candidate : candidates(signature)) {
+            double similarity = candidate.equals(hash) ? 1.0 : estimate(signature, signatures.get(candidate));
+            if (similarity < threshold || similarity <= bestSimilarity) {
+                continue;
+            }
+            for (String other : namesByHash.getOrDefault(candidate, Collections.emptySet())) {
+                if (!other.equals(name) && among.contains(other)) {
+                    best = other;
+                    bestSimilarity = similarity;
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Forget files that are no longer in the store.
+     */
+    public synchronized void retain(Set<String> names) {
+        Iterator<Map.Entry<String, String>> entries = hashByName.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, String> entry = entries.next();
+            if (!names.contains(entry.getKey())) {
+                unlink(entry.getKey(), entry.getValue());
+                entries.remove();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return hashByName.size();
+    }
+
+    private void link(String name, String hash) {
+        String previous = hashByName.put(name, hash);
+        if (previous != null && !previous.equals(hash)) {
+            unlink(name, previous);
+        }
+        namesByHash.computeIfAbsent(hash, key -> new TreeSet<>()).add(name);
+    }
+
+    private void unlink(String name, String hash) {
+        Set<String> names = namesByHash.get(hash);
+        if (names != null) {
+            names.remove(name);
+            if (names.isEmpty()) {
+                namesByHash.remove(hash);
+            }
+        }
+    }
+
+    private void put(String hash, long[] signature) {
+        if (signatures.putIfAbsent(hash, signature) == null) {
+            for (int band = 0; band < BANDS; band++) {
+                bandTables.get(band).computeIfAbsent(bandKey(signature, band), key -> new HashSet<>()).add(hash);
+            }
+        }
+    }
+
+    private Set<String> candidates(long[] signature) {
+        Set<String> candidates = new HashSet<>();
+        for (int band = 0; band < BANDS; band++) {
+            candidates.addAll(bandTables.get(band).getOrDefault(bandKey(signature, band), Collections.emptySet()));
+        }
+        return candidates;
+    }
+
+    /**
+     * MinHash signature of the text's word shingles, or null when it has no words.
+     */
+    static long[] signature(CharSequence text) {
+        long[] minimums = new long[NUM_HASHES];
+        Arrays.fill(minimums, Long.MAX_VALUE);
+        long first = 0;
+        long second = 0;
+        int words = 0;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            long word = FNV_OFFSET;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                word = (word ^ Character.toLowerCase(text.charAt(i))) * FNV_PRIME;
+                i++;
+            }
+            words++;
+            if (words >= SHINGLE_WORDS) {
+                addShingle(minimums, shingle(first, second, word));
+            }
+            first = second;
+            second = word;
+        }
+        if (words == 0) {
+            return null;
+        }
+        if (words < SHINGLE_WORDS) {
+            // Too short for a full shingle: the words it has are the only one
+            addShingle(minimums, shingle(0, first, second));
+        }
+        return minimums;
+    }
+
+    static double estimate(long[] a, long[] b) {
+        int equal = 0;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / NUM_HASHES;
+    }
+
+    private static long shingle(long first, long second, long third) {
+        return mix(mix(first) ^ second) ^ third;
+    }
+
+    private static void addShingle(long[] minimums, long shingle) {
+        for (int i = 0; i < NUM_HASHES; i++) {
+            long value = mix(shingle ^ SEEDS[i]);
+            if (value < minimums[i]) {
+                minimums[i] = value;
+            }
+        }
+    }
+
+    private static long bandKey(long[] signature, int band) {
+        long key = band;
+        for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+            key = mix(key ^ signature[row]);
+        }
+        return key;
+    }
+
+    // Stafford's variant 13 of the MurmurHash3 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private Path artifactPath(String hash) {
+        return contentStore.artifactPath(ContentStore.MINHASH, hash, ".sig");
+    }
+
+    private static byte[] encode(long[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(3 * Integer.BYTES + NUM_HASHES * Long.BYTES);
+        buffer.putInt(FORMAT).putInt(SHINGLE_WORDS).putInt(NUM_HASHES);
+        for (long value : signature) {
+            buffer.putLong(value);
+        }
+        return buffer.array();
+    }
+
+    // Signatures made with other parameters are ignored and recomputed
+    private long[] load(String hash) {
+        Path path = artifactPath(hash);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (buffer.remaining() != 3 * Integer.BYTES + NUM_HASHES * Long.BYTES
+                    || buffer.getInt() != FORMAT || buffer.getInt() != SHINGLE_WORDS || buffer.getInt() != NUM_HASHES) {
+                return null;
+            }
+            long[] signature = new long[NUM_HASHES];
+            for (int i = 0; i < NUM_HASHES; i++) {
+                signature[i] = buffer.getLong();
+            }
+            return signature;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.korshak.mcpserver.service;
+
+import com.korshak.mcpserver.model.PageIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Per-page keyword index for PDFs, used to read only the pages of a document
+ * that talk about trading strategies. The index is built on the first full pass
+ * over a document, usually the text extraction at ingestion (see {@link #newIndex}), and kept in the {@link ContentStore} under the document's
+ * content hash, so later reads, and copies of the same file, extract just the
+ * relevant pages.
+ */
+@Service
+public class PageIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageIndexService.class);
+
+    /** Directory inside the store for server-maintained data; never listed as content. */
+    public static final String INTERNAL_DIR = ".mcp";
+
+    // Terms that mark a page as part of a strategy section, in English and Russian. Words like
+    // "strategy" itself are left out: a trading book uses them on nearly every page.
+    public static final List<String> STRATEGY_SECTION_TERMS = List.of(
+        "rsi", "relative strength", "moving average", "sma", "ema", "macd", "oversold", "overbought",
+        "stop loss", "stop-loss", "take profit",
+        "стоп", "тейк-профит", "скользящ", "индикатор", "осциллятор",
+        "перекуплен", "перепродан", "точка входа", "вход в позицию");
+
+    private static final KeywordScanner SECTION_KEYWORDS = new KeywordScanner(STRATEGY_SECTION_TERMS);
+
+    @Value("${knowledge.store.path:./knowledgeStore}")
+    private String knowledgeStorePath;
+
+    @Autowired
+    private MetricsService metricsService;
+
+    @Autowired
+    private ContentStore contentStore;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Text of the pages mentioning any strategy section term, always including
+     * the first page (title). Falls back to building the index from a full pass
+     * when there is no valid cached index for the file.
+     */
+    public PageSelection readStrategyPages(String filename, ProgressListener listener) throws IOException {
+        Path filePath = Paths.get(knowledgeStorePath, filename);
+        String hash = contentStore.hash(filePath);
+        PageIndex index = loadIndex(filename, hash);
+        metricsService.recordCacheAccess("page-index", index != null);
+        metricsService.recordExtraction("pdfbox");
+
+        try (PDDocument document = PDDocument.load(filePath.toFile())) {
+            if (index != null) {
+                SortedSet<Integer> pages = selectPages(index, STRATEGY_SECTION_TERMS);
+                return new PageSelection(readPages(document, pages, listener), pages.size(), index.getPageCount(), true);
+            }
+
+            // No index yet: extract every page once, index it, and keep the relevant pages' text
+            int pageCount = document.getNumberOfPages();
+            PDFTextStripper stripper = new PDFTextStripper();
+            Builder builder = newIndex(filename, hash);
+            Map<Integer, String> pageTexts = new HashMap<>();
+            for (int page = 1; page <= pageCount; page++) {
+                listener.checkCancelled();
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                String text = stripper.getText(document);
+                pageTexts.put(page, text);
+                builder.addPage(text);
+            }
+            index = builder.save();
+
+            StringBuilder text = new StringBuilder();
+            SortedSet<Integer> pages = selectPages(index, STRATEGY_SECTION_TERMS);
+            pages.forEach(page -> text.append(pageTexts.get(page)));
+            return new PageSelection(text.toString(), pages.size(), pageCount, false);
+        }
+    }
+
+    /**
+     * Build the page index of a PDF unless a valid one is already cached.
+     * Returns true when an index was built.
+     */
+    public boolean ensureIndex(String filename, ProgressListener listener) throws IOException {
+        Path filePath = Paths.get(knowledgeStorePath, filename);
+        if (loadIndex(filename, contentStore.hash(filePath)) != null) {
+            return false;
+        }
+        readStrategyPages(filename, listener);
+        return true;
+    }
+
+    /**
+     * Start the index of {@code filename}, whose content is {@code hash}, for a
+     * pass that extracts the document page by page anyway, so it is not parsed
+     * a second time just to be indexed.
+     */
+    public Builder newIndex(String filename, String hash) throws IOException {
+        Path filePath = Paths.get(knowledgeStorePath, filename);
+        return new Builder(filename, hash, Files.size(filePath), Files.getLastModifiedTime(filePath).toMillis());
+    }
+
+    private static SortedSet<Integer> selectPages(PageIndex index, Collection<String> terms) {
+        SortedSet<Integer> pages = new TreeSet<>();
+        if (index.getPageCount() > 0) {
+            pages.add(1);
+        }
+        for (String term : terms) {
+            pages.addAll(index.getKeywordPages().getOrDefault(term, Collections.emptyList()));
+        }
+        return pages;
+    }
+
+    /**
+     * Extract the given pages, one stripper call per run of consecutive pages.
+     */
+    private static String readPages(PDDocument document, SortedSet<Integer> pages,
+                                    ProgressListener listener) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        StringBuilder text = new StringBuilder();
+        Iterator<Integer> iterator = pages.iterator();
+        Integer next = iterator.hasNext() ? iterator.next() : null;
+        while (next != null) {
+            listener.checkCancelled();
+            int start = next;
+            int end = start;
+            next = null;
+            while (iterator.hasNext()) {
+                int page = iterator.next();
+                if (page != end + 1) {
+                    next = page;
+                    break;
+                }
+                end = page;
+            }
+            stripper.setStartPage(start);
+            stripper.setEndPage(end);
+            text.append(stripper.getText(document));
+        }
+        return text.toString();
+    }
+
+    private PageIndex loadIndex(String filename, String hash) {
+        Path indexPath = indexPath(hash);
+        if (!Files.exists(indexPath)) {
+            return null;
+        }
+        try {
+            PageIndex index = objectMapper.readValue(indexPath.toFile(), PageIndex.class);
+            if (STRATEGY_SECTION_TERMS.equals(index.getTerms())) {
+                return index;
+            }
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable page index for {}: {}", filename, e.getMessage());
+        }
+        return null;
+    }
+
+    private void saveIndex(PageIndex index) {
+        try {
+            contentStore.writeArtifact(indexPath(index.getContentHash()), objectMapper.writeValueAsBytes(index));
+        } catch (IOException e) {
+            logger.warn("Could not save page index for {}: {}", index.getFilename(), e.getMessage());
+        }
+    }
+
+    private Path indexPath(String hash) {
+        return contentStore.artifactPath(ContentStore.PAGE_INDEX, hash, ".json");
+    }
+
+    /**
+     * A page index being filled in from the pages of a document, in order.
+     */
+    public final class Builder {
+        private final String filename;
+        private final String hash;
+        private final long size;
+        private final long lastModified;
+        private final Map<String, List<Integer>> keywordPages = new TreeMap<>();
+        private int pageCount;
+
+        private Builder(String filename, String hash, long size, long lastModified) {
+            this.filename = filename;
+            this.hash = hash;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        public void addPage(String text) {
+            pageCount++;
+            KeywordScanner.Matches matches = SECTION_KEYWORDS.scan(text);
+            for (String term : STRATEGY_SECTION_TERMS) {
+                if (matches.contains(term)) {
+                    keywordPages.computeIfAbsent(term, key -> new ArrayList<>()).add(pageCount);
+                }
+            }
+        }
+
+        /**
+         * Store the index of the pages added so far, as the index of the whole document.
+         */
+        public PageIndex save() {
+            PageIndex index = new PageIndex(filename, hash, size, lastModified, pageCount,
+                STRATEGY_SECTION_TERMS, keywordPages);
+            saveIndex(index);
+            return index;
+        }
+    }
+
+    /**
+     * Text of a subset of a document's pages.
+     */
+    public static class PageSelection {
+        private final String text;
+        private final int pagesRead;
+        private final int pageCount;
+        private final boolean fromIndex;
+
+        PageSelection(String text, int pagesRead, int pageCount, boolean fromIndex) {
+            this.text = text;
+            this.pagesRead = pagesRead;
+            this.pageCount = pageCount;
+            this.fromIndex = fromIndex;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public int getPagesRead() {
+            return pagesRead;
+        }
+
+        public int getPageCount() {
+            return pageCount;
+        }
+
+        public boolean isFromIndex() {
+            return fromIndex;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.korshak.mcpserver.service;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Callback used by long-running operations to report how far they got and to
+ * find out whether the caller has given up on them.
+ */
+public interface ProgressListener {
+
+    ProgressListener NONE = new ProgressListener() {
+        @Override
+        public void onProgress(long completed, long total, String message) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    void onProgress(long completed, long total, String message);
+
+    boolean isCancelled();
+
+    /**
+     * Report time spent extracting text from a file, so request traces can tell
+     * parser time apart from the rest of a tool call.
+     */
+    default void onExtraction(long nanos) {
+    }
+
+    /**
+     * Throw if the operation was cancelled or its thread interrupted. Call between
+     * units of work (files, pages) so abandoned requests stop promptly.
+     */
+    default void checkCancelled() {
+        if (isCancelled() || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Operation cancelled");
+        }
+    }
+}
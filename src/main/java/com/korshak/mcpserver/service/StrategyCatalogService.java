@@ -0,0 +1,323 @@
+package com.korshak.mcpserver.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory catalog of the {@code strategy-*.json} files in the knowledge store.
+ * The files are loaded once at startup and kept in sync as strategy files are
+ * written, with indexes by category, risk level and indicator and running
+ * statistics, so strategy queries never touch the disk.
+ */
+@Service
+public class StrategyCatalogService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StrategyCatalogService.class);
+
+    public static final String STRATEGY_FILE_PREFIX = "strategy-";
+    public static final String STRATEGY_FILE_SUFFIX = ".json";
+
+    private static final Pattern STOP_LOSS_PERCENT = Pattern.compile("stop loss at (\\d+(?:[.,]\\d+)?)\\s*%");
+
+    @Value("${knowledge.store.path:./knowledgeStore}")
+    private String knowledgeStorePath;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Keyed by file name; a strategy file holds exactly one strategy
+    private final Map<String, StrategyEntry> strategiesByFile = new TreeMap<>();
+    private final Map<String, Set<String>> categoryIndex = new TreeMap<>();
+    private final Map<String, Set<String>> riskIndex = new TreeMap<>();
+    private final Map<String, Set<String>> indicatorIndex = new TreeMap<>();
+    private long totalEntryConditions;
+    private long totalExitConditions;
+    private Instant lastUpdated;
+
+    @PostConstruct
+    public void init() {
+        Path storePath = Paths.get(knowledgeStorePath);
+        if (!Files.isDirectory(storePath)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(storePath,
+                STRATEGY_FILE_PREFIX + "*" + STRATEGY_FILE_SUFFIX)) {
+            for (Path file : files) {
+                reload(file.getFileName().toString());
+            }
+        } catch (IOException e) {
+            logger.error("Error loading strategy catalog", e);
+        }
+        logger.info("Loaded {} trading strategies", strategiesByFile.size());
+    }
+
+    public static boolean isStrategyFile(String filename) {
+        String name = Paths.get(filename).getFileName().toString();
+        return name.startsWith(STRATEGY_FILE_PREFIX) && name.endsWith(STRATEGY_FILE_SUFFIX);
+    }
+
+    /**
+     * Re-read one strategy file after it was written, replacing its previous
+     * entry (or dropping it when the file is gone or no longer parses).
+     */
+    public synchronized void reload(String filename) {
+        remove(filename);
+        Path path = Paths.get(knowledgeStorePath, filename);
+        if (!Files.isRegularFile(path)) {
+            return;
+        }
+        try {
+            JsonNode strategy = objectMapper.readTree(path.toFile());
+            if (strategy == null || !strategy.isObject()) {
+                logger.warn("Ignoring strategy file {}: not a JSON object", filename);
+                return;
+            }
+            add(new StrategyEntry(filename, strategy));
+        } catch (IOException e) {
+            logger.warn("Ignoring strategy file {}: {}", filename, e.getMessage());
+        }
+    }
+
+    public synchronized List<Map<String, Object>> getAllStrategies() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        strategiesByFile.values().forEach(entry -> result.add(entry.summary()));
+        return result;
+    }
+
+    /**
+     * Find a strategy by id, name or file name; exact matches win over partial
+     * name matches.
+     */
+    public synchronized JsonNode getStrategy(String nameOrId) {
+        String key = nameOrId.trim().toLowerCase();
+        StrategyEntry partial = null;
+        for (StrategyEntry entry : strategiesByFile.values()) {
+            if (key.equals(entry.id.toLowerCase()) || key.equals(entry.name.toLowerCase())
+                    || key.equals(entry.filename.toLowerCase())) {
+                return entry.strategy;
+            }
+            if (partial == null && entry.name.toLowerCase().contains(key)) {
+                partial = entry;
+            }
+        }
+        return partial != null ? partial.strategy : null;
+    }
+
+    /**
+     * Strategies whose name, description, category, risk level or indicators
+     * contain every word of the query.
+     */
+    public synchronized List<Map<String, Object>> search(String query) {
+        String[] words = query.toLowerCase().trim().split("\\s+");
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (StrategyEntry entry : strategiesByFile.values()) {
+            if (Arrays.stream(words).allMatch(entry.searchText::contains)) {
+                result.add(entry.summary());
+            }
+        }
+        return result;
+    }
+
+    public synchronized List<Map<String, Object>> getByCategory(String category) {
+        return lookup(categoryIndex, category);
+    }
+
+    public synchronized List<Map<String, Object>> getByRiskLevel(String riskLevel) {
+        return lookup(riskIndex, riskLevel);
+    }
+
+    /**
+     * Strategies using the indicator; falls back to indicator names containing
+     * the query (so "sma" also finds "SMA_volume") when nothing matches exactly.
+     */
+    public synchronized List<Map<String, Object>> getByIndicator(String indicator) {
+        String key = indicator.trim().toLowerCase();
+        if (indicatorIndex.containsKey(key)) {
+            return lookup(indicatorIndex, key);
+        }
+        Set<String> files = new TreeSet<>();
+        indicatorIndex.forEach((name, indexed) -> {
+            if (name.contains(key)) {
+                files.addAll(indexed);
+            }
+        });
+        return summaries(files);
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        int total = strategiesByFile.size();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalStrategies", total);
+        stats.put("byCategory", counts(categoryIndex));
+        stats.put("byRiskLevel", counts(riskIndex));
+        stats.put("byIndicator", counts(indicatorIndex));
+        stats.put("averageEntryConditions", total == 0 ? 0.0 : (double) totalEntryConditions / total);
+        stats.put("averageExitConditions", total == 0 ? 0.0 : (double) totalExitConditions / total);
+        stats.put("lastUpdated", lastUpdated != null ? lastUpdated.toString() : null);
+        return stats;
+    }
+
+    /**
+     * Category for a strategy without an explicit one, guessed from its name
+     * and description.
+     */
+    public static String inferCategory(JsonNode strategy) {
+        String text = (strategy.path("name").asText("") + " " + strategy.path("description").asText("")).toLowerCase();
+        if (text.contains("scalp") || text.contains("скальп")) {
+            return "scalping";
+        }
+        if (text.contains("swing") || text.contains("свинг")) {
+            return "swing";
+        }
+        if (text.contains("position trading") || text.contains("long-term") || text.contains("долгосроч")) {
+            return "position";
+        }
+        if (text.contains("fundamental") || text.contains("фундаментал")) {
+            return "fundamental";
+        }
+        if (strategy.path("indicators").path("required").size() > 0
+                || strategy.path("indicators").path("optional").size() > 0) {
+            return "technical";
+        }
+        if (text.contains("risk management")) {
+            return "risk_management";
+        }
+        return "general";
+    }
+
+    /**
+     * Risk level for a strategy without an explicit one, from the stop loss in
+     * its description: up to 2% is low, up to 5% medium, anything wider high.
+     */
+    public static String inferRiskLevel(JsonNode strategy) {
+        Matcher matcher = STOP_LOSS_PERCENT.matcher(strategy.path("description").asText("").toLowerCase());
+        if (!matcher.find()) {
+            return "medium";
+        }
+        double stopLoss = Double.parseDouble(matcher.group(1).replace(',', '.'));
+        if (stopLoss <= 2) {
+            return "low";
+        }
+        return stopLoss <= 5 ? "medium" : "high";
+    }
+
+    private void add(StrategyEntry entry) {
+        strategiesByFile.put(entry.filename, entry);
+        index(categoryIndex, entry.category, entry.filename);
+        index(riskIndex, entry.riskLevel, entry.filename);
+        entry.indicators.forEach(indicator -> index(indicatorIndex, indicator, entry.filename));
+        totalEntryConditions += entry.entryConditions;
+        totalExitConditions += entry.exitConditions;
+        lastUpdated = Instant.now();
+    }
+
+    private void remove(String filename) {
+        StrategyEntry entry = strategiesByFile.remove(filename);
+        if (entry == null) {
+            return;
+        }
+        unindex(categoryIndex, entry.category, filename);
+        unindex(riskIndex, entry.riskLevel, filename);
+        entry.indicators.forEach(indicator -> unindex(indicatorIndex, indicator, filename));
+        totalEntryConditions -= entry.entryConditions;
+        totalExitConditions -= entry.exitConditions;
+        lastUpdated = Instant.now();
+    }
+
+    private static void index(Map<String, Set<String>> index, String key, String filename) {
+        index.computeIfAbsent(key, k -> new TreeSet<>()).add(filename);
+    }
+
+    private static void unindex(Map<String, Set<String>> index, String key, String filename) {
+        Set<String> files = index.get(key);
+        if (files != null && files.remove(filename) && files.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private List<Map<String, Object>> lookup(Map<String, Set<String>> index, String key) {
+        return summaries(index.getOrDefault(key.trim().toLowerCase(), Collections.emptySet()));
+    }
+
+    private List<Map<String, Object>> summaries(Collection<String> files) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        files.forEach(file -> result.add(strategiesByFile.get(file).summary()));
+        return result;
+    }
+
+    private static Map<String, Integer> counts(Map<String, Set<String>> index) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        index.forEach((key, files) -> counts.put(key, files.size()));
+        return counts;
+    }
+
+    private static class StrategyEntry {
+        private final String filename;
+        private final JsonNode strategy;
+        private final String id;
+        private final String name;
+        private final String category;
+        private final String riskLevel;
+        private final Set<String> indicators = new TreeSet<>();
+        private final int entryConditions;
+        private final int exitConditions;
+        private final String searchText;
+
+        StrategyEntry(String filename, JsonNode strategy) {
+            this.filename = filename;
+            this.strategy = strategy;
+            this.id = strategy.path("strategyId").asText(filename);
+            this.name = strategy.path("name").asText(id);
+            this.category = strategy.hasNonNull("category")
+                ? strategy.get("category").asText().toLowerCase() : inferCategory(strategy);
+            this.riskLevel = strategy.hasNonNull("riskLevel")
+                ? strategy.get("riskLevel").asText().toLowerCase() : inferRiskLevel(strategy);
+
+            for (String group : new String[] {"required", "optional"}) {
+                strategy.path("indicators").path(group).forEach(indicator -> {
+                    String indicatorName = indicator.isTextual() ? indicator.asText() : indicator.path("name").asText("");
+                    if (!indicatorName.isEmpty()) {
+                        indicators.add(indicatorName.toLowerCase());
+                    }
+                });
+            }
+
+            JsonNode entry = strategy.path("conditions").path("entry");
+            this.entryConditions = entry.path("long").size() + entry.path("short").size();
+            JsonNode exit = strategy.path("conditions").path("exit");
+            int exits = 0;
+            for (JsonNode conditions : exit) {
+                exits += conditions.isArray() ? conditions.size() : 1;
+            }
+            this.exitConditions = exits;
+
+            this.searchText = String.join(" ", id, name, strategy.path("description").asText(""),
+                category, riskLevel, String.join(" ", indicators)).toLowerCase();
+        }
+
+        Map<String, Object> summary() {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("strategyId", id);
+            summary.put("name", name);
+            summary.put("category", category);
+            summary.put("riskLevel", riskLevel);
+            summary.put("indicators", new ArrayList<>(indicators));
+            summary.put("file", filename);
+            return summary;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.korshak.mcpserver.service;
+
+import com.korshak.mcpserver.model.FileMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Background warm-up after the client's {@code initialize}: builds the Tika
+ * parsers, extracts the most recently accessed documents into the
+ * extracted-text cache and builds missing PDF page indexes, so the first real
+ * {@code read_file} or search does not pay for class loading and extraction.
+ * Runs once per process on a single minimum-priority thread and pauses
+ * between files and PDF pages while foreground requests are in flight.
+ */
+@Service
+public class WarmupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmupService.class);
+
+    private static final long BUSY_POLL_MS = 50;
+
+    @Value("${knowledge.store.path:./knowledgeStore}")
+    private String knowledgeStorePath;
+
+    @Value("${knowledge.warmup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${knowledge.warmup.recent-files:5}")
+    private int recentFiles;
+
+    @Autowired
+    private KnowledgeStoreService knowledgeStoreService;
+
+    @Autowired
+    private MetadataService metadataService;
+
+    @Autowired
+    private PageIndexService pageIndexService;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean stopped;
+    private Thread thread;
+
+    /**
+     * Start the warm-up unless disabled or already started. {@code foregroundBusy}
+     * tells whether client requests are being processed.
+     */
+    public void start(BooleanSupplier foregroundBusy) {
+        if (!enabled || !started.compareAndSet(false, true)) {
+            return;
+        }
+        thread = new Thread(() -> run(foregroundBusy), "mcp-warmup");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void run(BooleanSupplier foregroundBusy) {
+        long start = System.nanoTime();
+        ProgressListener listener = new YieldingListener(foregroundBusy);
+        int extracted = 0;
+        int indexed = 0;
+        try {
+            listener.checkCancelled();
+            knowledgeStoreService.preloadParsers();
+
+            List<FileMetadata> recent = metadataService.getRecentFiles(recentFiles);
+            for (FileMetadata metadata : recent) {
+                if (metadata.getLastAccessed() == null) {
+                    continue;
+                }
+                String filename = metadata.getFilename();
+                Path filePath = Paths.get(knowledgeStorePath, filename);
+                if (!Files.isRegularFile(filePath)) {
+                    continue;
+                }
+                listener.checkCancelled();
+                try {
+                    if (knowledgeStoreService.preloadText(filename, listener)) {
+                        extracted++;
+                    }
+                    if (filename.toLowerCase().endsWith(".pdf") && pageIndexService.ensureIndex(filename, listener)) {
+                        indexed++;
+                    }
+                } catch (CancellationException e) {
+                    throw e;
+                } catch (Exception e) {
+                    logger.warn("Warm-up skipped {}: {}", filename, e.getMessage());
+                }
+            }
+            logger.info("Warm-up finished in {} ms: {} files extracted, {} page indexes built",
+                (System.nanoTime() - start) / 1_000_000, extracted, indexed);
+        } catch (CancellationException e) {
+            logger.info("Warm-up stopped");
+        }
+    }
+
+    /**
+     * Waits at each cancellation check (between files and PDF pages) until no
+     * foreground request is running.
+     */
+    private final class YieldingListener implements ProgressListener {
+        private final BooleanSupplier foregroundBusy;
+
+        YieldingListener(BooleanSupplier foregroundBusy) {
+            this.foregroundBusy = foregroundBusy;
+        }
+
+        @Override
+        public void onProgress(long completed, long total, String message) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return stopped;
+        }
+
+        @Override
+        public void checkCancelled() {
+            try {
+                while (!stopped && foregroundBusy.getAsBoolean()) {
+                    Thread.sleep(BUSY_POLL_MS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ProgressListener.super.checkCancelled();
+        }
+    }
+}
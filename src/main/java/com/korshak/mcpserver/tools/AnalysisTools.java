@@ -0,0 +1,93 @@
+package com.korshak.mcpserver.tools;
+
+import com.korshak.mcpserver.service.KnowledgeStoreService;
+import com.korshak.mcpserver.service.ProgressListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Tools that extract text from many files or from whole documents. They run
+ * on the "scan" bulkhead so they cannot starve the cheap tools.
+ */
+@Component
+public class AnalysisTools {
+
+    @Autowired
+    private KnowledgeStoreService knowledgeStoreService;
+
+    @McpTool(name = "search_files", bulkhead = "scan",
+        description = "Search for files containing specific text in content")
+    public String searchFiles(@ToolParam(name = "query", description = "Search query") String query,
+                              @ToolParam(name = "collapseDuplicates",
+                                         description = "List near-duplicate matches under the first one instead of separately",
+                                         required = false) Boolean collapseDuplicates,
+                              ProgressListener listener) {
+        return knowledgeStoreService.searchFiles(query, Boolean.TRUE.equals(collapseDuplicates), listener);
+    }
+
+    @McpTool(name = "get_all_definitions", bulkhead = "scan",
+        description = "Extract all definitions from all files in the knowledge store and return them as a structured map")
+    public String getAllDefinitions(
+            @ToolParam(name = "collapseDuplicates",
+                       description = "Skip files that are near-duplicates of a file already scanned",
+                       required = false) Boolean collapseDuplicates,
+            ProgressListener listener) {
+        Map<String, String> definitions =
+            knowledgeStoreService.getAllDefinitions(Boolean.TRUE.equals(collapseDuplicates), listener);
+        if (definitions.isEmpty()) {
+            return "No definitions found in the knowledge store.";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("📚 All Definitions Found in Knowledge Store\n");
+        sb.append("═══════════════════════════════════════════\n\n");
+
+        // Sort definitions alphabetically
+        definitions.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .forEach(entry -> {
+                sb.append("📖 **").append(entry.getKey()).append("**\n");
+                sb.append("   ").append(entry.getValue()).append("\n\n");
+            });
+
+        sb.append("\n📊 Total definitions found: ").append(definitions.size());
+        return sb.toString();
+    }
+
+    @McpTool(name = "find_similar_files", bulkhead = "scan",
+        description = "Find files whose text is nearly the same as a given file (re-exports, edited copies), " +
+                      "with the estimated share of text they have in common")
+    public String findSimilarFiles(
+            @ToolParam(name = "filename", description = "Name of the file to compare against") String filename,
+            @ToolParam(name = "threshold", description = "Minimum similarity from 0 to 1 (default 0.8)",
+                       required = false) Double threshold,
+            ProgressListener listener) {
+        return knowledgeStoreService.findSimilarFiles(filename, threshold, listener);
+    }
+
+    @McpTool(name = "extract_strategy", bulkhead = "scan",
+        description = "Extract a trading strategy by scanning a file and generating a JSON strategy based on the schema")
+    public String extractStrategy(
+            @ToolParam(name = "fileName", description = "Name of the file to scan for strategy information") String fileName,
+            @ToolParam(name = "sections", description = "For PDFs, analyze only the pages that mention strategy terms",
+                       required = false) Boolean sections,
+            ProgressListener listener) {
+        return knowledgeStoreService.extractStrategy(fileName, Boolean.TRUE.equals(sections), listener);
+    }
+
+    @McpTool(name = "extract_strategies_batch", bulkhead = "scan", timeoutMs = 1_800_000,
+        description = "Extract trading strategies from all files matching a category, tag and/or glob, in parallel, " +
+                      "reporting per-file timings and failures")
+    public String extractStrategiesBatch(
+            @ToolParam(name = "category", description = "Only files in this metadata category", required = false) String category,
+            @ToolParam(name = "tag", description = "Only files with this metadata tag", required = false) String tag,
+            @ToolParam(name = "glob", description = "Only files whose path in the store matches this glob, e.g. **.pdf",
+                       required = false) String glob,
+            @ToolParam(name = "sections", description = "For PDFs, analyze only the pages that mention strategy terms",
+                       required = false) Boolean sections,
+            ProgressListener listener) {
+        return knowledgeStoreService.extractStrategies(category, tag, glob, Boolean.TRUE.equals(sections), listener);
+    }
+}
@@ -0,0 +1,180 @@
+package com.korshak.mcpserver.tools;
+
+import com.korshak.mcpserver.handler.McpRequestContext;
+import com.korshak.mcpserver.model.FileMetadata;
+import com.korshak.mcpserver.model.IngestionJob;
+import com.korshak.mcpserver.service.ArchiveImportService;
+import com.korshak.mcpserver.service.IngestionService;
+import com.korshak.mcpserver.service.KnowledgeStoreService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Tools for listing, reading and writing knowledge store files, importing
+ * archives of them, and following the ingestion of written files.
+ */
+@Component
+public class FileTools {
+
+    private static final int RECENT_JOBS = 20;
+    private static final int LISTED_ENTRIES = 50;
+
+    @Autowired
+    private KnowledgeStoreService knowledgeStoreService;
+
+    @Autowired
+    private IngestionService ingestionService;
+
+    @Autowired
+    private ArchiveImportService archiveImportService;
+
+    @McpTool(name = "list_files",
+        description = "List all files in the knowledge store with basic info")
+    public String listFiles() {
+        List<String> files = knowledgeStoreService.listFiles();
+        return files.isEmpty() ? "No files found in knowledge store" :
+               "Files in knowledge store:\n" + String.join("\n", files);
+    }
+
+    @McpTool(name = "list_files_with_metadata",
+        description = "List all files with rich metadata including descriptions, tags, categories, and size warnings")
+    public String listFilesWithMetadata() {
+        List<FileMetadata> filesWithMetadata = knowledgeStoreService.listFilesWithMetadata();
+        if (filesWithMetadata.isEmpty()) {
+            return "No files found in knowledge store";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("📚 Files in Knowledge Store with Metadata:\n");
+        sb.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
+
+        for (FileMetadata metadata : filesWithMetadata) {
+            sb.append("\n📄 ").append(metadata.getFilename());
+
+            if (metadata.getDescription() != null) {
+                sb.append("\n   📝 Description: ").append(metadata.getDescription());
+            }
+
+            if (metadata.getSummary() != null) {
+                sb.append("\n   📋 Summary: ").append(metadata.getSummary());
+            }
+
+            sb.append("\n   📂 Category: ").append(metadata.getCategory());
+
+            if (metadata.getTags() != null && !metadata.getTags().isEmpty()) {
+                sb.append("\n   🏷️  Tags: ").append(String.join(", ", metadata.getTags()));
+            }
+
+            sb.append("\n   💾 Size: ").append(formatFileSize(metadata.getSize()));
+
+            if (metadata.isLargeFile()) {
+                sb.append(" ⚠️ Large file - consider reading summary first");
+            }
+
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+
+    @McpTool(name = "read_file", bulkhead = "files",
+        description = "Read the content of a specific file")
+    public String readFile(@ToolParam(name = "filename", description = "Name of the file to read") String filename,
+                           McpRequestContext context) {
+        if (context.isStreaming()) {
+            long characters = knowledgeStoreService.readFileInChunks(filename, context::sendChunk, context);
+            return "Streamed " + filename + " in " + context.getChunksSent() +
+                   " chunks (" + characters + " characters) via " + McpRequestContext.CHUNK_NOTIFICATION;
+        }
+        return knowledgeStoreService.readFile(filename, context);
+    }
+
+    @McpTool(name = "write_file", bulkhead = "files",
+        description = "Write content to a file")
+    public String writeFile(@ToolParam(name = "filename", description = "Name of the file to write") String filename,
+                            @ToolParam(name = "content", description = "Content to write to the file") String content) {
+        return knowledgeStoreService.writeFile(filename, content);
+    }
+
+    @McpTool(name = "import_archive", bulkhead = "files",
+        description = "Import the files in a zip, tar or tar.gz archive from the knowledge store, " +
+                      "then queue their ingestion")
+    public String importArchive(
+            @ToolParam(name = "filename", description = "Archive in the knowledge store") String filename,
+            @ToolParam(name = "targetDir", description = "Directory to import into; defaults to the archive name " +
+                       "without its extension, empty for the store root", required = false) String targetDir,
+            McpRequestContext context) {
+        try {
+            ArchiveImportService.Result result = archiveImportService.importStored(filename, targetDir, context);
+            StringBuilder sb = new StringBuilder();
+            sb.append("Imported ").append(result.getImported().size()).append(" files (")
+                .append(formatFileSize(result.getBytes())).append(") from ").append(filename)
+                .append(" into ").append(result.getTargetDir().isEmpty() ? "the store root" : result.getTargetDir())
+                .append(" in ").append(result.getMillis()).append(" ms; ingestion queued");
+            result.getImported().stream().limit(LISTED_ENTRIES).forEach(name -> sb.append("\n  ").append(name));
+            if (result.getImported().size() > LISTED_ENTRIES) {
+                sb.append("\n  ... and ").append(result.getImported().size() - LISTED_ENTRIES).append(" more");
+            }
+            if (!result.getSkipped().isEmpty()) {
+                sb.append("\nSkipped ").append(result.getSkipped().size()).append(':');
+                result.getSkipped().entrySet().stream().limit(LISTED_ENTRIES).forEach(entry ->
+                    sb.append("\n  ").append(entry.getKey()).append(" - ").append(entry.getValue()));
+            }
+            return sb.toString();
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        } catch (NoSuchFileException e) {
+            return "File not found: " + filename;
+        } catch (IOException e) {
+            return "Error importing archive: " + e.getMessage();
+        }
+    }
+
+    @McpTool(name = "get_ingestion_status",
+        description = "Status of the background ingestion (text extraction, language, token estimate, definitions, " +
+                      "indexes) that follows every write and upload")
+    public String getIngestionStatus(
+            @ToolParam(name = "jobId", description = "Job to report on; omit for recent jobs", required = false) String jobId,
+            @ToolParam(name = "filename", description = "Only jobs for this file", required = false) String filename) {
+        if (jobId != null) {
+            IngestionJob job = ingestionService.getJob(jobId);
+            return job != null ? formatJob(job) : "No ingestion job " + jobId;
+        }
+
+        StringBuilder sb = new StringBuilder("Ingestion:");
+        ingestionService.countByStatus().forEach((status, count) ->
+            sb.append(' ').append(count).append(' ').append(status.name().toLowerCase()).append(','));
+        sb.setLength(sb.length() - 1);
+        ingestionService.getJobs().stream()
+            .filter(job -> filename == null || filename.equals(job.getFilename()))
+            .limit(RECENT_JOBS)
+            .forEach(job -> sb.append('\n').append(formatJob(job)));
+        return sb.toString();
+    }
+
+    private static String formatJob(IngestionJob job) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(job.getStatus()).append(' ').append(job.getFilename()).append(" [").append(job.getId()).append(']');
+        if (job.getStage() != null) {
+            sb.append(" - ").append(job.getStage());
+        }
+        if (job.getStartedAt() != null && job.getFinishedAt() != null) {
+            sb.append(" - ").append(Duration.between(job.getStartedAt(), job.getFinishedAt()).toMillis()).append(" ms");
+        }
+        if (job.getError() != null) {
+            sb.append(" - ").append(job.getError());
+        }
+        return sb.toString();
+    }
+
+    static String formatFileSize(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format("%.1f KB", bytes / 1024.0);
+        if (bytes < 1024 * 1024 * 1024) return String.format("%.1f MB", bytes / (1024.0 * 1024));
+        return String.format("%.1f GB", bytes / (1024.0 * 1024 * 1024));
+    }
+}
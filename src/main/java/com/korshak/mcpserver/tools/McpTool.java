@@ -0,0 +1,38 @@
+package com.korshak.mcpserver.tools;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a bean method as an MCP tool. The method returns the tool's text result;
+ * its parameters are bound from the call arguments by {@link ToolParam}, and a
+ * parameter of type {@code McpRequestContext} or {@code ProgressListener}
+ * receives the current request.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface McpTool {
+
+    /** Runs the tool on the calling transport thread. */
+    String INLINE = "inline";
+
+    String name();
+
+    String description();
+
+    /**
+     * Executor the tool runs on. Tools sharing a bulkhead share its concurrency
+     * limit ({@code mcp.tools.bulkhead.<name>.*}); {@link #INLINE} tools skip the
+     * hand-off and are meant for cheap lookups only.
+     */
+    String bulkhead() default INLINE;
+
+    /**
+     * Time limit in milliseconds for bulkhead tools; 0 uses
+     * {@code mcp.tools.default-timeout-ms}. Overridable per tool with
+     * {@code mcp.tools.timeout.<name>}.
+     */
+    long timeoutMs() default 0;
+}
@@ -0,0 +1,53 @@
+package com.korshak.mcpserver.tools;
+
+import com.korshak.mcpserver.service.KnowledgeStoreService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tools that work on file metadata only; all of them are cheap and run inline.
+ */
+@Component
+public class MetadataTools {
+
+    @Autowired
+    private KnowledgeStoreService knowledgeStoreService;
+
+    @McpTool(name = "search_files_by_metadata",
+        description = "Search files by metadata (description, tags, category, summary) - smarter than content search")
+    public String searchFilesByMetadata(@ToolParam(name = "query", description = "Metadata search query") String query) {
+        return knowledgeStoreService.searchFilesByMetadata(query);
+    }
+
+    @McpTool(name = "get_files_by_category",
+        description = "Get all files in a specific category (document, text, image, etc.)")
+    public String getFilesByCategory(@ToolParam(name = "category", description = "Category name") String category) {
+        return knowledgeStoreService.getFilesByCategory(category);
+    }
+
+    @McpTool(name = "get_knowledge_store_overview",
+        description = "Get overview of the knowledge store with statistics and categories")
+    public String getKnowledgeStoreOverview() {
+        return knowledgeStoreService.getKnowledgeStoreOverview();
+    }
+
+    @McpTool(name = "get_file_info",
+        description = "Get detailed metadata information about a file, including its content hash and identical copies in the store")
+    public Map<String, Object> getFileInfo(@ToolParam(name = "filename", description = "Name of the file") String filename) {
+        return knowledgeStoreService.getFileInfo(filename);
+    }
+
+    @McpTool(name = "update_file_metadata",
+        description = "Update metadata for a file (description, tags, category, summary)")
+    public String updateFileMetadata(
+            @ToolParam(name = "filename", description = "Name of the file") String filename,
+            @ToolParam(name = "description", description = "File description", required = false) String description,
+            @ToolParam(name = "tags", description = "Tags for the file", required = false) List<String> tags,
+            @ToolParam(name = "category", description = "File category", required = false) String category,
+            @ToolParam(name = "summary", description = "File summary", required = false) String summary) {
+        return knowledgeStoreService.updateFileMetadata(filename, description, tags, category, summary);
+    }
+}
@@ -0,0 +1,24 @@
+package com.korshak.mcpserver.tools;
+
+import com.korshak.mcpserver.service.MetricsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Tools about the server itself rather than the knowledge store.
+ */
+@Component
+public class ServerTools {
+
+    @Autowired
+    private MetricsService metricsService;
+
+    @McpTool(name = "get_server_metrics",
+        description = "Get server metrics: tool and transport timings, bytes in/out, extractions by parser, " +
+                      "cache hits/misses and metadata flushes")
+    public Map<String, Object> getServerMetrics() {
+        return metricsService.snapshot();
+    }
+}
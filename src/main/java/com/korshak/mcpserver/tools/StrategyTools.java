@@ -0,0 +1,73 @@
+package com.korshak.mcpserver.tools;
+
+import com.korshak.mcpserver.service.StrategyCatalogService;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Queries over the trading strategies generated by {@code extract_strategy}.
+ * All of them are answered from the in-memory strategy catalog.
+ */
+@Component
+public class StrategyTools {
+
+    @Autowired
+    private StrategyCatalogService strategyCatalogService;
+
+    @McpTool(name = "get_trading_strategies",
+        description = "Get all trading strategies from the strategy catalog")
+    public Object getTradingStrategies() {
+        return orMessage(strategyCatalogService.getAllStrategies(),
+            "No trading strategies found. Use extract_strategy to create one.");
+    }
+
+    @McpTool(name = "get_trading_strategy",
+        description = "Get a specific trading strategy by name or ID")
+    public Object getTradingStrategy(
+            @ToolParam(name = "strategy_name", description = "Name or ID of the strategy") String strategyName) {
+        JsonNode strategy = strategyCatalogService.getStrategy(strategyName);
+        return strategy != null ? strategy : "Trading strategy not found: " + strategyName;
+    }
+
+    @McpTool(name = "search_trading_strategies",
+        description = "Search trading strategies by text query")
+    public Object searchTradingStrategies(@ToolParam(name = "query", description = "Search query") String query) {
+        return orMessage(strategyCatalogService.search(query), "No trading strategies found matching: " + query);
+    }
+
+    @McpTool(name = "get_strategies_by_category",
+        description = "Get trading strategies by category (scalping, swing, position, risk_management, technical, fundamental)")
+    public Object getStrategiesByCategory(@ToolParam(name = "category", description = "Strategy category") String category) {
+        return orMessage(strategyCatalogService.getByCategory(category),
+            "No trading strategies found in category: " + category);
+    }
+
+    @McpTool(name = "get_strategies_by_risk",
+        description = "Get trading strategies by risk level (low, medium, high)")
+    public Object getStrategiesByRisk(@ToolParam(name = "risk_level", description = "Risk level") String riskLevel) {
+        return orMessage(strategyCatalogService.getByRiskLevel(riskLevel),
+            "No trading strategies found with risk level: " + riskLevel);
+    }
+
+    @McpTool(name = "get_strategies_by_indicator",
+        description = "Get trading strategies that use a specific indicator")
+    public Object getStrategiesByIndicator(
+            @ToolParam(name = "indicator", description = "Technical indicator name") String indicator) {
+        return orMessage(strategyCatalogService.getByIndicator(indicator),
+            "No trading strategies found using indicator: " + indicator);
+    }
+
+    @McpTool(name = "get_trading_strategies_stats",
+        description = "Get statistics about trading strategies in the catalog")
+    public Map<String, Object> getTradingStrategiesStats() {
+        return strategyCatalogService.getStats();
+    }
+
+    private static Object orMessage(List<Map<String, Object>> strategies, String message) {
+        return strategies.isEmpty() ? message : strategies;
+    }
+}
@@ -0,0 +1,21 @@
+package com.korshak.mcpserver.tools;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds a tool method parameter to a call argument and describes it in the
+ * tool's input schema. The schema type is derived from the parameter type.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ToolParam {
+
+    String name();
+
+    String description();
+
+    boolean required() default true;
+}
@@ -0,0 +1,125 @@
+package com.korshak.mcpserver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StdioResponseWriterTests {
+
+    @Test
+    void framesFromConcurrentWritersNeverInterleave() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        // Small buffer so large frames are split across several channel writes
+        StdioResponseWriter writer = new StdioResponseWriter(Channels.newChannel(output), 1024);
+
+        String largeText = "Биржевой трейдинг ".repeat(500);
+        Set<String> expected = new HashSet<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int threadId = t;
+            List<String> frames = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                String text = i % 50 == 0 ? largeText : "text-" + i;
+                frames.add("{\"jsonrpc\":\"2.0\",\"id\":\"" + threadId + "-" + i + "\",\"result\":\"" + text + "\"}");
+            }
+            expected.addAll(frames);
+            threads.add(new Thread(() -> frames.forEach(writer::write)));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        writer.close();
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(expected.size(), lines.length);
+        assertEquals(expected, Set.of(lines));
+    }
+
+    @Test
+    void anInterruptedWriterDoesNotCloseStdout(@TempDir Path directory) throws Exception {
+        Path target = directory.resolve("stdout.jsonl");
+        try (FileOutputStream out = new FileOutputStream(target.toFile())) {
+            StdioResponseWriter writer = StdioResponseWriter.forStream(out);
+
+            // A cancelled or timed-out request thread writing its last frame
+            Thread cancelled = new Thread(() -> {
+                Thread.currentThread().interrupt();
+                writer.write("{\"id\":1}");
+            });
+            cancelled.start();
+            cancelled.join();
+
+            writer.write("{\"id\":2}");
+            writer.close();
+        }
+        assertEquals(List.of("{\"id\":1}", "{\"id\":2}"), Files.readAllLines(target, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void coalescesFramesWaitingBehindASlowWrite() throws Exception {
+        CountingChannel channel = new CountingChannel(1);
+        StdioResponseWriter writer = new StdioResponseWriter(channel);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    writer.write("{\"jsonrpc\":\"2.0\",\"id\":" + i + ",\"result\":{}}");
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        writer.close();
+
+        assertTrue(channel.writes < 400, "writes should be coalesced, got " + channel.writes);
+    }
+
+    private static class CountingChannel implements WritableByteChannel {
+        private final long delayMillis;
+        private long writes;
+
+        CountingChannel(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public int write(ByteBuffer source) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            int remaining = source.remaining();
+            source.position(source.limit());
+            writes++;
+            return remaining;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
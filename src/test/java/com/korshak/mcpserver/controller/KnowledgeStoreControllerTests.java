@@ -0,0 +1,113 @@
+package com.korshak.mcpserver.controller;
+
+import com.korshak.mcpserver.service.ContentStore;
+import com.korshak.mcpserver.service.KnowledgeStoreService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KnowledgeStoreControllerTests {
+
+    @TempDir
+    Path store;
+
+    private final KnowledgeStoreController controller = new KnowledgeStoreController();
+    private byte[] bytes;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        bytes = new byte[10_000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        Files.write(store.resolve("data.bin"), bytes);
+        Files.writeString(store.resolve("notes.md"), "# Notes\n", StandardCharsets.UTF_8);
+
+        ContentStore contentStore = new ContentStore();
+        ReflectionTestUtils.setField(contentStore, "knowledgeStorePath", store.toString());
+        KnowledgeStoreService service = new KnowledgeStoreService();
+        ReflectionTestUtils.setField(service, "knowledgeStorePath", store.toString());
+        ReflectionTestUtils.setField(service, "contentStore", contentStore);
+        ReflectionTestUtils.setField(controller, "knowledgeStoreService", service);
+    }
+
+    @Test
+    void servesRangesAndAnswersConditionalRequests() throws Exception {
+        MockHttpServletResponse full = raw("data.bin", null, null);
+        assertEquals(200, full.getStatus());
+        assertArrayEquals(bytes, full.getContentAsByteArray());
+        String etag = full.getHeader("ETag");
+        assertNotNull(etag);
+
+        MockHttpServletResponse part = raw("data.bin", "bytes=100-199", null);
+        assertEquals(206, part.getStatus());
+        assertEquals("bytes 100-199/10000", part.getHeader("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(bytes, 100, 200), part.getContentAsByteArray());
+
+        MockHttpServletResponse unchanged = raw("data.bin", null, etag);
+        assertEquals(304, unchanged.getStatus());
+        assertEquals(0, unchanged.getContentAsByteArray().length);
+
+        MockHttpServletResponse beyond = raw("data.bin", "bytes=20000-", null);
+        assertEquals(416, beyond.getStatus());
+        assertEquals("bytes */10000", beyond.getHeader("Content-Range"));
+
+        assertEquals(404, raw("missing.bin", null, null).getStatus());
+        assertEquals(400, raw("../outside.bin", null, null).getStatus());
+    }
+
+    @Test
+    void extractedTextHasItsOwnEntityTag() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/knowledge/text/notes.md");
+        MockHttpServletResponse text = new MockHttpServletResponse();
+        controller.readExtractedText("/notes.md", request, text);
+
+        assertEquals(200, text.getStatus());
+        assertEquals("# Notes\n", text.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals("text/plain;charset=UTF-8", text.getContentType());
+        assertNotEquals(raw("notes.md", null, null).getHeader("ETag"), text.getHeader("ETag"));
+    }
+
+    @Test
+    void servesFilesInSubdirectories() throws Exception {
+        Files.createDirectories(store.resolve("library/books"));
+        Files.writeString(store.resolve("library/books/notes.md"), "# Nested\n", StandardCharsets.UTF_8);
+
+        MockHttpServletResponse raw = raw("library/books/notes.md", "bytes=2-7", null);
+        assertEquals(206, raw.getStatus());
+        assertEquals("Nested", raw.getContentAsString(StandardCharsets.UTF_8));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/knowledge/text/library/books/notes.md");
+        MockHttpServletResponse text = new MockHttpServletResponse();
+        controller.readExtractedText("/library/books/notes.md", request, text);
+        assertEquals(200, text.getStatus());
+        assertEquals("# Nested\n", text.getContentAsString(StandardCharsets.UTF_8));
+
+        MockHttpServletResponse missing = new MockHttpServletResponse();
+        controller.readExtractedText("/library/missing.md", request, missing);
+        assertEquals(404, missing.getStatus());
+    }
+
+    private MockHttpServletResponse raw(String filename, String range, String ifNoneMatch) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/knowledge/raw/" + filename);
+        if (range != null) {
+            request.addHeader("Range", range);
+        }
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.readRawFile("/" + filename, request, response);
+        return response;
+    }
+}
@@ -0,0 +1,85 @@
+package com.korshak.mcpserver.controller;
+
+import com.korshak.mcpserver.handler.McpProtocolHandler;
+import com.korshak.mcpserver.handler.SlowRequestLog;
+import com.korshak.mcpserver.handler.ToolExecutor;
+import com.korshak.mcpserver.handler.ToolRegistry;
+import com.korshak.mcpserver.service.MetricsService;
+import com.korshak.mcpserver.service.WarmupService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class McpStreamableHttpControllerTests {
+
+    private static final String ACCEPT = "application/json, text/event-stream";
+
+    private final McpStreamableHttpController controller = new McpStreamableHttpController();
+    private final ToolExecutor executor = new ToolExecutor();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MetricsService metricsService = new MetricsService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(executor, "environment", new MockEnvironment());
+        ReflectionTestUtils.setField(executor, "defaultTimeoutMs", 10_000L);
+        ReflectionTestUtils.setField(executor, "metricsService", metricsService);
+        McpProtocolHandler handler = new McpProtocolHandler();
+        ReflectionTestUtils.setField(handler, "toolRegistry", new ToolRegistry());
+        ReflectionTestUtils.setField(handler, "toolExecutor", executor);
+        ReflectionTestUtils.setField(handler, "warmupService", new WarmupService());
+        handler.init();
+        SlowRequestLog slowRequestLog = new SlowRequestLog();
+        ReflectionTestUtils.setField(slowRequestLog, "output", "off");
+        slowRequestLog.init();
+
+        ReflectionTestUtils.setField(controller, "protocolHandler", handler);
+        ReflectionTestUtils.setField(controller, "metricsService", metricsService);
+        ReflectionTestUtils.setField(controller, "slowRequestLog", slowRequestLog);
+        ReflectionTestUtils.setField(controller, "sseTimeoutMs", 60_000L);
+        ReflectionTestUtils.setField(controller, "sessionIdleTimeoutMs", 3_600_000L);
+        controller.init();
+    }
+
+    @AfterEach
+    void shutdown() {
+        controller.shutdown();
+        executor.shutdown();
+    }
+
+    @Test
+    void notificationsAreAcknowledgedWithoutAnEventStream() {
+        ResponseEntity<ResponseBodyEmitter> response = controller.handleMessage(null, ACCEPT,
+            "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/cancelled\",\"params\":{\"requestId\":1}}");
+
+        assertEquals(202, response.getStatusCode().value());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void idleSessionsAreClosed() throws Exception {
+        String sessionId = controller.handleMessage(null, "application/json",
+            "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{}}")
+            .getHeaders().getFirst(McpStreamableHttpController.SESSION_HEADER);
+        assertNotNull(sessionId);
+
+        controller.closeIdleSessions();
+        assertEquals(200, ping(sessionId));
+
+        ReflectionTestUtils.setField(controller, "sessionIdleTimeoutMs", 0L);
+        Thread.sleep(5);
+        controller.closeIdleSessions();
+        assertEquals(404, ping(sessionId));
+    }
+
+    private int ping(String sessionId) {
+        return controller.handleMessage(sessionId, "application/json",
+            "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/list\",\"params\":{}}").getStatusCode().value();
+    }
+}
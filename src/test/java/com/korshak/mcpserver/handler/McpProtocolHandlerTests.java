@@ -0,0 +1,169 @@
+package com.korshak.mcpserver.handler;
+
+import com.korshak.mcpserver.service.MetricsService;
+import com.korshak.mcpserver.service.ProgressListener;
+import com.korshak.mcpserver.tools.McpTool;
+import com.korshak.mcpserver.tools.ToolParam;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class McpProtocolHandlerTests {
+
+    private final McpProtocolHandler handler = new McpProtocolHandler();
+    private final ToolExecutor executor = new ToolExecutor();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    McpProtocolHandlerTests() throws Exception {
+        ToolRegistry registry = new ToolRegistry();
+        registry.registerBean(new Tools());
+        ReflectionTestUtils.setField(executor, "environment", new MockEnvironment());
+        ReflectionTestUtils.setField(executor, "defaultTimeoutMs", 10_000L);
+        ReflectionTestUtils.setField(executor, "metricsService", new MetricsService(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(handler, "toolRegistry", registry);
+        ReflectionTestUtils.setField(handler, "toolExecutor", executor);
+        handler.init();
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void cancellationOnlyReachesRequestsOfItsOwnSession() throws Exception {
+        Future<String> call = callers.submit(() -> handler.handleMessage(sleep(1, 500), "a", null, null));
+        Thread.sleep(50);
+
+        assertNull(handler.handleMessage(cancel(1), "b", null, null));
+        assertTrue(call.get(2, TimeUnit.SECONDS).contains("slept"));
+
+        Future<String> cancelled = callers.submit(() -> handler.handleMessage(sleep(1, 5_000), "a", null, null));
+        Thread.sleep(50);
+        handler.handleMessage(cancel(1), "a", null, null);
+        assertNull(cancelled.get(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void cancellationOfAnUnknownRequestIsNotRemembered() {
+        handler.handleMessage(cancel(7), "a", null, null);
+
+        String response = handler.handleMessage(sleep(7, 0), "a", null, null);
+        assertNotNull(response);
+        assertTrue(response.contains("slept"), response);
+    }
+
+    @Test
+    void queuedRequestCanBeCancelledBeforeItStarts() {
+        handler.requestQueued("a", sleep(3, 0));
+        handler.requestQueued("b", sleep(3, 0));
+        handler.handleMessage(cancel(3), "a", null, null);
+
+        assertNull(handler.handleMessage(sleep(3, 0), "a", null, null));
+        assertNotNull(handler.handleMessage(sleep(3, 0), "b", null, null));
+        // Once it has run, the id is free for reuse
+        assertNotNull(handler.handleMessage(sleep(3, 0), "a", null, null));
+    }
+
+    @Test
+    void closingASessionCancelsItsRunningRequests() throws Exception {
+        Future<String> running = callers.submit(() -> handler.handleMessage(sleep(1, 5_000), "a", null, null));
+        Future<String> other = callers.submit(() -> handler.handleMessage(sleep(1, 300), "b", null, null));
+        Thread.sleep(50);
+
+        handler.sessionClosed("a");
+
+        assertNull(running.get(2, TimeUnit.SECONDS));
+        assertTrue(other.get(2, TimeUnit.SECONDS).contains("slept"));
+    }
+
+    @Test
+    void rejectedRequestLeavesNothingForACancellationToSwallow() {
+        handler.requestQueued("a", sleep(4, 0));
+        handler.requestRejected("a", sleep(4, 0));
+        handler.handleMessage(cancel(4), "a", null, null);
+
+        assertNotNull(handler.handleMessage(sleep(4, 0), "a", null, null));
+    }
+
+    @Test
+    void abandonedRequestsOfTheSessionAreCancelled() throws Exception {
+        Future<String> other = callers.submit(() -> handler.handleMessage(sleep(1, 300), "b", null, null));
+        Future<String> running = callers.submit(() -> handler.handleMessage(sleep(1, 5_000), "a", null, null));
+        handler.requestQueued("a", sleep(2, 0));
+        Thread.sleep(50);
+
+        handler.requestAbandoned("a", sleep(1, 5_000));
+        handler.requestAbandoned("a", sleep(2, 0));
+
+        assertNull(running.get(2, TimeUnit.SECONDS));
+        assertNull(handler.handleMessage(sleep(2, 0), "a", null, null));
+        assertTrue(other.get(2, TimeUnit.SECONDS).contains("slept"));
+    }
+
+    @Test
+    void unknownToolIsAnInvalidParamsError() {
+        String response = handler.handleMessage("{\"jsonrpc\":\"2.0\",\"id\":8,\"method\":\"tools/call\"," +
+            "\"params\":{\"name\":\"missing\"}}", "a", null, null);
+
+        assertTrue(response.contains("\"code\":" + McpException.INVALID_PARAMS), response);
+        assertFalse(response.contains("\"result\""), response);
+    }
+
+    @Test
+    void timedOutToolCallIsReportedAsAnError() {
+        String response = handler.handleMessage("{\"jsonrpc\":\"2.0\",\"id\":9,\"method\":\"tools/call\"," +
+            "\"params\":{\"name\":\"stall\",\"arguments\":{\"millis\":5000}}}", "a", null, null);
+
+        assertTrue(response.contains("\"isError\":true"), response);
+        assertTrue(response.contains("timed out"), response);
+        assertFalse(handler.handleMessage(sleep(10, 0), "a", null, null).contains("isError"));
+    }
+
+    @Test
+    void errorResponsesForUnhandledMessagesCarryTheirId() {
+        assertTrue(handler.errorResponseFor(sleep(5, 0), McpException.SERVER_BUSY, "Server busy")
+            .contains("\"id\":5"));
+        assertTrue(handler.errorResponseFor("{\"id\":\"abc\",\"method\":\"ping\"}", -32603, "Internal error")
+            .contains("\"id\":\"abc\""));
+        assertTrue(handler.errorResponseFor("not json", -32603, "Internal error").contains("\"id\":null"));
+    }
+
+    private static String sleep(long id, long millis) {
+        return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"tools/call\",\"params\":{\"name\":\"sleep\"," +
+            "\"arguments\":{\"millis\":" + millis + "}}}";
+    }
+
+    private static String cancel(long id) {
+        return "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/cancelled\",\"params\":{\"requestId\":" + id + "}}";
+    }
+
+    static class Tools {
+
+        @McpTool(name = "sleep", description = "Sleep")
+        public String sleep(@ToolParam(name = "millis", description = "Duration") long millis, ProgressListener listener) {
+            long deadline = System.currentTimeMillis() + millis;
+            while (System.currentTimeMillis() < deadline) {
+                listener.checkCancelled();
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    throw new CancellationException("Interrupted");
+                }
+            }
+            return "slept";
+        }
+
+        @McpTool(name = "stall", description = "Sleep past the time limit", bulkhead = "slow", timeoutMs = 100)
+        public String stall(@ToolParam(name = "millis", description = "Duration") long millis, ProgressListener listener) {
+            return sleep(millis, listener);
+        }
+    }
+}
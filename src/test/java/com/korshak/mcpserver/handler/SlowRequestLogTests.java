@@ -0,0 +1,60 @@
+package com.korshak.mcpserver.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowRequestLogTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void logsSizesAndPhasesOfSlowRequestsOnly() throws Exception {
+        Path file = dir.resolve("slow.log");
+        SlowRequestLog log = new SlowRequestLog();
+        ReflectionTestUtils.setField(log, "environment",
+            new MockEnvironment().withProperty("mcp.slow-request.tool-threshold-ms.read_file", "0"));
+        ReflectionTestUtils.setField(log, "thresholdMs", 60_000L);
+        ReflectionTestUtils.setField(log, "output", file.toString());
+        log.init();
+
+        RequestTrace fast = log.start("stdin", "{}");
+        fast.setTool("list_files", Map.of());
+        log.finish(fast, "{}");
+
+        RequestTrace slow = log.start("stdin", "{\"secret\":\"...\"}");
+        slow.setRequest(7L, "tools/call");
+        slow.setTool("read_file", Map.of("filename", "secret-name.pdf", "tags", List.of("a", "b")));
+        slow.endPhase(RequestTrace.PARSE);
+        Thread.sleep(20);
+        slow.addNested(RequestTrace.EXTRACTION, 15_000_000L);
+        slow.endPhase(RequestTrace.EXECUTE);
+        log.finish(slow, "response");
+        log.close();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(1, lines.size(), "only the request over its threshold is logged");
+        assertFalse(lines.get(0).contains("secret-name"), "argument contents must not be logged");
+
+        JsonNode entry = new ObjectMapper().readTree(lines.get(0));
+        assertEquals("read_file", entry.get("tool").asText());
+        assertEquals(15, entry.path("argumentChars").path("filename").asInt());
+        assertEquals(2, entry.path("argumentChars").path("tags").asInt());
+        assertEquals(8, entry.get("responseChars").asInt());
+        JsonNode phases = entry.get("phasesMs");
+        assertEquals(15.0, phases.get("extraction").asDouble(), 0.01);
+        double sum = phases.get("parse").asDouble() + phases.get("extraction").asDouble() + phases.get("execute").asDouble();
+        assertTrue(sum <= entry.get("totalMs").asDouble() + 0.05, "phases must not overlap: " + entry);
+    }
+}
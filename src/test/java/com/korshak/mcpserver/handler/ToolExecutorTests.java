@@ -0,0 +1,109 @@
+package com.korshak.mcpserver.handler;
+
+import com.korshak.mcpserver.service.MetricsService;
+import com.korshak.mcpserver.service.ProgressListener;
+import com.korshak.mcpserver.tools.McpTool;
+import com.korshak.mcpserver.tools.ToolParam;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolExecutorTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ToolRegistry registry = new ToolRegistry();
+    private final ToolExecutor executor = new ToolExecutor();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    ToolExecutorTests() {
+        MockEnvironment environment = new MockEnvironment()
+            .withProperty("mcp.tools.bulkhead.slow.max-concurrency", "1")
+            .withProperty("mcp.tools.bulkhead.slow.max-queued", "1");
+        ReflectionTestUtils.setField(executor, "environment", environment);
+        ReflectionTestUtils.setField(executor, "defaultTimeoutMs", 10_000L);
+        ReflectionTestUtils.setField(executor, "metricsService", new MetricsService(meterRegistry));
+        registry.registerBean(new SlowTools());
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void timesOutAndInterruptsSlowTool() {
+        TimeoutException error = assertThrows(TimeoutException.class,
+            () -> executor.execute(registry.getTool("sleep"), Map.of("millis", 5_000), newContext(1)));
+        assertTrue(error.getMessage().contains("200 ms"), error.getMessage());
+        assertEquals(1, meterRegistry.get(MetricsService.TOOL_CALLS).tags("tool", "sleep", "outcome", "timeout").timer().count());
+    }
+
+    @Test
+    void inlineToolDoesNotQueueBehindFullBulkhead() throws Exception {
+        Future<?> running = callers.submit(() -> executor.execute(registry.getTool("sleep"), Map.of("millis", 80), newContext(1)));
+        Future<?> queued = callers.submit(() -> executor.execute(registry.getTool("sleep"), Map.of("millis", 80), newContext(2)));
+        Thread.sleep(20);
+
+        McpException busy = assertThrows(McpException.class,
+            () -> executor.execute(registry.getTool("sleep"), Map.of("millis", 80), newContext(3)));
+        assertEquals(McpException.SERVER_BUSY, busy.getCode());
+
+        long start = System.nanoTime();
+        assertEquals("pong", executor.execute(registry.getTool("ping"), Map.of(), newContext(4)));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(50));
+
+        assertEquals("slept", running.get());
+        assertEquals("slept", queued.get());
+        assertEquals(1, meterRegistry.get(MetricsService.TOOL_CALLS).tags("outcome", "rejected").timer().count());
+        assertEquals(2, meterRegistry.get(MetricsService.TOOL_CALLS).tags("tool", "sleep", "outcome", "success").timer().count());
+        assertEquals(4, meterRegistry.get(MetricsService.TOOL_RESPONSE_BYTES).tags("tool", "ping").summary().totalAmount());
+    }
+
+    @Test
+    void cancellationReachesToolOnBulkheadThread() throws Exception {
+        McpRequestContext context = newContext(1);
+        Future<String> call = callers.submit(() -> executor.execute(registry.getTool("sleep"), Map.of("millis", 5_000), context));
+        Thread.sleep(50);
+        context.cancel();
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> call.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(CancellationException.class, error.getCause());
+    }
+
+    private McpRequestContext newContext(long id) throws Exception {
+        // Created on the caller's thread like the protocol handler does
+        return callers.submit(() -> new McpRequestContext(id, null, false, null, objectMapper)).get();
+    }
+
+    static class SlowTools {
+
+        @McpTool(name = "sleep", description = "Sleep", bulkhead = "slow", timeoutMs = 200)
+        public String sleep(@ToolParam(name = "millis", description = "Duration") long millis, ProgressListener listener) {
+            long deadline = System.currentTimeMillis() + millis;
+            while (System.currentTimeMillis() < deadline) {
+                listener.checkCancelled();
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    throw new CancellationException("Interrupted");
+                }
+            }
+            return "slept";
+        }
+
+        @McpTool(name = "ping", description = "Ping")
+        public String ping() {
+            return "pong";
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.korshak.mcpserver.handler;
+
+import com.korshak.mcpserver.service.ProgressListener;
+import com.korshak.mcpserver.tools.McpTool;
+import com.korshak.mcpserver.tools.ToolParam;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolRegistryTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void pagesThroughAllToolsWithCursors() throws Exception {
+        ToolRegistry registry = new ToolRegistry();
+        ReflectionTestUtils.setField(registry, "pageSize", 2);
+        registry.registerBean(new SampleTools());
+
+        List<String> names = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            JsonNode page = objectMapper.readTree(registry.renderPage(cursor));
+            page.get("tools").forEach(tool -> names.add(tool.get("name").asText()));
+            cursor = page.has("nextCursor") ? page.get("nextCursor").asText() : null;
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(2, pages);
+        assertEquals(List.of("add", "count_tags", "echo"), names);
+    }
+
+    @Test
+    void rendersOnceAndRejectsUnknownCursors() {
+        ToolRegistry registry = new ToolRegistry();
+        registry.registerBean(new SampleTools());
+        assertSame(registry.renderPage(null), registry.renderPage(null));
+
+        McpException error = assertThrows(McpException.class, () -> registry.renderPage("bm90LWEtY3Vyc29y"));
+        assertEquals(McpException.INVALID_PARAMS, error.getCode());
+    }
+
+    @Test
+    void generatesSchemaFromParameterTypes() {
+        ToolRegistry registry = new ToolRegistry();
+        registry.registerBean(new SampleTools());
+
+        JsonNode schema = objectMapper.valueToTree(registry.getTool("count_tags").getDescriptor().getInputSchema());
+        assertEquals("array", schema.at("/properties/tags/type").asText());
+        assertEquals("string", schema.at("/properties/tags/items/type").asText());
+        assertEquals("boolean", schema.at("/properties/unique/type").asText());
+        assertEquals("[\"tags\"]", schema.get("required").toString());
+        assertEquals("integer", objectMapper.valueToTree(registry.getTool("add").getDescriptor().getInputSchema())
+            .at("/properties/a/type").asText());
+    }
+
+    @Test
+    void bindsTypedArguments() throws Exception {
+        ToolRegistry registry = new ToolRegistry();
+        registry.registerBean(new SampleTools());
+        McpRequestContext context = new McpRequestContext(1L, null, false, null, objectMapper);
+
+        assertEquals("5", registry.getTool("add").invoke(Map.of("a", 2, "b", "3"), context));
+        assertEquals("2", registry.getTool("count_tags").invoke(Map.of("tags", List.of("x", "y", "x"), "unique", true), context));
+        assertEquals("3", registry.getTool("count_tags").invoke(Map.of("tags", List.of("x", "y", "x")), context));
+        assertEquals("hi", registry.getTool("echo").invoke(Map.of("text", "hi"), context));
+
+        IllegalArgumentException missing = assertThrows(IllegalArgumentException.class,
+            () -> registry.getTool("echo").invoke(Map.of(), context));
+        assertEquals("text parameter is required", missing.getMessage());
+    }
+
+    static class SampleTools {
+
+        @McpTool(name = "echo", description = "Echo the text back")
+        public String echo(@ToolParam(name = "text", description = "Text") String text, ProgressListener listener) {
+            listener.checkCancelled();
+            return text;
+        }
+
+        @McpTool(name = "add", description = "Add two numbers", bulkhead = "math")
+        public String add(@ToolParam(name = "a", description = "First") int a,
+                          @ToolParam(name = "b", description = "Second") int b) {
+            return String.valueOf(a + b);
+        }
+
+        @McpTool(name = "count_tags", description = "Count tags")
+        public int countTags(@ToolParam(name = "tags", description = "Tags") List<String> tags,
+                             @ToolParam(name = "unique", description = "Count distinct", required = false) Boolean unique) {
+            return Boolean.TRUE.equals(unique) ? (int) tags.stream().distinct().count() : tags.size();
+        }
+    }
+}
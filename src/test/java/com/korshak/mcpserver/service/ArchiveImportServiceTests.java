@@ -0,0 +1,116 @@
+package com.korshak.mcpserver.service;
+
+import com.korshak.mcpserver.model.IngestionJob;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchiveImportServiceTests {
+
+    @TempDir
+    Path store;
+
+    private final List<String> queued = new ArrayList<>();
+    private MetadataService metadataService;
+
+    @Test
+    void importsAStoredZipInParallelAndQueuesIngestionOnce() throws Exception {
+        Map<String, String> files = new TreeMap<>();
+        for (int i = 0; i < 40; i++) {
+            files.put("docs/note-" + i + ".md", "# Note " + i + "\n\nBody of note " + i);
+        }
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(store.resolve("library.zip")))) {
+            for (Map.Entry<String, String> file : files.entrySet()) {
+                zip.putNextEntry(new ZipEntry(file.getKey()));
+                zip.write(file.getValue().getBytes(StandardCharsets.UTF_8));
+            }
+            zip.putNextEntry(new ZipEntry("__MACOSX/docs/._note-0.md"));
+            zip.putNextEntry(new ZipEntry("docs/"));
+        }
+
+        ArchiveImportService.Result result = service().importStored("library.zip", null, ProgressListener.NONE);
+
+        assertEquals("library", result.getTargetDir());
+        assertEquals(files.size(), result.getImported().size());
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            assertEquals(file.getValue(), Files.readString(store.resolve("library").resolve(file.getKey())));
+            assertNotNull(metadataService.getOrCreateMetadata("library/" + file.getKey()).getContentHash());
+        }
+        assertEquals(new HashSet<>(result.getImported()), new HashSet<>(queued));
+        assertTrue(Files.exists(store.resolve("file-metadata.json")));
+    }
+
+    @Test
+    void streamsATarGzAndSkipsEntriesOutsideTheTarget() throws Exception {
+        byte[] large = new byte[ArchiveImportService.BUFFERED_ENTRY_BYTES + 1];
+        new Random(1).nextBytes(large);
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GzipCompressorOutputStream(archive))) {
+            addEntry(tar, "readme.txt", "read me".getBytes(StandardCharsets.UTF_8));
+            addEntry(tar, "data/large.bin", large);
+            addEntry(tar, "../escape.txt", "outside".getBytes(StandardCharsets.UTF_8));
+            addEntry(tar, ".hidden/secret.txt", "hidden".getBytes(StandardCharsets.UTF_8));
+        }
+
+        ArchiveImportService.Result result = service().importStream("bundle.tar.gz",
+            new ByteArrayInputStream(archive.toByteArray()), "", ProgressListener.NONE);
+
+        assertEquals(List.of("data/large.bin", "readme.txt"), result.getImported());
+        assertEquals(Set.of("../escape.txt"), result.getSkipped().keySet());
+        assertArrayEquals(large, Files.readAllBytes(store.resolve("data/large.bin")));
+        assertEquals(large.length + 7, result.getBytes());
+        assertFalse(Files.exists(store.resolve(".hidden")));
+        assertFalse(Files.exists(store.getParent().resolve("escape.txt")));
+    }
+
+    private static void addEntry(TarArchiveOutputStream tar, String name, byte[] content) throws Exception {
+        TarArchiveEntry entry = new TarArchiveEntry(name, true);
+        entry.setSize(content.length);
+        tar.putArchiveEntry(entry);
+        tar.write(content);
+        tar.closeArchiveEntry();
+    }
+
+    private ArchiveImportService service() {
+        metadataService = new MetadataService();
+        ReflectionTestUtils.setField(metadataService, "knowledgeStorePath", store.toString());
+        ReflectionTestUtils.setField(metadataService, "metricsService", new MetricsService(new SimpleMeterRegistry()));
+        ContentStore contentStore = new ContentStore();
+        ReflectionTestUtils.setField(contentStore, "knowledgeStorePath", store.toString());
+
+        KnowledgeStoreService knowledgeStoreService = new KnowledgeStoreService();
+        ReflectionTestUtils.setField(knowledgeStoreService, "knowledgeStorePath", store.toString());
+        ReflectionTestUtils.setField(knowledgeStoreService, "metadataService", metadataService);
+        ReflectionTestUtils.setField(knowledgeStoreService, "contentStore", contentStore);
+
+        ArchiveImportService service = new ArchiveImportService();
+        ReflectionTestUtils.setField(service, "knowledgeStorePath", store.toString());
+        ReflectionTestUtils.setField(service, "parallelism", 4);
+        ReflectionTestUtils.setField(service, "knowledgeStoreService", knowledgeStoreService);
+        ReflectionTestUtils.setField(service, "metadataService", metadataService);
+        ReflectionTestUtils.setField(service, "ingestionService", new IngestionService() {
+            @Override
+            public List<IngestionJob> submitAll(Collection<String> filenames) {
+                queued.addAll(filenames);
+                return List.of();
+            }
+        });
+        return service;
+    }
+}
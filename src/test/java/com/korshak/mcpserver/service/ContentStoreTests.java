@@ -0,0 +1,96 @@
+package com.korshak.mcpserver.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentStoreTests {
+
+    @TempDir
+    Path store;
+
+    @Test
+    void identicalBytesShareAHashAndStoredText() throws Exception {
+        ContentStore contentStore = contentStore();
+        byte[] bytes = "same document".getBytes(StandardCharsets.UTF_8);
+
+        String uploaded = contentStore.store(new ByteArrayInputStream(bytes), store.resolve("a/upload.pdf"));
+        Path copy = Files.write(store.resolve("copy.pdf"), bytes);
+        assertEquals(uploaded, contentStore.hash(copy));
+        assertEquals(uploaded, contentStore.hash(store.resolve("a/upload.pdf")));
+
+        contentStore.writeText(uploaded, "extracted");
+        assertEquals("extracted", contentStore.readText(contentStore.hash(copy)));
+        assertNull(contentStore.readText(contentStore.hash(Files.writeString(store.resolve("other.pdf"), "other"))));
+    }
+
+    @Test
+    void storesAStreamWithSizeAndHeadInOnePass() throws Exception {
+        ContentStore contentStore = contentStore();
+        byte[] bytes = new byte[200_000];
+        new Random(1).nextBytes(bytes);
+
+        ContentStore.Stored stored = contentStore.store(Channels.newChannel(new ByteArrayInputStream(bytes)),
+            store.resolve("big.bin"));
+
+        assertEquals(bytes.length, stored.getSize());
+        assertArrayEquals(Arrays.copyOf(bytes, stored.getHead().length), stored.getHead());
+        assertArrayEquals(bytes, Files.readAllBytes(store.resolve("big.bin")));
+        assertEquals(contentStore.hash(Files.write(store.resolve("copy.bin"), bytes)), stored.getHash());
+        try (Stream<Path> staged = Files.list(store.resolve(".mcp/tmp"))) {
+            assertEquals(0, staged.count());
+        }
+    }
+
+    @Test
+    void rehashesAChangedFile() throws Exception {
+        ContentStore contentStore = contentStore();
+        Path file = Files.writeString(store.resolve("notes.txt"), "first");
+        String first = contentStore.hash(file);
+
+        Files.writeString(file, "second");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 5000));
+
+        assertNotEquals(first, contentStore.hash(file));
+    }
+
+    @Test
+    void knownHashesAnswerWithoutReadingTheFile() throws Exception {
+        ContentStore contentStore = contentStore();
+        Path a = Files.writeString(store.resolve("a.txt"), "same");
+        Path b = Files.writeString(store.resolve("b.txt"), "same");
+        Path unhashed = Files.writeString(store.resolve("c.txt"), "same");
+        assertNull(contentStore.knownHash(a));
+
+        String hash = contentStore.hash(a);
+        contentStore.hash(b);
+        assertEquals(hash, contentStore.knownHash(a));
+        assertEquals(Set.of(a, b), Set.copyOf(contentStore.filesWithHash(hash)));
+
+        Files.writeString(b, "changed");
+        Files.setLastModifiedTime(b, FileTime.fromMillis(Files.getLastModifiedTime(b).toMillis() + 5000));
+        assertNull(contentStore.knownHash(b));
+        assertEquals(List.of(a), contentStore.filesWithHash(hash));
+        assertNull(contentStore.knownHash(unhashed));
+    }
+
+    private ContentStore contentStore() {
+        ContentStore contentStore = new ContentStore();
+        ReflectionTestUtils.setField(contentStore, "knowledgeStorePath", store.toString());
+        return contentStore;
+    }
+}
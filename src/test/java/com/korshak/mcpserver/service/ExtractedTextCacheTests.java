@@ -0,0 +1,34 @@
+package com.korshak.mcpserver.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExtractedTextCacheTests {
+
+    @Test
+    void evictsLeastRecentlyUsedOverCharBudget() {
+        ExtractedTextCache cache = new ExtractedTextCache(10);
+
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        assertEquals("aaaa", cache.get("a"));
+        cache.put("c", "cccc");
+
+        assertEquals("aaaa", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("cccc", cache.get("c"));
+        assertEquals(8, cache.totalChars());
+    }
+
+    @Test
+    void replacingAnEntryKeepsTheTotalExact() {
+        ExtractedTextCache cache = new ExtractedTextCache(100);
+        cache.put("a", "text");
+        cache.put("a", "longer text");
+
+        assertEquals(1, cache.size());
+        assertEquals(11, cache.totalChars());
+        assertFalse(cache.contains("b"));
+    }
+}
@@ -0,0 +1,114 @@
+package com.korshak.mcpserver.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.korshak.mcpserver.model.IngestionJob;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestionServiceTests {
+
+    @TempDir
+    Path store;
+
+    private final List<String> ingested = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private IngestionService service;
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void resumesJobsPersistedByAnEarlierRun() throws Exception {
+        release.countDown();
+        Path queue = Files.createDirectories(store.resolve(".mcp/ingestion"));
+        IngestionJob pending = new IngestionJob("left-over", "book.pdf");
+        new ObjectMapper().registerModule(new JavaTimeModule()).writeValue(queue.resolve("left-over.json").toFile(), pending);
+
+        service = service();
+        awaitStatus("left-over", IngestionJob.Status.COMPLETED);
+
+        assertEquals(List.of("book.pdf"), ingested);
+        awaitRemoved(queue.resolve("left-over.json"));
+        assertTrue(Files.exists(store.resolve("file-metadata.json")));
+    }
+
+    @Test
+    void rewritesOfAWaitingFileShareOneJob() throws Exception {
+        service = service();
+        IngestionJob running = service.submit("first.md");
+        awaitStatus(running.getId(), IngestionJob.Status.RUNNING);
+
+        IngestionJob queued = service.submit("notes.md");
+        assertSame(queued, service.submit("notes.md"));
+        assertTrue(Files.exists(store.resolve(".mcp/ingestion/" + queued.getId() + ".json")));
+
+        release.countDown();
+        awaitStatus(queued.getId(), IngestionJob.Status.COMPLETED);
+        assertEquals(List.of("first.md", "notes.md"), ingested);
+        assertEquals(2, service.countByStatus().get(IngestionJob.Status.COMPLETED));
+        awaitRemoved(store.resolve(".mcp/ingestion/" + queued.getId() + ".json"));
+    }
+
+    private IngestionService service() {
+        IngestionService service = new IngestionService();
+        ReflectionTestUtils.setField(service, "knowledgeStorePath", store.toString());
+        ReflectionTestUtils.setField(service, "threads", 1);
+        ReflectionTestUtils.setField(service, "retainedJobs", 100);
+        MetadataService metadataService = new MetadataService();
+        ReflectionTestUtils.setField(metadataService, "knowledgeStorePath", store.toString());
+        ReflectionTestUtils.setField(metadataService, "metricsService", new MetricsService(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(service, "metadataService", metadataService);
+        ReflectionTestUtils.setField(service, "knowledgeStoreService", new KnowledgeStoreService() {
+            @Override
+            public void ingest(String filename, ProgressListener listener) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                ingested.add(filename);
+                metadataService.updateMetadata(filename, metadataService.getOrCreateMetadata(filename));
+            }
+        });
+        service.init();
+        return service;
+    }
+
+    private void awaitStatus(String id, IngestionJob.Status status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            IngestionJob job = service.getJob(id);
+            if (job != null && job.getStatus() == status) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("Job " + id + " did not reach " + status);
+    }
+
+    private static void awaitRemoved(Path path) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (Files.exists(path) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(Files.exists(path));
+    }
+}
@@ -0,0 +1,173 @@
+package com.korshak.mcpserver.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the keyword scanner, plus a check that the strategy heuristics built
+ * on it still produce what the previous per-keyword contains/split code did.
+ */
+class KeywordScannerTests {
+
+    private static final File SAMPLE_PDF = new File("knowledgeStore/Kurguzkin-Birzhevoj-Trejding.pdf");
+
+    @Test
+    void findsOverlappingMatchesCaseInsensitively() {
+        KeywordScanner scanner = new KeywordScanner(List.of("he", "she", "his", "hers", "объем"));
+        KeywordScanner.Matches matches = scanner.scan("uSHErs and HIS ОБЪЕМ");
+
+        assertArrayEquals(new int[] {1}, matches.positions("she"));
+        assertArrayEquals(new int[] {2}, matches.positions("he"));
+        assertArrayEquals(new int[] {2}, matches.positions("hers"));
+        assertArrayEquals(new int[] {11}, matches.positions("his"));
+        assertArrayEquals(new int[] {15}, matches.positions("объем"));
+        assertThrows(IllegalArgumentException.class, () -> matches.contains("unknown"));
+    }
+
+    @Test
+    void agreesWithIndexOfOnRandomText() {
+        List<String> keywords = List.of("ab", "aba", "bab", "b", "abc", "ca", "%", "< 3");
+        KeywordScanner scanner = new KeywordScanner(keywords);
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 200; i++) {
+                text.append("abcAB %<3 ".charAt(random.nextInt(10)));
+            }
+            KeywordScanner.Matches matches = scanner.scan(text);
+            String lower = text.toString().toLowerCase(Locale.ROOT);
+            for (String keyword : keywords) {
+                List<Integer> expected = new ArrayList<>();
+                for (int at = lower.indexOf(keyword); at >= 0; at = lower.indexOf(keyword, at + 1)) {
+                    expected.add(at);
+                }
+                assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(),
+                    matches.positions(keyword), keyword + " in " + text);
+            }
+        }
+    }
+
+    @Test
+    void strategyDescriptionMatchesPreviousImplementation() throws Exception {
+        KnowledgeStoreService service = new KnowledgeStoreService();
+        List<String> samples = new ArrayList<>(List.of(
+            "Buy when RSI is oversold and price > SMA. Use a stop 1.5% below. Take profit 4% target. Exit on RSI above 70.",
+            "Moving average crossover: price < EMA, below 30 RSI, stop-loss\tstop\n3% and profit   7%",
+            "Volume spike with no indicators",
+            "risk position sizing, stop loss, take profit",
+            ""));
+        if (SAMPLE_PDF.exists()) {
+            samples.add(readPdf());
+        }
+        for (String sample : samples) {
+            String actual = service.extractStrategyDescription(sample,
+                KnowledgeStoreService.STRATEGY_KEYWORDS.scan(sample));
+            assertEquals(previousDescription(sample), actual);
+        }
+    }
+
+    private static String sampleText;
+
+    private static synchronized String readPdf() throws Exception {
+        if (sampleText == null) {
+            try (PDDocument document = PDDocument.load(SAMPLE_PDF)) {
+                sampleText = new PDFTextStripper().getText(document);
+            }
+        }
+        return sampleText;
+    }
+
+    // Verbatim copy of extractStrategyDescription before the scanner
+    private static String previousDescription(String content) {
+        StringBuilder description = new StringBuilder();
+        String lowerContent = content.toLowerCase();
+
+        List<String> longConditions = new ArrayList<>();
+        List<String> shortConditions = new ArrayList<>();
+        List<String> exitConditions = new ArrayList<>();
+
+        if (lowerContent.contains("rsi") || lowerContent.contains("relative strength")) {
+            if (lowerContent.contains("oversold") || lowerContent.contains("< 30") || lowerContent.contains("below 30")) {
+                longConditions.add("RSI(14) < 30");
+            }
+        }
+        if (lowerContent.contains("moving average") || lowerContent.contains("sma") || lowerContent.contains("ema")) {
+            if (lowerContent.contains("price >") || lowerContent.contains("above")) {
+                longConditions.add("close price > SMA(50)");
+            }
+        }
+        if (lowerContent.contains("volume")) {
+            longConditions.add("volume > 1.5x SMA(20)");
+        }
+        if (lowerContent.contains("rsi") || lowerContent.contains("relative strength")) {
+            if (lowerContent.contains("overbought") || lowerContent.contains("> 70") || lowerContent.contains("above 70")) {
+                shortConditions.add("RSI(14) > 70");
+            }
+        }
+        if (lowerContent.contains("moving average") || lowerContent.contains("sma") || lowerContent.contains("ema")) {
+            if (lowerContent.contains("price <") || lowerContent.contains("below")) {
+                shortConditions.add("close price < SMA(50)");
+            }
+        }
+        if (!longConditions.isEmpty()) {
+            description.append("Long when ").append(String.join(" and ", longConditions)).append(". ");
+        }
+        if (!shortConditions.isEmpty()) {
+            description.append("Short when ").append(String.join(" and ", shortConditions)).append(". ");
+        }
+        if (longConditions.isEmpty() && shortConditions.isEmpty()) {
+            description.append("Entry signals to be defined based on technical analysis. ");
+        }
+        if (lowerContent.contains("stop loss") || lowerContent.contains("stop-loss")) {
+            if (lowerContent.contains("%")) {
+                String[] words = content.split("\\s+");
+                for (int i = 0; i < words.length - 1; i++) {
+                    if (words[i].toLowerCase().contains("stop") && words[i+1].contains("%")) {
+                        exitConditions.add("stop loss at " + words[i+1] + " from entry");
+                        break;
+                    }
+                }
+            }
+            if (exitConditions.isEmpty()) {
+                exitConditions.add("stop loss at 2% below entry");
+            }
+        }
+        if (lowerContent.contains("take profit") || lowerContent.contains("target")) {
+            if (lowerContent.contains("%")) {
+                String[] words = content.split("\\s+");
+                for (int i = 0; i < words.length - 1; i++) {
+                    if (words[i].toLowerCase().contains("profit") && words[i+1].contains("%")) {
+                        exitConditions.add("take profit at " + words[i+1] + " above entry");
+                        break;
+                    }
+                }
+            }
+            if (exitConditions.stream().noneMatch(c -> c.contains("profit"))) {
+                exitConditions.add("take profit at 5% above entry");
+            }
+        }
+        if (lowerContent.contains("rsi") && lowerContent.contains("exit")) {
+            if (lowerContent.contains("> 70") || lowerContent.contains("above 70")) {
+                exitConditions.add("exit long when RSI(14) > 70");
+            }
+            if (lowerContent.contains("< 30") || lowerContent.contains("below 30")) {
+                exitConditions.add("exit short when RSI(14) < 30");
+            }
+        }
+        if (!exitConditions.isEmpty()) {
+            description.append("Exit: ").append(String.join(", ", exitConditions)).append(". ");
+        } else {
+            description.append("Exit: use appropriate risk management. ");
+        }
+        if (lowerContent.contains("risk") && lowerContent.contains("position")) {
+            description.append("Risk management: limit position size and maintain risk-reward ratio.");
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package com.korshak.mcpserver.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KnowledgeStoreServiceTests {
+
+    @TempDir
+    Path store;
+
+    private final KnowledgeStoreService service = new KnowledgeStoreService();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Same name in two directories, as archive imports produce
+        Files.createDirectories(store.resolve("alpha"));
+        Files.createDirectories(store.resolve("beta"));
+        Files.writeString(store.resolve("alpha/notes.md"),
+            "Momentum: the rate at which a price keeps moving in one direction\n");
+        Files.writeString(store.resolve("beta/notes.md"),
+            "Breakout: a move of the price through a level it could not pass before\n");
+
+        MetricsService metricsService = new MetricsService(new SimpleMeterRegistry());
+        ContentStore contentStore = new ContentStore();
+        ReflectionTestUtils.setField(contentStore, "knowledgeStorePath", store.toString());
+        MetadataService metadataService = new MetadataService();
+        ReflectionTestUtils.setField(metadataService, "knowledgeStorePath", store.toString());
+        ReflectionTestUtils.setField(metadataService, "metricsService", metricsService);
+        MinHashIndex minHashIndex = new MinHashIndex();
+        ReflectionTestUtils.setField(minHashIndex, "contentStore", contentStore);
+
+        ReflectionTestUtils.setField(service, "knowledgeStorePath", store.toString());
+        ReflectionTestUtils.setField(service, "contentStore", contentStore);
+        ReflectionTestUtils.setField(service, "metadataService", metadataService);
+        ReflectionTestUtils.setField(service, "metricsService", metricsService);
+        ReflectionTestUtils.setField(service, "minHashIndex", minHashIndex);
+        ReflectionTestUtils.setField(service, "textCache", new ExtractedTextCache(1_000_000));
+    }
+
+    @Test
+    void searchReadsNestedFilesByTheirPathInTheStore() {
+        String result = service.searchFiles("price", true, ProgressListener.NONE);
+
+        assertTrue(result.contains("alpha"), result);
+        assertTrue(result.contains("beta"), result);
+        assertFalse(result.contains("near-duplicates"), result);
+    }
+
+    @Test
+    void definitionsComeFromEachOfTheSameNamedFiles() {
+        Map<String, String> definitions = service.getAllDefinitions(true, ProgressListener.NONE);
+
+        assertTrue(definitions.get("Momentum").contains("[Source: alpha/notes.md]"), definitions.toString());
+        assertTrue(definitions.get("Breakout").contains("[Source: beta/notes.md]"), definitions.toString());
+    }
+}
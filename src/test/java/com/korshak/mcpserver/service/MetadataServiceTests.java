@@ -0,0 +1,66 @@
+package com.korshak.mcpserver.service;
+
+import com.korshak.mcpserver.model.FileMetadata;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetadataServiceTests {
+
+    @TempDir
+    Path store;
+
+    private MetadataService metadataService;
+    private Path metadataFile;
+
+    @BeforeEach
+    void setUp() {
+        metadataService = new MetadataService();
+        ReflectionTestUtils.setField(metadataService, "knowledgeStorePath", store.toString());
+        ReflectionTestUtils.setField(metadataService, "metricsService", new MetricsService(new SimpleMeterRegistry()));
+        metadataFile = store.resolve("file-metadata.json");
+    }
+
+    @Test
+    void batchFoldsUpdatesIntoOneSaveAtTheEnd() throws Exception {
+        try (MetadataService.Batch batch = metadataService.beginBatch()) {
+            try (MetadataService.Scope scope = batch.enter()) {
+                metadataService.updateMetadata("a.txt", new FileMetadata("a.txt"));
+            }
+            Thread worker = new Thread(() -> {
+                try (MetadataService.Scope scope = batch.enter()) {
+                    metadataService.updateFileAccess("b.txt");
+                }
+            });
+            worker.start();
+            worker.join();
+            assertFalse(Files.exists(metadataFile), "saves inside the batch must wait for it to close");
+        }
+        String saved = Files.readString(metadataFile);
+        assertTrue(saved.contains("a.txt") && saved.contains("b.txt"), saved);
+
+        Files.delete(metadataFile);
+        metadataService.beginBatch().close();
+        assertFalse(Files.exists(metadataFile), "an empty batch must not save");
+    }
+
+    @Test
+    void savesOutsideABatchAreNotHeldBack() throws Exception {
+        try (MetadataService.Batch batch = metadataService.beginBatch();
+             MetadataService.Scope scope = batch.enter()) {
+            metadataService.updateMetadata("batched.txt", new FileMetadata("batched.txt"));
+
+            Thread other = new Thread(() -> metadataService.updateFileAccess("other.txt"));
+            other.start();
+            other.join();
+            assertTrue(Files.readString(metadataFile).contains("other.txt"));
+        }
+    }
+}
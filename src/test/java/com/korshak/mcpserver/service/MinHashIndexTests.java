@@ -0,0 +1,78 @@
+package com.korshak.mcpserver.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinHashIndexTests {
+
+    @TempDir
+    Path store;
+
+    @Test
+    void findsEditedCopiesButNotUnrelatedText() {
+        MinHashIndex index = index();
+        String original = words(2000, 1);
+        // An edited re-export: different line breaks and case, one word in fifty changed
+        String[] words = original.trim().split(" ");
+        for (int i = 0; i < words.length; i += 50) {
+            words[i] = "changed";
+        }
+        String edited = String.join("\n", words).toUpperCase();
+
+        index.add("original.pdf", "h1", original);
+        index.add("copy.txt", "h2", edited);
+        index.add("same-bytes.pdf", "h1", original);
+        index.add("other.md", "h3", words(2000, 2));
+
+        List<MinHashIndex.Match> matches = index.similar("original.pdf", 0.8);
+        assertEquals(List.of("same-bytes.pdf", "copy.txt"), matches.stream().map(MinHashIndex.Match::getName).toList());
+        assertEquals(1.0, matches.get(0).getSimilarity());
+        double similarity = matches.get(1).getSimilarity();
+        assertTrue(similarity > 0.8 && similarity < 1.0, String.valueOf(similarity));
+
+        assertEquals("original.pdf", index.duplicateOf("copy.txt", Set.of("original.pdf", "other.md"), 0.8));
+        assertNull(index.duplicateOf("other.md", Set.of("original.pdf"), 0.8));
+    }
+
+    @Test
+    void reusesStoredSignaturesAndForgetsRemovedFiles() {
+        String text = words(500, 3);
+        index().add("a.pdf", "h1", text);
+
+        MinHashIndex restarted = index();
+        assertTrue(restarted.addStored("a.pdf", "h1"));
+        assertFalse(restarted.addStored("b.pdf", "h2"));
+        restarted.add("b.pdf", "h2", text);
+        assertEquals(1, restarted.similar("a.pdf", 0.9).size());
+
+        restarted.retain(Set.of("a.pdf"));
+        assertTrue(restarted.similar("a.pdf", 0.9).isEmpty());
+        assertEquals(1, restarted.size());
+    }
+
+    private MinHashIndex index() {
+        ContentStore contentStore = new ContentStore();
+        ReflectionTestUtils.setField(contentStore, "knowledgeStorePath", store.toString());
+        MinHashIndex index = new MinHashIndex();
+        ReflectionTestUtils.setField(index, "contentStore", contentStore);
+        return index;
+    }
+
+    // Pseudo-random words from a vocabulary of 500
+    private static String words(int count, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(" w").append(random.nextInt(500));
+        }
+        return sb.append(' ').toString();
+    }
+}
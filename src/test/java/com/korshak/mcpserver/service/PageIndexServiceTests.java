@@ -0,0 +1,93 @@
+package com.korshak.mcpserver.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PageIndexServiceTests {
+
+    private static final Path SAMPLE_PDF = Paths.get("knowledgeStore/Kurguzkin-Birzhevoj-Trejding.pdf");
+
+    @TempDir
+    Path store;
+
+    @Test
+    void readsTheSamePagesFromTheCachedIndexAsFromTheFirstPass() throws Exception {
+        assumeTrue(Files.exists(SAMPLE_PDF), "sample PDF not available");
+        Path pdf = Files.copy(SAMPLE_PDF, store.resolve("book.pdf"));
+
+        ContentStore contentStore = contentStore();
+        PageIndexService service = pageIndexService(contentStore);
+
+        PageIndexService.PageSelection built = service.readStrategyPages("book.pdf", ProgressListener.NONE);
+        assertFalse(built.isFromIndex());
+        String hash = contentStore.hash(pdf);
+        assertTrue(Files.exists(store.resolve(".mcp/cas/page-index/" + hash.substring(0, 2) + "/" + hash + ".json")));
+        assertTrue(built.getPagesRead() > 1 && built.getPagesRead() < built.getPageCount() / 2,
+            built.getPagesRead() + " of " + built.getPageCount());
+
+        PageIndexService.PageSelection cached = service.readStrategyPages("book.pdf", ProgressListener.NONE);
+        assertTrue(cached.isFromIndex());
+        assertEquals(built.getPagesRead(), cached.getPagesRead());
+        assertEquals(built.getText(), cached.getText());
+
+        // The index belongs to the content: a copy uses it, and touching the file keeps it
+        Files.copy(pdf, store.resolve("copy.pdf"));
+        assertTrue(service.readStrategyPages("copy.pdf", ProgressListener.NONE).isFromIndex());
+        Files.setLastModifiedTime(pdf, FileTime.fromMillis(0));
+        assertTrue(service.readStrategyPages("book.pdf", ProgressListener.NONE).isFromIndex());
+
+        // Changed bytes invalidate it
+        Files.write(pdf, "\n%changed\n".getBytes(), StandardOpenOption.APPEND);
+        assertFalse(service.readStrategyPages("book.pdf", ProgressListener.NONE).isFromIndex());
+    }
+
+    @Test
+    void extractingThePdfTextBuildsTheIndexInTheSamePass() throws Exception {
+        assumeTrue(Files.exists(SAMPLE_PDF), "sample PDF not available");
+        Files.copy(SAMPLE_PDF, store.resolve("book.pdf"));
+        ContentStore contentStore = contentStore();
+        PageIndexService pageIndexService = pageIndexService(contentStore);
+        MinHashIndex minHashIndex = new MinHashIndex();
+        ReflectionTestUtils.setField(minHashIndex, "contentStore", contentStore);
+        KnowledgeStoreService knowledgeStoreService = new KnowledgeStoreService();
+        ReflectionTestUtils.setField(knowledgeStoreService, "knowledgeStorePath", store.toString());
+        ReflectionTestUtils.setField(knowledgeStoreService, "contentStore", contentStore);
+        ReflectionTestUtils.setField(knowledgeStoreService, "pageIndexService", pageIndexService);
+        ReflectionTestUtils.setField(knowledgeStoreService, "minHashIndex", minHashIndex);
+        ReflectionTestUtils.setField(knowledgeStoreService, "textCache", new ExtractedTextCache(1_000_000));
+        ReflectionTestUtils.setField(knowledgeStoreService, "metricsService", new MetricsService(new SimpleMeterRegistry()));
+
+        assertTrue(knowledgeStoreService.preloadText("book.pdf", ProgressListener.NONE));
+        assertFalse(pageIndexService.ensureIndex("book.pdf", ProgressListener.NONE));
+
+        PageIndexService.PageSelection selection = pageIndexService.readStrategyPages("book.pdf", ProgressListener.NONE);
+        assertTrue(selection.isFromIndex());
+        assertTrue(selection.getPagesRead() > 1 && selection.getPagesRead() < selection.getPageCount() / 2,
+            selection.getPagesRead() + " of " + selection.getPageCount());
+    }
+
+    private ContentStore contentStore() {
+        ContentStore contentStore = new ContentStore();
+        ReflectionTestUtils.setField(contentStore, "knowledgeStorePath", store.toString());
+        return contentStore;
+    }
+
+    private PageIndexService pageIndexService(ContentStore contentStore) {
+        PageIndexService service = new PageIndexService();
+        ReflectionTestUtils.setField(service, "knowledgeStorePath", store.toString());
+        ReflectionTestUtils.setField(service, "metricsService", new MetricsService(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(service, "contentStore", contentStore);
+        return service;
+    }
+}
@@ -0,0 +1,66 @@
+package com.korshak.mcpserver.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StrategyCatalogServiceTests {
+
+    @TempDir
+    Path store;
+
+    @Test
+    void indexesStrategiesAndKeepsStatsInSyncOnRewrite() throws Exception {
+        Files.writeString(store.resolve("strategy-rsi.json"), """
+            {"strategyId": "rsi-1", "name": "RSI Reversal",
+             "description": "Long when RSI(14) < 30. Exit: stop loss at 1.5% from entry.",
+             "conditions": {"entry": {"long": [{}], "short": []}, "exit": {}},
+             "indicators": {"required": [{"name": "RSI"}], "optional": [{"name": "SMA_volume"}]}}
+            """);
+        Files.writeString(store.resolve("strategy-swing.json"), """
+            {"strategyId": "swing-1", "name": "Swing Breakout", "riskLevel": "high",
+             "conditions": {"entry": {"long": [{}], "short": [{}]}, "exit": {}},
+             "indicators": {"required": [{"name": "SMA"}], "optional": []}}
+            """);
+        Files.writeString(store.resolve("notes.json"), "{}");
+
+        StrategyCatalogService catalog = new StrategyCatalogService();
+        ReflectionTestUtils.setField(catalog, "knowledgeStorePath", store.toString());
+        catalog.init();
+
+        assertEquals(2, catalog.getAllStrategies().size());
+        assertEquals("rsi-1", single(catalog.getByRiskLevel("LOW")).get("strategyId"));
+        assertEquals("swing-1", single(catalog.getByCategory("swing")).get("strategyId"));
+        assertEquals("swing-1", single(catalog.getByIndicator("SMA")).get("strategyId"));
+        assertEquals("rsi-1", single(catalog.getByIndicator("volume")).get("strategyId"));
+        assertEquals("RSI Reversal", catalog.getStrategy("rsi reversal").path("name").asText());
+        assertEquals("swing-1", single(catalog.search("breakout high")).get("strategyId"));
+        assertEquals(1.5, (double) catalog.getStats().get("averageEntryConditions"));
+
+        Files.writeString(store.resolve("strategy-swing.json"), """
+            {"strategyId": "swing-1", "name": "Swing Breakout", "category": "position", "riskLevel": "medium",
+             "conditions": {"entry": {"long": [], "short": []}, "exit": {}},
+             "indicators": {"required": [], "optional": []}}
+            """);
+        catalog.reload("strategy-swing.json");
+
+        Map<String, Object> stats = catalog.getStats();
+        assertEquals(Map.of("position", 1, "technical", 1), stats.get("byCategory"));
+        assertEquals(Map.of("low", 1, "medium", 1), stats.get("byRiskLevel"));
+        assertEquals(Map.of("rsi", 1, "sma_volume", 1), stats.get("byIndicator"));
+        assertEquals(0.5, (double) stats.get("averageEntryConditions"));
+        assertTrue(catalog.getByCategory("swing").isEmpty());
+    }
+
+    private static Map<String, Object> single(List<Map<String, Object>> strategies) {
+        assertEquals(1, strategies.size());
+        return strategies.get(0);
+    }
+}
@@ -0,0 +1,6 @@
+@echo off
+REM Starts the stdin server with the class-data-sharing archive built by "mvn package -Pcds".
+REM Nothing may be printed here: stdout carries the MCP protocol.
+REM Use the same java as the build; with another JVM the archive is ignored and startup is just slower.
+set CDS_DIR=%~dp0target\stdin-cds
+java -XX:SharedArchiveFile="%CDS_DIR%\mcp-knowledge-server-stdin.jsa" -jar "%CDS_DIR%\mcp-knowledge-server-1.0.0-stdin-cds.jar" --spring.profiles.active=stdin %*